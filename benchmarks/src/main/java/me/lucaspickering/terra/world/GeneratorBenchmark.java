@@ -0,0 +1,61 @@
+package me.lucaspickering.terra.world;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import me.lucaspickering.terra.world.generate.Generator;
+
+/**
+ * Benchmarks each individual stage of the world generation pipeline. Before each iteration, a new
+ * world is built and every stage before the one being benchmarked is run on it, so that each stage
+ * gets the same input it would get in a real generation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    @Param({"1", "2"})
+    public int chunkRadius;
+
+    @Param({"0", "8675309"})
+    public long seed;
+
+    // The simple class name of the generator being benchmarked
+    @Param({
+        "NoiseTerrainGenerator",
+        "OceanGenerator",
+        "BiomePainter",
+        "ContinentClusterer",
+        "CoastGenerator",
+        "RunoffGenerator"
+    })
+    public String stage;
+
+    private Generator generator;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        final World world = new World(seed, chunkRadius);
+        final Generator[] generators = WorldHandler.makeGenerators(world);
+
+        // Run every stage up to the one being benchmarked
+        for (Generator gen : generators) {
+            if (gen.getClass().getSimpleName().equals(stage)) {
+                generator = gen;
+                return;
+            }
+            gen.generate();
+        }
+        throw new IllegalArgumentException(String.format("Unknown stage: %s", stage));
+    }
+
+    @Benchmark
+    public void generate() {
+        generator.generate();
+    }
+}
@@ -0,0 +1,30 @@
+package me.lucaspickering.terra.world;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the entire world generation pipeline, from start to finish.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WorldHandlerBenchmark {
+
+    @Param({"1", "2"})
+    public int chunkRadius;
+
+    @Param({"0", "8675309"})
+    public long seed;
+
+    @Benchmark
+    public World generate() {
+        final WorldHandler worldHandler = new WorldHandler(seed, chunkRadius);
+        worldHandler.generate();
+        return worldHandler.getWorld();
+    }
+}
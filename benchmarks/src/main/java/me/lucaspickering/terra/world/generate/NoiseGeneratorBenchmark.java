@@ -0,0 +1,44 @@
+package me.lucaspickering.terra.world.generate;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import me.lucaspickering.terra.world.World;
+
+/**
+ * Compares generating elevation and humidity with two separate noise stages against doing it with
+ * one fused stage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NoiseGeneratorBenchmark {
+
+    @Param({"1", "2"})
+    public int chunkRadius;
+
+    @Param({"0", "8675309"})
+    public long seed;
+
+    private World world;
+
+    @Setup
+    public void setUp() {
+        world = new World(seed, chunkRadius);
+    }
+
+    @Benchmark
+    public void separate() {
+        new NoiseElevationGenerator(world).generate();
+        new NoiseHumidityGenerator(world).generate();
+    }
+
+    @Benchmark
+    public void fused() {
+        new NoiseTerrainGenerator(world).generate();
+    }
+}
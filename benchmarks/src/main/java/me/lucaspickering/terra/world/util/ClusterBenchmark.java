@@ -0,0 +1,57 @@
+package me.lucaspickering.terra.world.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import me.lucaspickering.terra.world.World;
+import me.lucaspickering.terra.world.generate.NoiseElevationGenerator;
+
+/**
+ * Benchmarks clustering over an entire world. The world only has elevations generated, which is
+ * all that the clustering functions below rely on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClusterBenchmark {
+
+    @Param({"1", "2"})
+    public int chunkRadius;
+
+    @Param({"0", "8675309"})
+    public long seed;
+
+    private World world;
+
+    @Setup
+    public void setUp() {
+        world = new World(seed, chunkRadius);
+        new NoiseElevationGenerator(world).generate();
+    }
+
+    @Benchmark
+    public List<Cluster> predicateCluster() {
+        // Same as what OceanGenerator does
+        return Cluster.predicateCluster(world.getTiles(),
+                                        t -> t.elevation() < World.SEA_LEVEL);
+    }
+
+    @Benchmark
+    public List<Cluster> chunkedPredicateCluster() {
+        // Same as predicateCluster, but labels chunks in parallel
+        return Cluster.predicateCluster(world.getChunks(),
+                                        t -> t.elevation() < World.SEA_LEVEL);
+    }
+
+    @Benchmark
+    public Map<Integer, List<Cluster>> categoryCluster() {
+        // Split tiles into several elevation bands, so there are more than two categories
+        return Cluster.categoryCluster(world.getTiles(), t -> (int) t.elevation() / 250);
+    }
+}
@@ -0,0 +1,93 @@
+package me.lucaspickering.terra.world.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import me.lucaspickering.terra.world.Tile;
+import me.lucaspickering.terra.world.World;
+
+/**
+ * Benchmarks point lookups on {@link HexPointSet}s with each storage layout. Each benchmark looks
+ * up every tile in the world once, in a shuffled order so that the dense layout doesn't get an
+ * unfair advantage from walking memory in order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HexPointSetBenchmark {
+
+    @Param({"1", "2"})
+    public int chunkRadius;
+
+    @Param({"0", "8675309"})
+    public long seed;
+
+    private TileSet worldTiles; // Chunked
+    private TileSet denseTiles;
+    private TileSet sparseTiles;
+    private HexPoint[] points;
+
+    @Setup
+    public void setUp() {
+        worldTiles = new World(seed, chunkRadius).getTiles();
+        denseTiles = new TileSet(worldTiles); // Copies of the world's tiles are dense
+        sparseTiles = new TileSet();
+        sparseTiles.addAll(worldTiles);
+
+        points = new HexPoint[worldTiles.size()];
+        int i = 0;
+        for (Tile tile : worldTiles) {
+            points[i++] = tile.pos();
+        }
+
+        // Fisher-Yates shuffle, seeded so every run looks up in the same order
+        final Random random = new Random(seed);
+        for (int j = points.length - 1; j > 0; j--) {
+            final int k = random.nextInt(j + 1);
+            final HexPoint temp = points[j];
+            points[j] = points[k];
+            points[k] = temp;
+        }
+    }
+
+    @Benchmark
+    public void chunkedGetByPoint(Blackhole blackhole) {
+        for (HexPoint point : points) {
+            blackhole.consume(worldTiles.getByPoint(point));
+        }
+    }
+
+    @Benchmark
+    public void chunkedGetByCoords(Blackhole blackhole) {
+        for (HexPoint point : points) {
+            blackhole.consume(worldTiles.getByCoords(point.x(), point.y()));
+        }
+    }
+
+    @Benchmark
+    public void denseGetByPoint(Blackhole blackhole) {
+        for (HexPoint point : points) {
+            blackhole.consume(denseTiles.getByPoint(point));
+        }
+    }
+
+    @Benchmark
+    public void denseGetByCoords(Blackhole blackhole) {
+        for (HexPoint point : points) {
+            blackhole.consume(denseTiles.getByCoords(point.x(), point.y()));
+        }
+    }
+
+    @Benchmark
+    public void sparseGetByPoint(Blackhole blackhole) {
+        for (HexPoint point : points) {
+            blackhole.consume(sparseTiles.getByPoint(point));
+        }
+    }
+}
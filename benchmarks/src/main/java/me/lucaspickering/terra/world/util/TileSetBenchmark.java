@@ -0,0 +1,70 @@
+package me.lucaspickering.terra.world.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import me.lucaspickering.terra.world.Tile;
+import me.lucaspickering.terra.world.World;
+
+/**
+ * Benchmarks the spatial queries on {@link TileSet}, over every tile in the world. Tile values
+ * don't matter for these queries, so no generation is done.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TileSetBenchmark {
+
+    @Param({"1", "2"})
+    public int chunkRadius;
+
+    @Param({"1", "3"})
+    public int range;
+
+    private TileSet tiles;
+
+    @Setup
+    public void setUp() {
+        tiles = new World(0, chunkRadius).getTiles();
+    }
+
+    @Benchmark
+    public void getTilesInRange(Blackhole blackhole) {
+        for (Tile tile : tiles) {
+            blackhole.consume(tiles.getTilesInRange(tile.pos(), range));
+        }
+    }
+
+    @Benchmark
+    public void getTilesAtDistance(Blackhole blackhole) {
+        for (Tile tile : tiles) {
+            blackhole.consume(tiles.getTilesAtDistance(tile.pos(), range));
+        }
+    }
+
+    @Benchmark
+    public void getAdjacentTiles(Blackhole blackhole) {
+        for (Tile tile : tiles) {
+            blackhole.consume(tiles.getAdjacentTiles(tile.pos()));
+        }
+    }
+
+    @Benchmark
+    public void forEachNeighbor(Blackhole blackhole) {
+        final NeighborConsumer consumer = (dir, neighbor) -> blackhole.consume(neighbor);
+        for (Tile tile : tiles) {
+            tiles.forEachNeighbor(tile.pos().x(), tile.pos().y(), consumer);
+        }
+    }
+
+    @Benchmark
+    public double parallelStream() {
+        // Same traversal that BiomePainter does
+        return tiles.parallelStream().mapToDouble(Tile::elevation).sum();
+    }
+}
@@ -4,6 +4,7 @@ import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.GL20;
 
+import java.nio.file.Paths;
 import java.util.Random;
 import java.util.logging.Logger;
 
@@ -12,6 +13,7 @@ import me.lucaspickering.terra.render.screen.ScreenHandler;
 import me.lucaspickering.terra.render.screen.WorldScreen;
 import me.lucaspickering.terra.util.Colors;
 import me.lucaspickering.terra.world.WorldHandler;
+import me.lucaspickering.terra.world.generate.NoiseNormalization;
 
 public class Main extends ApplicationAdapter {
 
@@ -59,7 +61,22 @@ public class Main extends ApplicationAdapter {
 
     private void initGame() {
         final WorldHandler worldHandler = new WorldHandler(seed);
-        worldHandler.generate(); // Generate a world
+        final String normalization = System.getProperty("normalization");
+        if (normalization != null) {
+            worldHandler.setNoiseNormalization(
+                NoiseNormalization.valueOf(normalization.toUpperCase()));
+        }
+        worldHandler.setLazy(Boolean.getBoolean("lazy")); // Generate chunks around the camera
+        final String checkpointDir = System.getProperty("checkpointDir");
+        if (checkpointDir != null) {
+            worldHandler.setCheckpointDir(Paths.get(checkpointDir));
+        }
+        final String snapshotDir = System.getProperty("snapshotDir");
+        if (snapshotDir != null) {
+            worldHandler.generateOrLoad(Paths.get(snapshotDir)); // Load or generate a world
+        } else {
+            worldHandler.generate(); // Generate a world
+        }
         screenHandler.setCurrentScreen(new WorldScreen(worldHandler)); // Create initial screen
     }
 
@@ -0,0 +1,305 @@
+package me.lucaspickering.terra.batch;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import me.lucaspickering.terra.world.Biome;
+import me.lucaspickering.terra.world.Tile;
+import me.lucaspickering.terra.world.World;
+import me.lucaspickering.terra.world.WorldHandler;
+import me.lucaspickering.terra.world.WorldSnapshot;
+import me.lucaspickering.terra.world.generate.NoiseNormalization;
+import me.lucaspickering.utils.GeneralFuncs;
+
+/**
+ * Generates worlds for many seeds without a window, for producing worlds offline. Several worlds
+ * are generated at once, and the stages of every world share one bounded thread pool. Each worker
+ * reuses the chunks of the last world it generated for its next world, so memory use doesn't grow
+ * with the number of seeds.
+ *
+ * For each seed, a row of summary statistics is written to {@code summary.csv}, and optionally a
+ * {@link WorldSnapshot} is written to {@code <seed>.world}, both in the output directory. The
+ * overall throughput is logged at the end.
+ */
+public class BatchGenerator {
+
+    private static final String USAGE =
+        "Usage: BatchGenerator [options]%n"
+        + "  --seeds=<s1,s2,...>      Seeds to generate%n"
+        + "  --count=<n>              Generate n consecutive seeds, instead of --seeds%n"
+        + "  --first-seed=<s>         First seed for --count (default 0)%n"
+        + "  --radius=<r>             World radius, in chunks (default 1)%n"
+        + "  --threads=<n>            Threads shared by all generator stages (default: cores)%n"
+        + "  --parallel=<n>           Worlds generated at once (default 2)%n"
+        + "  --normalization=<mode>   Noise normalization (default GLOBAL)%n"
+        + "  --snapshots=<true|false> Write a snapshot of each world (default true)%n"
+        + "  --out=<dir>              Output directory (default batch)%n";
+
+    private static final String SUMMARY_FILE = "summary.csv";
+    private static final String SNAPSHOT_FORMAT = "%d.world";
+    private static final Biome[] BIOMES = Biome.values();
+
+    /**
+     * Summary statistics for one generated world.
+     */
+    private static class WorldStats {
+
+        private final long seed;
+        private final long time;
+        private final int tiles;
+        private final int continents;
+        private final double totalRunoff;
+        private final int[] biomeCounts = new int[BIOMES.length]; // Indexed by biome ordinal
+
+        private WorldStats(long seed, long time, World world) {
+            this.seed = seed;
+            this.time = time;
+            tiles = world.getTiles().size();
+            continents = world.getContinents().size();
+            double runoff = 0.0;
+            for (Tile tile : world.getTiles()) {
+                runoff += tile.getRunoffLevel();
+                biomeCounts[tile.biome().ordinal()]++;
+            }
+            totalRunoff = runoff;
+        }
+
+        private static String getCsvHeader() {
+            final StringJoiner joiner = new StringJoiner(",");
+            joiner.add("seed").add("ms").add("tiles").add("continents").add("totalRunoff");
+            for (Biome biome : BIOMES) {
+                joiner.add(biome.name().toLowerCase());
+            }
+            return joiner.toString();
+        }
+
+        private String toCsvRow() {
+            final StringJoiner joiner = new StringJoiner(",");
+            joiner.add(Long.toString(seed)).add(Long.toString(time))
+                .add(Integer.toString(tiles)).add(Integer.toString(continents))
+                .add(String.format("%.4f", totalRunoff));
+            for (int count : biomeCounts) {
+                joiner.add(Integer.toString(count));
+            }
+            return joiner.toString();
+        }
+    }
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final List<Long> seeds;
+    private final int radius;
+    private final int threads;
+    private final int parallelWorlds;
+    private final NoiseNormalization normalization;
+    private final boolean writeSnapshots;
+    private final Path outDir;
+
+    // The last handler used by each worker thread, whose world can be recycled for the next seed
+    private final ThreadLocal<WorldHandler> lastHandler = new ThreadLocal<>();
+
+    public BatchGenerator(List<Long> seeds, int radius, int threads, int parallelWorlds,
+                          NoiseNormalization normalization, boolean writeSnapshots,
+                          Path outDir) {
+        if (radius < 0 || threads <= 0 || parallelWorlds <= 0) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid radius [%d], threads [%d] or parallel worlds [%d]",
+                radius, threads, parallelWorlds));
+        }
+        this.seeds = seeds;
+        this.radius = radius;
+        this.threads = threads;
+        this.parallelWorlds = parallelWorlds;
+        this.normalization = normalization;
+        this.writeSnapshots = writeSnapshots;
+        this.outDir = outDir;
+    }
+
+    public static void main(String[] args) {
+        final BatchGenerator batch;
+        try {
+            batch = fromArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.printf(USAGE);
+            System.exit(1);
+            return;
+        }
+
+        try {
+            batch.run();
+        } catch (IOException e) {
+            batch.logger.log(Level.SEVERE, "Failed to write batch output", e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Creates a batch from command line arguments. See {@link #USAGE} for the accepted options.
+     *
+     * @param args the command line arguments
+     * @return the batch
+     * @throws IllegalArgumentException if any argument is invalid
+     */
+    static BatchGenerator fromArgs(String[] args) {
+        final Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            final int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException(String.format("Invalid argument: %s", arg));
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+
+        try {
+            final List<Long> seeds = new ArrayList<>();
+            final String seedList = options.remove("seeds");
+            final String count = options.remove("count");
+            final long firstSeed = Long.parseLong(options.getOrDefault("first-seed", "0"));
+            options.remove("first-seed");
+            if (seedList != null && count != null) {
+                throw new IllegalArgumentException("Only one of --seeds and --count is allowed");
+            } else if (seedList != null) {
+                for (String seed : seedList.split(",")) {
+                    seeds.add(Long.parseLong(seed.trim()));
+                }
+            } else if (count != null) {
+                for (long i = 0; i < Long.parseLong(count); i++) {
+                    seeds.add(firstSeed + i);
+                }
+            } else {
+                throw new IllegalArgumentException("Either --seeds or --count is required");
+            }
+
+            final BatchGenerator batch = new BatchGenerator(
+                seeds,
+                Integer.parseInt(removeOrDefault(options, "radius", "1")),
+                Integer.parseInt(removeOrDefault(
+                    options, "threads",
+                    Integer.toString(Runtime.getRuntime().availableProcessors()))),
+                Integer.parseInt(removeOrDefault(options, "parallel", "2")),
+                NoiseNormalization.valueOf(
+                    removeOrDefault(options, "normalization", "GLOBAL").toUpperCase()),
+                Boolean.parseBoolean(removeOrDefault(options, "snapshots", "true")),
+                Paths.get(removeOrDefault(options, "out", "batch")));
+            if (!options.isEmpty()) {
+                throw new IllegalArgumentException(String.format(
+                    "Unknown options: %s", options.keySet()));
+            }
+            return batch;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid number: %s",
+                                                             e.getMessage()), e);
+        }
+    }
+
+    List<Long> getSeeds() {
+        return seeds;
+    }
+
+    int getRadius() {
+        return radius;
+    }
+
+    NoiseNormalization getNormalization() {
+        return normalization;
+    }
+
+    private static String removeOrDefault(Map<String, String> options, String key,
+                                          String defaultValue) {
+        final String value = options.remove(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Generates every world in the batch, and writes the summary and snapshots. This method does
+     * not return until every world is done.
+     *
+     * @throws IOException if any output can't be written
+     */
+    public void run() throws IOException {
+        Files.createDirectories(outDir);
+
+        // Stages run on the fork-join pool, and so do the parallel streams inside them. Besides
+        // waiting on their stages, the world threads only do sequential work: resetting a
+        // recycled world, copying the finished world and writing its snapshot. So generation
+        // uses at most the stage threads, plus one thread per world for that bookkeeping.
+        final ForkJoinPool stagePool = new ForkJoinPool(threads);
+        final ExecutorService worldPool = Executors.newFixedThreadPool(parallelWorlds);
+        final List<WorldStats> allStats = new ArrayList<>(seeds.size());
+        try {
+            final long time = GeneralFuncs.timed(() -> {
+                final List<Future<WorldStats>> futures = new ArrayList<>(seeds.size());
+                for (long seed : seeds) {
+                    futures.add(worldPool.submit(() -> generateWorld(seed, stagePool)));
+                }
+                for (Future<WorldStats> future : futures) {
+                    allStats.add(getResult(future));
+                }
+            });
+
+            // A tiny batch can finish within the timer's resolution
+            final String rate = time > 0
+                                ? String.format("%.1f", seeds.size() / (time / 60_000.0))
+                                : "n/a";
+            logger.info(String.format("Generated %d worlds in %d ms (%s worlds/minute)",
+                                      seeds.size(), time, rate));
+        } finally {
+            worldPool.shutdown();
+            stagePool.shutdown();
+        }
+
+        try (PrintWriter writer =
+                 new PrintWriter(Files.newBufferedWriter(outDir.resolve(SUMMARY_FILE)))) {
+            writer.println(WorldStats.getCsvHeader());
+            allStats.forEach(stats -> writer.println(stats.toCsvRow()));
+        }
+    }
+
+    private WorldStats generateWorld(long seed, ForkJoinPool stagePool) throws IOException {
+        // Reuse the chunks from this thread's last world, if there is one
+        final WorldHandler previous = lastHandler.get();
+        final WorldHandler handler;
+        if (previous != null) {
+            handler = previous.recycle(seed);
+        } else {
+            handler = new WorldHandler(seed, radius);
+            handler.setNoiseNormalization(normalization);
+            handler.setExecutor(stagePool);
+        }
+        lastHandler.set(handler);
+
+        final long time = GeneralFuncs.timed(handler::generate);
+        final World world = handler.getWorld();
+        if (writeSnapshots) {
+            WorldSnapshot.write(world, outDir.resolve(String.format(SNAPSHOT_FORMAT, seed)));
+        }
+        return new WorldStats(seed, time, world);
+    }
+
+    private static WorldStats getResult(Future<WorldStats> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            // Unwrap the exception thrown while generating, so callers see the real error
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
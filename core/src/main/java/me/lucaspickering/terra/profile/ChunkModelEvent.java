@@ -0,0 +1,37 @@
+package me.lucaspickering.terra.profile;
+
+import me.lucaspickering.terra.world.util.HexPoint;
+
+/**
+ * Construction of the model for one chunk.
+ */
+public class ChunkModelEvent extends ProfileEvent {
+
+    private static final ChunkModelEvent DISABLED = new ChunkModelEvent(null);
+
+    private final HexPoint chunkPos;
+
+    private ChunkModelEvent(HexPoint chunkPos) {
+        this.chunkPos = chunkPos;
+    }
+
+    /**
+     * Starts an event for building the model of the chunk at the given position.
+     *
+     * @param chunkPos the position of the chunk
+     * @return the started event, or a shared event that records nothing if profiling is disabled
+     */
+    public static ChunkModelEvent start(HexPoint chunkPos) {
+        if (!isEnabled()) {
+            return DISABLED;
+        }
+        final ChunkModelEvent event = new ChunkModelEvent(chunkPos);
+        event.begin();
+        return event;
+    }
+
+    @Override
+    protected String describeFields() {
+        return String.format("chunk=%s", chunkPos);
+    }
+}
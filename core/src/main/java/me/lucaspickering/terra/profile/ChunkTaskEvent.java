@@ -0,0 +1,40 @@
+package me.lucaspickering.terra.profile;
+
+import me.lucaspickering.terra.world.util.HexPoint;
+
+/**
+ * One generator stage, run over a single chunk.
+ */
+public class ChunkTaskEvent extends ProfileEvent {
+
+    private static final ChunkTaskEvent DISABLED = new ChunkTaskEvent(null, null);
+
+    private final String stage;
+    private final HexPoint chunkPos;
+
+    private ChunkTaskEvent(String stage, HexPoint chunkPos) {
+        this.stage = stage;
+        this.chunkPos = chunkPos;
+    }
+
+    /**
+     * Starts an event for running the given stage over the chunk at the given position.
+     *
+     * @param stage    the name of the stage
+     * @param chunkPos the position of the chunk
+     * @return the started event, or a shared event that records nothing if profiling is disabled
+     */
+    public static ChunkTaskEvent start(String stage, HexPoint chunkPos) {
+        if (!isEnabled()) {
+            return DISABLED;
+        }
+        final ChunkTaskEvent event = new ChunkTaskEvent(stage, chunkPos);
+        event.begin();
+        return event;
+    }
+
+    @Override
+    protected String describeFields() {
+        return String.format("stage=%s chunk=%s", stage, chunkPos);
+    }
+}
@@ -0,0 +1,38 @@
+package me.lucaspickering.terra.profile;
+
+/**
+ * One pass over a set of tiles while labelling their clusters.
+ */
+public class ClusterPassEvent extends ProfileEvent {
+
+    private static final ClusterPassEvent DISABLED = new ClusterPassEvent(null, 0);
+
+    private final String pass;
+    private final int tiles;
+
+    private ClusterPassEvent(String pass, int tiles) {
+        this.pass = pass;
+        this.tiles = tiles;
+    }
+
+    /**
+     * Starts an event for one clustering pass over the given number of tiles.
+     *
+     * @param pass  the name of the pass
+     * @param tiles the number of tiles in the pass
+     * @return the started event, or a shared event that records nothing if profiling is disabled
+     */
+    public static ClusterPassEvent start(String pass, int tiles) {
+        if (!isEnabled()) {
+            return DISABLED;
+        }
+        final ClusterPassEvent event = new ClusterPassEvent(pass, tiles);
+        event.begin();
+        return event;
+    }
+
+    @Override
+    protected String describeFields() {
+        return String.format("pass=%s tiles=%d", pass, tiles);
+    }
+}
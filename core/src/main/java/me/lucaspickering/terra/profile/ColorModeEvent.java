@@ -0,0 +1,38 @@
+package me.lucaspickering.terra.profile;
+
+/**
+ * A switch of the tile color mode, which recolors every chunk.
+ */
+public class ColorModeEvent extends ProfileEvent {
+
+    private static final ColorModeEvent DISABLED = new ColorModeEvent(null, 0);
+
+    private final String colorMode;
+    private final int chunks;
+
+    private ColorModeEvent(String colorMode, int chunks) {
+        this.colorMode = colorMode;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Starts an event for switching the given number of chunks to a new color mode.
+     *
+     * @param colorMode the name of the new color mode
+     * @param chunks    the number of chunks to update
+     * @return the started event, or a shared event that records nothing if profiling is disabled
+     */
+    public static ColorModeEvent start(String colorMode, int chunks) {
+        if (!isEnabled()) {
+            return DISABLED;
+        }
+        final ColorModeEvent event = new ColorModeEvent(colorMode, chunks);
+        event.begin();
+        return event;
+    }
+
+    @Override
+    protected String describeFields() {
+        return String.format("colorMode=%s chunks=%d", colorMode, chunks);
+    }
+}
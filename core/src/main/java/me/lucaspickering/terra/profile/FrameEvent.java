@@ -0,0 +1,46 @@
+package me.lucaspickering.terra.profile;
+
+/**
+ * One frame drawn by the world screen.
+ */
+public class FrameEvent extends ProfileEvent {
+
+    private static final FrameEvent DISABLED = new FrameEvent(0, 0);
+
+    private final long frame;
+    private final int chunks;
+    private int visibleChunks;
+
+    private FrameEvent(long frame, int chunks) {
+        this.frame = frame;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Starts an event for drawing one frame.
+     *
+     * @param frame  the number of frames drawn before this one
+     * @param chunks the number of chunks that have models
+     * @return the started event, or a shared event that records nothing if profiling is disabled
+     */
+    public static FrameEvent start(long frame, int chunks) {
+        if (!isEnabled()) {
+            return DISABLED;
+        }
+        final FrameEvent event = new FrameEvent(frame, chunks);
+        event.begin();
+        return event;
+    }
+
+    public void setVisibleChunks(int visibleChunks) {
+        if (isEnabled()) { // The shared disabled event is never changed
+            this.visibleChunks = visibleChunks;
+        }
+    }
+
+    @Override
+    protected String describeFields() {
+        return String.format("frame=%d chunks=%d visibleChunks=%d", frame, chunks,
+                             visibleChunks);
+    }
+}
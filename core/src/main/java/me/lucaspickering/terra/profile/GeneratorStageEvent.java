@@ -0,0 +1,43 @@
+package me.lucaspickering.terra.profile;
+
+/**
+ * One generator stage, run over the whole world. A pipelined stage runs chunk by chunk as its
+ * dependencies finish each chunk, so its event lasts from the start of its first chunk to the end
+ * of its last one, including any time spent waiting in between.
+ */
+public class GeneratorStageEvent extends ProfileEvent {
+
+    private static final GeneratorStageEvent DISABLED = new GeneratorStageEvent(null, 0, false);
+
+    private final String stage;
+    private final int tiles;
+    private final boolean pipelined;
+
+    private GeneratorStageEvent(String stage, int tiles, boolean pipelined) {
+        this.stage = stage;
+        this.tiles = tiles;
+        this.pipelined = pipelined;
+    }
+
+    /**
+     * Starts an event for running the given stage.
+     *
+     * @param stage     the name of the stage
+     * @param tiles     the number of tiles in the world
+     * @param pipelined whether the stage is run chunk by chunk
+     * @return the started event, or a shared event that records nothing if profiling is disabled
+     */
+    public static GeneratorStageEvent start(String stage, int tiles, boolean pipelined) {
+        if (!isEnabled()) {
+            return DISABLED;
+        }
+        final GeneratorStageEvent event = new GeneratorStageEvent(stage, tiles, pipelined);
+        event.begin();
+        return event;
+    }
+
+    @Override
+    protected String describeFields() {
+        return String.format("stage=%s tiles=%d pipelined=%b", stage, tiles, pipelined);
+    }
+}
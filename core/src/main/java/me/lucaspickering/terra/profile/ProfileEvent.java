@@ -0,0 +1,73 @@
+package me.lucaspickering.terra.profile;
+
+import java.util.logging.Logger;
+
+/**
+ * A timed event that is recorded for profiling. Each event class has a static {@code start}
+ * method that begins a new event when the work starts. Call {@link #commit()} when it's done.
+ * Committed events are written to the log, one line per event, with each field as a
+ * {@code key=value} pair. These are not JDK Flight Recorder events, and can't be captured by a
+ * flight recording.
+ *
+ * Profiling is enabled by running with {@code -Dprofile=true}. When it's disabled, {@code start}
+ * returns a shared event that records nothing, so hot code allocates nothing for profiling. When
+ * it's enabled, every event is a new object, and committing it formats and logs a line, so
+ * profiling does slow down the code being measured a little.
+ */
+public abstract class ProfileEvent {
+
+    private static final boolean ENABLED = Boolean.getBoolean("profile");
+    private static final Logger logger =
+        Logger.getLogger(ProfileEvent.class.getPackage().getName());
+
+    private long startTime;
+    private long duration = -1; // Negative until the event ends
+
+    /**
+     * Determines if profiling is enabled. If not, events are never recorded.
+     *
+     * @return {@code true} if profiling is enabled, {@code false} otherwise
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Marks the start of this event. This is called by each event's {@code start} method.
+     */
+    protected final void begin() {
+        if (ENABLED) {
+            startTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * Marks the end of this event. This is called by {@link #commit()} if it hasn't been already,
+     * so it only needs to be called if the event ends before it is committed.
+     */
+    public final void end() {
+        if (ENABLED && duration < 0) {
+            duration = System.nanoTime() - startTime;
+        }
+    }
+
+    /**
+     * Ends this event, if it hasn't been already, and records it.
+     */
+    public final void commit() {
+        if (ENABLED) {
+            end();
+            logger.info(String.format("%s thread=%s start=%d duration=%.3fms %s",
+                                      getClass().getSimpleName(),
+                                      Thread.currentThread().getName(), startTime,
+                                      duration / 1_000_000.0, describeFields()));
+        }
+    }
+
+    /**
+     * Describes the fields of this event, as space-separated {@code key=value} pairs.
+     *
+     * @return a description of this event's fields
+     */
+    protected abstract String describeFields();
+}
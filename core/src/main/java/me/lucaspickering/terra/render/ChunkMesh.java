@@ -0,0 +1,387 @@
+package me.lucaspickering.terra.render;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.g3d.Material;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.graphics.g3d.RenderableProvider;
+import com.badlogic.gdx.graphics.g3d.model.MeshPart;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
+
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+import me.lucaspickering.terra.world.Biome;
+import me.lucaspickering.terra.world.Tile;
+import me.lucaspickering.terra.world.util.Chunk;
+import me.lucaspickering.terra.world.util.HexPoint;
+import me.lucaspickering.terra.world.util.TileSet;
+import me.lucaspickering.utils.Point2;
+
+/**
+ * The tiles of one chunk, at one level of detail, built into as few meshes as possible. At full
+ * detail, each tile is its own hexagonal prism. At lower detail, the chunk is split into square
+ * blocks of tiles (in hex coords), and each block is drawn as one larger prism, called a cell.
+ * Each cell's height is the average elevation of its tiles, and its color comes from one of the
+ * tiles of the most common biome in the block.
+ *
+ * Scaling every tile position by the same amount gives another hex grid, so the cells inside a
+ * chunk fit together with no gaps. A cell doesn't have the same outline as its block of tiles,
+ * though: parts of the block's outer tiles stick out past the cell, and the cell covers parts of
+ * the neighboring blocks. On a chunk border, the neighboring chunk may be drawn at a different
+ * level of detail, so those differences would leave holes. To cover them, each cell on the border
+ * of the chunk is widened until it covers every tile in its block (see
+ * {@link #getBorderCellSize}). Cells inside the chunk are covered by their own cell or a
+ * neighboring one, so the chunk always covers at least all of its own tiles. Where chunks meet,
+ * they overlap a little instead, which is much harder to spot than a hole.
+ */
+final class ChunkMesh implements RenderableProvider {
+
+    // The widest block of tiles used for any level of detail. Walls that border another chunk go
+    // down far enough to meet the lowest tile in the neighboring block this size, so there are no
+    // vertical gaps no matter what level of detail the neighboring chunk is drawn at.
+    static final int MAX_SCALE = 4;
+
+    // Indices are unsigned shorts, so each mesh can only address this many vertices
+    private static final int MAX_MESH_VERTICES = 1 << 16;
+
+    // Colors are in the vertices, so every mesh can share one empty material
+    private static final Material MATERIAL = new Material();
+
+    private final Chunk chunk;
+    private final int scale; // Width of each block of tiles, in tiles
+    private final int cellsPerSide;
+    private final float borderCellSize; // Width of each cell on the chunk border, in tiles
+    private final Tile[] cellTiles; // The tile that decides each cell's color
+    private final float[] cellHeights;
+    private final byte[] cellVertexCounts;
+    private final int[] meshFirstCells; // Index of each mesh's first cell, then the cell count
+    private final Mesh[] meshes;
+    private final MeshPart[] meshParts;
+    private final BoundingBox boundingBox = new BoundingBox();
+
+    /**
+     * Builds the meshes for a chunk at the given level of detail.
+     *
+     * @param chunk         the chunk to build
+     * @param worldTiles    all tiles in the world, used to find neighbors in other chunks
+     * @param scale         the width of each block of tiles, in tiles. Must evenly divide
+     *                      {@link #MAX_SCALE}. 1 is full detail.
+     * @param tileColorMode the mode to derive each cell's color
+     */
+    ChunkMesh(Chunk chunk, TileSet worldTiles, int scale, TileColorMode tileColorMode) {
+        if (scale <= 0 || MAX_SCALE % scale != 0) {
+            throw new IllegalArgumentException(String.format(
+                "Scale must evenly divide %d, was [%d]", MAX_SCALE, scale));
+        }
+        this.chunk = chunk;
+        this.scale = scale;
+        cellsPerSide = Chunk.SIDE_LENGTH / scale;
+        borderCellSize = getBorderCellSize(scale);
+        final int numCells = cellsPerSide * cellsPerSide;
+        cellTiles = new Tile[numCells];
+        cellHeights = new float[numCells];
+        cellVertexCounts = new byte[numCells];
+
+        aggregateCells();
+        final float[] wallBottoms = calcWallBottoms(worldTiles);
+        meshFirstCells = splitMeshes();
+        final int numMeshes = meshFirstCells.length - 1;
+        meshes = new Mesh[numMeshes];
+        meshParts = new MeshPart[numMeshes];
+        for (int i = 0; i < numMeshes; i++) {
+            initMesh(i, wallBottoms, tileColorMode);
+        }
+    }
+
+    /**
+     * Calculates the height of each cell, and picks the tile that each cell takes its color from.
+     */
+    private void aggregateCells() {
+        final double[] elevations = chunk.getColumns().getElevations();
+        final int[] biomeCounts = new int[Biome.values().length];
+
+        for (int cell = 0; cell < cellTiles.length; cell++) {
+            final int firstTile = getFirstTileIndex(cell);
+
+            // Average the elevation and count the biomes of all tiles in the block
+            double elevationSum = 0.0;
+            Arrays.fill(biomeCounts, 0);
+            for (int dx = 0; dx < scale; dx++) {
+                for (int dy = 0; dy < scale; dy++) {
+                    final int index = firstTile + dx * Chunk.SIDE_LENGTH + dy;
+                    elevationSum += elevations[index];
+                    biomeCounts[chunk.getTile(index).biome().ordinal()]++;
+                }
+            }
+            final double elevation = elevationSum / (scale * scale);
+            int dominantBiome = 0;
+            for (int biome = 1; biome < biomeCounts.length; biome++) {
+                if (biomeCounts[biome] > biomeCounts[dominantBiome]) {
+                    dominantBiome = biome;
+                }
+            }
+
+            // Of the tiles in the dominant biome, the one closest to the average elevation is the
+            // most representative of the whole block
+            Tile cellTile = null;
+            double minDiff = Double.MAX_VALUE;
+            for (int dx = 0; dx < scale; dx++) {
+                for (int dy = 0; dy < scale; dy++) {
+                    final int index = firstTile + dx * Chunk.SIDE_LENGTH + dy;
+                    final Tile tile = chunk.getTile(index);
+                    final double diff = Math.abs(elevations[index] - elevation);
+                    if (tile.biome().ordinal() == dominantBiome && diff < minDiff) {
+                        cellTile = tile;
+                        minDiff = diff;
+                    }
+                }
+            }
+
+            cellTiles[cell] = cellTile;
+            cellHeights[cell] = (float) ChunkModel.getTileHeight(elevation);
+        }
+    }
+
+    /**
+     * Calculates how far down each side wall of each cell needs to go to be fully visible. Also
+     * fills {@link #cellVertexCounts} with the number of vertices each cell needs.
+     *
+     * @param worldTiles all tiles in the world
+     * @return the bottom of each wall, {@link Tile#NUM_SIDES} values per cell, in the order of
+     * {@link HexPrismBuilder#SIDE_DIRECTIONS}
+     */
+    private float[] calcWallBottoms(TileSet worldTiles) {
+        final float[] wallBottoms = new float[cellTiles.length * Tile.NUM_SIDES];
+        final int startX = chunk.getPos().x() * Chunk.SIDE_LENGTH;
+        final int startY = chunk.getPos().y() * Chunk.SIDE_LENGTH;
+
+        for (int cell = 0; cell < cellTiles.length; cell++) {
+            final int cellX = cell / cellsPerSide;
+            final int cellY = cell % cellsPerSide;
+            final int wallOffset = cell * Tile.NUM_SIDES;
+
+            for (int side = 0; side < Tile.NUM_SIDES; side++) {
+                final HexPoint delta = HexPrismBuilder.SIDE_DIRECTIONS[side].delta();
+                final int neighborX = cellX + delta.x();
+                final int neighborY = cellY + delta.y();
+                if (neighborX >= 0 && neighborX < cellsPerSide
+                    && neighborY >= 0 && neighborY < cellsPerSide) {
+                    // Neighbor is in this chunk, at the same level of detail
+                    wallBottoms[wallOffset + side] =
+                        cellHeights[neighborX * cellsPerSide + neighborY];
+                } else {
+                    wallBottoms[wallOffset + side] =
+                        getMinBlockHeight(worldTiles, startX + neighborX * scale,
+                                          startY + neighborY * scale);
+                }
+            }
+
+            cellVertexCounts[cell] = (byte) HexPrismBuilder.getVertexCount(
+                cellHeights[cell], wallBottoms, wallOffset);
+        }
+        return wallBottoms;
+    }
+
+    /**
+     * Gets the height of the lowest tile in the block of {@link #MAX_SCALE} tiles that contains
+     * the given tile. Every level of detail draws that block at least this high.
+     *
+     * @param worldTiles all tiles in the world
+     * @param x          the x coord of the tile
+     * @param y          the y coord of the tile
+     * @return the lowest height, or 0 if the block isn't in the world
+     */
+    private static float getMinBlockHeight(TileSet worldTiles, int x, int y) {
+        final int blockX = Math.floorDiv(x, MAX_SCALE) * MAX_SCALE;
+        final int blockY = Math.floorDiv(y, MAX_SCALE) * MAX_SCALE;
+        double minHeight = Double.MAX_VALUE;
+        for (int dx = 0; dx < MAX_SCALE; dx++) {
+            for (int dy = 0; dy < MAX_SCALE; dy++) {
+                final Tile tile = worldTiles.getByCoords(blockX + dx, blockY + dy);
+                if (tile == null) {
+                    return 0f; // Chunks are always full, so the whole block is missing
+                }
+                minHeight = Math.min(minHeight, ChunkModel.getTileHeight(tile));
+            }
+        }
+        return (float) minHeight;
+    }
+
+    /**
+     * Gets the width of a cell that covers every tile of its block, for blocks of the given width.
+     * The cell is a hexagon centered on the block, like every other cell, so it is widened until
+     * it contains every corner of every tile in the block. At full detail, this is just 1.
+     *
+     * Package visible for testing purposes.
+     *
+     * @param scale the width of each block of tiles, in tiles
+     * @return the width of a cell that covers its whole block, relative to a single tile
+     */
+    static float getBorderCellSize(int scale) {
+        // A hexagon with a corner on the x axis contains a point if the point's projection onto
+        // the normal of each pair of opposite sides is no longer than the distance to those sides
+        final double[] sideNormalAngles = {Math.PI / 6.0, Math.PI / 2.0, 5.0 * Math.PI / 6.0};
+        final double tileRadius = ChunkModel.TILE_WIDTH / 2.0;
+        final double centerOffset = (scale - 1) / 2.0; // From the block's first tile to its center
+        double maxSideDist = 0.0;
+        for (int dx = 0; dx < scale; dx++) {
+            for (int dy = 0; dy < scale; dy++) {
+                final Point2 tilePos = ChunkModel.tileToPixel(dx - centerOffset, dy - centerOffset);
+                for (int corner = 0; corner < Tile.NUM_SIDES; corner++) {
+                    final double cornerAngle = corner * Math.PI / 3.0;
+                    final double x = tilePos.x() + Math.cos(cornerAngle) * tileRadius;
+                    final double z = tilePos.y() + Math.sin(cornerAngle) * tileRadius;
+                    for (double normalAngle : sideNormalAngles) {
+                        maxSideDist = Math.max(maxSideDist, Math.abs(
+                            x * Math.cos(normalAngle) + z * Math.sin(normalAngle)));
+                    }
+                }
+            }
+        }
+
+        // The distance from the center of a single tile to its sides
+        final double tileSideDist = tileRadius * Math.sqrt(3.0) / 2.0;
+        return (float) Math.max(scale, maxSideDist / tileSideDist);
+    }
+
+    /**
+     * Splits the cells up between as few meshes as possible, keeping each mesh under
+     * {@link #MAX_MESH_VERTICES}. Each mesh gets a run of consecutive cells.
+     *
+     * @return the index of the first cell in each mesh, followed by the total number of cells
+     */
+    private int[] splitMeshes() {
+        final int[] firstCells = new int[cellTiles.length + 1];
+        int numMeshes = 1; // The first mesh starts at cell 0
+        int meshVertices = 0;
+        for (int cell = 0; cell < cellTiles.length; cell++) {
+            if (meshVertices + cellVertexCounts[cell] > MAX_MESH_VERTICES) {
+                firstCells[numMeshes++] = cell; // This cell doesn't fit, start a new mesh
+                meshVertices = 0;
+            }
+            meshVertices += cellVertexCounts[cell];
+        }
+        firstCells[numMeshes] = cellTiles.length;
+        return Arrays.copyOf(firstCells, numMeshes + 1);
+    }
+
+    /**
+     * Builds one of the meshes. The prism for each cell is written straight into the mesh's
+     * buffers, in the same order as the cells.
+     *
+     * @param meshIndex     the index of the mesh to build
+     * @param wallBottoms   the bottom of each cell's walls (see {@link #calcWallBottoms})
+     * @param tileColorMode the mode to derive each cell's color
+     */
+    private void initMesh(int meshIndex, float[] wallBottoms, TileColorMode tileColorMode) {
+        final int firstCell = meshFirstCells[meshIndex];
+        final int lastCell = meshFirstCells[meshIndex + 1];
+
+        // Size the mesh to fit exactly what we're going to put in it
+        int numVertices = 0;
+        int numIndices = 0;
+        for (int cell = firstCell; cell < lastCell; cell++) {
+            numVertices += cellVertexCounts[cell];
+            numIndices += HexPrismBuilder.getIndexCount(cellVertexCounts[cell]);
+        }
+        final Mesh mesh = new Mesh(true, numVertices, numIndices,
+                                   HexPrismBuilder.VERTEX_ATTRIBUTES);
+
+        final FloatBuffer vertices = mesh.getVerticesBuffer();
+        final ShortBuffer indices = mesh.getIndicesBuffer();
+        vertices.clear();
+        indices.clear();
+        final double centerOffset = (scale - 1) / 2.0; // From the block's first tile to its center
+        for (int cell = firstCell; cell < lastCell; cell++) {
+            final HexPoint firstTilePos = chunk.getTile(getFirstTileIndex(cell)).pos();
+            final Point2 cellPos = ChunkModel.tileToPixel(firstTilePos.x() + centerOffset,
+                                                          firstTilePos.y() + centerOffset);
+            final float size = isBorderCell(cell) ? borderCellSize : scale;
+            HexPrismBuilder.writePrism(vertices, indices, (float) cellPos.x(),
+                                       (float) cellPos.y(), size, cellHeights[cell],
+                                       wallBottoms, cell * Tile.NUM_SIDES,
+                                       tileColorMode.getColor(cellTiles[cell]).toFloatBits());
+        }
+        vertices.flip();
+        indices.flip();
+
+        final MeshPart meshPart = new MeshPart(null, mesh, 0, numIndices, GL20.GL_TRIANGLES);
+        meshPart.update(); // Calculate the bounds, which are used to sort renderables
+        final Vector3 corner = new Vector3(meshPart.center).sub(meshPart.halfExtents);
+        boundingBox.ext(corner);
+        boundingBox.ext(corner.set(meshPart.center).add(meshPart.halfExtents));
+        meshes[meshIndex] = mesh;
+        meshParts[meshIndex] = meshPart;
+    }
+
+    /**
+     * Gets the index (within the chunk) of the first tile in the given cell's block.
+     */
+    private int getFirstTileIndex(int cell) {
+        final int cellX = cell / cellsPerSide;
+        final int cellY = cell % cellsPerSide;
+        return cellX * scale * Chunk.SIDE_LENGTH + cellY * scale;
+    }
+
+    /**
+     * Checks if the given cell is on the border of the chunk, i.e. if any of its neighbors are in
+     * another chunk.
+     */
+    private boolean isBorderCell(int cell) {
+        final int cellX = cell / cellsPerSide;
+        final int cellY = cell % cellsPerSide;
+        return cellX == 0 || cellX == cellsPerSide - 1 || cellY == 0 || cellY == cellsPerSide - 1;
+    }
+
+    void setColorMode(TileColorMode tileColorMode) {
+        for (int meshIndex = 0; meshIndex < meshes.length; meshIndex++) {
+            // Getting the buffer flags it as changed, so it will be uploaded on the next render
+            final FloatBuffer vertices = meshes[meshIndex].getVerticesBuffer();
+
+            // Set the color for each cell's vertices, in the same order they were built in
+            int vertex = 0;
+            for (int cell = meshFirstCells[meshIndex]; cell < meshFirstCells[meshIndex + 1];
+                 cell++) {
+                final float color = tileColorMode.getColor(cellTiles[cell]).toFloatBits();
+                HexPrismBuilder.setColor(vertices, vertex, cellVertexCounts[cell], color);
+                vertex += cellVertexCounts[cell];
+            }
+        }
+    }
+
+    /**
+     * Gets a box that contains all of the cells.
+     *
+     * @return the bounds of the cells (don't modify this!)
+     */
+    BoundingBox getBoundingBox() {
+        return boundingBox;
+    }
+
+    @Override
+    public void getRenderables(Array<Renderable> renderables, Pool<Renderable> pool) {
+        // One renderable per mesh. The vertices are already in world space.
+        for (MeshPart meshPart : meshParts) {
+            final Renderable renderable = pool.obtain();
+            renderable.material = MATERIAL;
+            renderable.meshPart.set(meshPart);
+            renderable.worldTransform.idt();
+            renderable.environment = null;
+            renderable.bones = null;
+            renderable.shader = null;
+            renderable.userData = null;
+            renderables.add(renderable);
+        }
+    }
+
+    void dispose() {
+        for (Mesh mesh : meshes) {
+            mesh.dispose();
+        }
+    }
+}
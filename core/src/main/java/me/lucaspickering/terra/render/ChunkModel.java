@@ -1,14 +1,9 @@
 package me.lucaspickering.terra.render;
 
-import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.VertexAttributes;
 import com.badlogic.gdx.graphics.g3d.*;
-import com.badlogic.gdx.graphics.g3d.attributes.ColorAttribute;
-import com.badlogic.gdx.graphics.g3d.utils.ModelBuilder;
-import com.badlogic.gdx.math.Matrix4;
-import com.badlogic.gdx.math.Quaternion;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.math.collision.Ray;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Pool;
 
@@ -17,11 +12,13 @@ import org.jetbrains.annotations.NotNull;
 import java.util.EnumMap;
 import java.util.Map;
 
+import me.lucaspickering.terra.profile.ChunkModelEvent;
+import me.lucaspickering.terra.util.Direction;
 import me.lucaspickering.terra.world.Tile;
 import me.lucaspickering.terra.world.World;
 import me.lucaspickering.terra.world.util.Chunk;
 import me.lucaspickering.terra.world.util.HexPoint;
-import me.lucaspickering.terra.world.util.HexPointMap;
+import me.lucaspickering.terra.world.util.TileSet;
 import me.lucaspickering.utils.Point2;
 
 public class ChunkModel implements RenderableProvider {
@@ -29,9 +26,11 @@ public class ChunkModel implements RenderableProvider {
     // Distance from the center of the tile to each VERTEX
     private static final double TILE_RADIUS = 50.0;
     // Distance between opposite vertices
-    private static final double TILE_WIDTH = TILE_RADIUS * 2;
+    static final double TILE_WIDTH = TILE_RADIUS * 2;
     // Distance between midpoints of opposite sides
     private static final double TILE_DEPTH = Math.sqrt(3) * TILE_RADIUS;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    // Offset from the center of a tile to the midpoint of each side, by direction
     private static final Point2[] TILE_SIDE_MIDPOINTS = {
         new Point2(0, -TILE_DEPTH / 2),                         // North
         new Point2(+(3.0 / 8.0) * TILE_WIDTH, -TILE_DEPTH / 4), // Northeast
@@ -41,22 +40,10 @@ public class ChunkModel implements RenderableProvider {
         new Point2(-(3.0 / 8.0) * TILE_WIDTH, -TILE_DEPTH / 4)  // Northwest
     };
 
-    // The hexagonal prism model used for all tiles. This will be created once, scaled and colored
-    // when creating a ModelInstance from it. Pls no modify!
-    public static final Model TILE_MODEL;
-    public static final BoundingBox TILE_BOUNDING_BOX;
-
-    static {
-        // Initialize the tile model
-        final ModelBuilder modelBuilder = new ModelBuilder();
-
-        // A cylinder with 6 divisions just happens to be a hexagon
-        TILE_MODEL = modelBuilder.createCylinder((float) TILE_WIDTH, 1f, (float) TILE_WIDTH,
-                                                 Tile.NUM_SIDES, new Material(),
-                                                 VertexAttributes.Usage.Position
-                                                 | VertexAttributes.Usage.Normal);
-        TILE_BOUNDING_BOX = TILE_MODEL.calculateBoundingBox(new BoundingBox());
-    }
+    // Width of each block of tiles that is drawn as one cell, for each level of detail. Level 0
+    // is full detail, and each level after that has a quarter as many cells as the last.
+    private static final int[] LOD_SCALES = {1, 2, ChunkMesh.MAX_SCALE};
+    public static final int NUM_LODS = LOD_SCALES.length;
 
     /**
      * Converts a {@link HexPoint} in to a point in 2D space.
@@ -66,8 +53,19 @@ public class ChunkModel implements RenderableProvider {
      */
     @NotNull
     public static Point2 tileToPixel(@NotNull HexPoint tilePos) {
-        final double x = TILE_WIDTH * tilePos.x() * 0.75;
-        final double y = -TILE_DEPTH * (tilePos.x() / 2.0 + tilePos.y());
+        return tileToPixel(tilePos.x(), tilePos.y());
+    }
+
+    /**
+     * Converts a point in hex coords, which doesn't have to be the center of a tile, to a point in
+     * 2D space.
+     *
+     * @see #tileToPixel(HexPoint)
+     */
+    @NotNull
+    static Point2 tileToPixel(double tileX, double tileY) {
+        final double x = TILE_WIDTH * tileX * 0.75;
+        final double y = -TILE_DEPTH * (tileX / 2.0 + tileY);
         return new Point2(x, y);
     }
 
@@ -82,7 +80,14 @@ public class ChunkModel implements RenderableProvider {
      * @return the rendered height of the given tile
      */
     public static double getTileHeight(@NotNull Tile tile) {
-        return tile.elevation() - World.ELEVATION_RANGE.lower() + 1.0;
+        return getTileHeight(tile.elevation());
+    }
+
+    /**
+     * @see #getTileHeight(Tile)
+     */
+    static double getTileHeight(double elevation) {
+        return elevation - World.ELEVATION_RANGE.lower() + 1.0;
     }
 
     /**
@@ -99,6 +104,19 @@ public class ChunkModel implements RenderableProvider {
                            (float) tilePos.y());           // z based on position
     }
 
+    /**
+     * Calculates the bounding box of the prism that the given tile is rendered as.
+     *
+     * @param tile the tile
+     * @param out  the box to store the result in
+     * @return {@code out}
+     */
+    public static BoundingBox getTileBoundingBox(@NotNull Tile tile, @NotNull BoundingBox out) {
+        final Point2 tilePos = tileToPixel(tile.pos());
+        return HexPrismBuilder.getBounds((float) tilePos.x(), (float) tilePos.y(),
+                                         (float) getTileHeight(tile), out);
+    }
+
     /**
      * Converts a point on the screen to a {@link HexPoint}. The returned point is the location of
      * the tile that contains the given screen point. It doesn't necessarily exist in the world; it
@@ -121,82 +139,203 @@ public class ChunkModel implements RenderableProvider {
         return HexPoint.roundPoint(fracX, fracY, fracZ);
     }
 
-    private final HexPointMap<Tile, ModelInstance> tileModelInsts = new HexPointMap<>();
-    public final HexPointMap<Tile, BoundingBox> tileBoundingBoxes = new HexPointMap<>();
-    private final ModelCache tileModelCache = new ModelCache();
+    /**
+     * Finds the first tile that the given ray hits. Instead of checking every tile, this walks
+     * along the ray one tile at a time, starting from where the ray first gets low enough to hit
+     * any tile. For each tile, it finds the side that the ray leaves through, which leads to the
+     * next tile. It stops at the first tile whose prism the ray passes through. The cost is
+     * proportional to the number of tiles the ray crosses, not the size of the world.
+     *
+     * @param ray         the ray (its direction must be normalized)
+     * @param tiles       the tiles that can be hit
+     * @param maxDistance the maximum distance along the ray to look
+     * @return the first tile that the ray hits, or {@code null} if it doesn't hit any
+     */
+    public static Tile pickTile(@NotNull Ray ray, @NotNull TileSet tiles, float maxDistance) {
+        final double originX = ray.origin.x;
+        final double originY = ray.origin.y;
+        final double originZ = ray.origin.z;
+        final double dirX = ray.direction.x;
+        final double dirY = ray.direction.y;
+        final double dirZ = ray.direction.z;
+
+        // Clip the ray to the layer that tiles can be in, i.e. between the ground and the height
+        // of the tallest possible tile
+        final double maxHeight = getTileHeight(World.ELEVATION_RANGE.upper());
+        double start = 0.0;
+        double end = maxDistance;
+        if (dirY != 0.0) {
+            final double groundDist = -originY / dirY;
+            final double maxHeightDist = (maxHeight - originY) / dirY;
+            start = Math.max(start, Math.min(groundDist, maxHeightDist));
+            end = Math.min(end, Math.max(groundDist, maxHeightDist));
+        } else if (originY < 0.0 || originY > maxHeight) {
+            return null; // Horizontal, and never in the layer
+        }
+        if (start > end) {
+            return null;
+        }
+
+        // Start at the tile that the ray is over when it enters the layer
+        final HexPoint startPos = pixelToTile(new Point2(originX + dirX * start,
+                                                         originZ + dirZ * start));
+        int x = startPos.x();
+        int y = startPos.y();
+        double dist = start; // Distance along the ray to where it enters the current tile
+        while (true) {
+            // Find the distance to where the ray leaves this tile. For each side that the ray is
+            // moving towards, the ray crosses it when its offset from the center, projected onto
+            // the side's midpoint, is as long as the midpoint.
+            final double centerX = TILE_WIDTH * x * 0.75;
+            final double centerZ = -TILE_DEPTH * (x / 2.0 + y);
+            final double offsetX = originX - centerX;
+            final double offsetZ = originZ - centerZ;
+            double exitDist = Double.POSITIVE_INFINITY;
+            Direction exitDir = null;
+            for (Direction dir : DIRECTIONS) {
+                final Point2 midpoint = TILE_SIDE_MIDPOINTS[dir.ordinal()];
+                final double speed = dirX * midpoint.x() + dirZ * midpoint.y();
+                if (speed > 0.0) {
+                    final double sideDist = (TILE_DEPTH * TILE_DEPTH / 4.0
+                                             - (offsetX * midpoint.x() + offsetZ * midpoint.y()))
+                                            / speed;
+                    if (sideDist < exitDist) {
+                        exitDist = sideDist;
+                        exitDir = dir;
+                    }
+                }
+            }
+
+            // The height of the ray changes linearly, so it passes through the prism if it is
+            // below the top at either end of its path through the tile. Clipping to the layer
+            // already made sure that it's above the ground.
+            final Tile tile = tiles.getByCoords(x, y);
+            if (tile != null) {
+                final double height = getTileHeight(tile);
+                final double enterY = originY + dirY * dist;
+                final double exitY = originY + dirY * Math.min(exitDist, end);
+                if (Math.min(enterY, exitY) <= height) {
+                    return tile;
+                }
+            }
+
+            if (exitDir == null || exitDist >= end) {
+                return null; // The ray left the layer without hitting anything
+            }
+
+            // Move on to the neighbor on the side that the ray left through
+            dist = exitDist;
+            x += exitDir.delta().x();
+            y += exitDir.delta().y();
+        }
+    }
+
+    private final Chunk chunk;
+    private final ChunkMesh[] lodMeshes = new ChunkMesh[NUM_LODS];
     private final Map<TileOverlay, ModelCache> overlayModelCaches =
         new EnumMap<>(TileOverlay.class);
+    private int lod; // Level of detail that this chunk is currently drawn at
+
+    // Bounds of the tiles at every level of detail, and of everything in each overlay's cache
+    private final BoundingBox boundingBox = new BoundingBox();
+    private final Map<TileOverlay, BoundingBox> overlayBoundingBoxes =
+        new EnumMap<>(TileOverlay.class);
 
     /**
      * Initialize a model for the given chunk with the given color mode. The color mode can be
      * changed later with {@link #setColorMode}.
      *
      * @param chunk         the chunk to model
+     * @param worldTiles    all tiles in the world, used to find neighbors in other chunks
      * @param tileColorMode the mode to derive each tile's color
      */
-    public ChunkModel(Chunk chunk, TileColorMode tileColorMode) {
-        // Populate the overlay cache map with an empty cache for each overlay
+    public ChunkModel(Chunk chunk, TileSet worldTiles, TileColorMode tileColorMode) {
+        final ChunkModelEvent event = ChunkModelEvent.start(chunk.getPos());
+        this.chunk = chunk;
+
+        // Build the tiles at each level of detail
+        for (int i = 0; i < NUM_LODS; i++) {
+            lodMeshes[i] = new ChunkMesh(chunk, worldTiles, LOD_SCALES[i], tileColorMode);
+            boundingBox.ext(lodMeshes[i].getBoundingBox());
+        }
+
+        // Build the necessary models for each overlay, and add each one to its respective cache
         for (TileOverlay overlay : TileOverlay.values()) {
             final ModelCache modelCache = new ModelCache();
-            modelCache.begin(); // The corresponding end() WILL happen, I promise
+            final BoundingBox overlayBoundingBox = new BoundingBox();
+            modelCache.begin();
+            for (Tile tile : chunk.getTiles()) {
+                overlay.addRenderables(tile, worldTiles, modelCache);
+                overlay.extendBounds(tile, worldTiles, overlayBoundingBox);
+            }
+            modelCache.end();
             overlayModelCaches.put(overlay, modelCache);
+            overlayBoundingBoxes.put(overlay, overlayBoundingBox);
         }
+        event.commit();
+    }
 
-        chunk.getTiles().forEach(this::initTileModels); // Initialize each tile's models
-        setColorMode(tileColorMode); // Init the color for each tile
-        buildModelCaches(); // Build the caches based on the models we just made
+    public void setColorMode(TileColorMode tileColorMode) {
+        for (ChunkMesh lodMesh : lodMeshes) {
+            lodMesh.setColorMode(tileColorMode);
+        }
+    }
+
+    public Chunk getChunk() {
+        return chunk;
     }
 
     /**
-     * Create a {@link ModelInstance} for an individual tile and add it to {@link #tileModelInsts}.
+     * Gets a box that contains all of this chunk's tiles, at every level of detail.
      *
-     * @param tile the tile to create a model for
+     * @return the bounds of the tiles (don't modify this!)
      */
-    private void initTileModels(Tile tile) {
-        // CALCULATE TRANSFORMATIONS
-        // Calculate the height of the tile that we want the tile to be drawn with
-        final float tileHeight = (float) getTileHeight(tile);
-
-        final Point2 tilePos = tileToPixel(tile.pos());
-        final Vector3 translate = new Vector3((float) tilePos.x(),     // Set x based on position
-                                              tileHeight / 2f, // Shift up based on height
-                                              (float) tilePos.y());    // Set z based on position
-        final Quaternion rotate = new Quaternion(); // No rotation
-        final Vector3 scale = new Vector3(1f, tileHeight, 1f); // Scale based on height
-        final Matrix4 transform = new Matrix4(translate, rotate, scale);
-
-        final ModelInstance modelInst = new ModelInstance(TILE_MODEL, transform);
-
-        // Save the model instance and a bounding box for the instance
-        tileModelInsts.put(tile, modelInst);
-        tileBoundingBoxes.put(tile, new BoundingBox(TILE_BOUNDING_BOX).mul(transform));
-
-        // Build the necessary models for each overlay, and each one to its respect cache
-        for (TileOverlay overlay : TileOverlay.values()) {
-            final ModelCache modelCache = overlayModelCaches.get(overlay);
-            overlay.addRenderables(tile, modelCache);
-        }
+    public BoundingBox getBoundingBox() {
+        return boundingBox;
     }
 
-    public void setColorMode(TileColorMode tileColorMode) {
-        tileModelInsts.forEach((tile, mi) -> {
-            // Set the color for the model instance based on the tile
-            final Color color = tileColorMode.getColor(tile);
-            mi.materials.get(0).set(ColorAttribute.createDiffuse(color));
-        });
+    /**
+     * Gets a box that contains everything in the given overlay for this chunk. If the overlay is
+     * empty for this chunk, the box is invalid (see {@link BoundingBox#isValid}).
+     *
+     * @param overlay the overlay
+     * @return the bounds of the overlay (don't modify this!)
+     */
+    public BoundingBox getOverlayBoundingBox(TileOverlay overlay) {
+        return overlayBoundingBoxes.get(overlay);
     }
 
-    private void buildModelCaches() {
-        // Add all tile model instances to the main cache
-        tileModelCache.begin();
-        tileModelCache.add(tileModelInsts.values()); // Add tile models
-        tileModelCache.end();
+    /**
+     * Gets the level of detail that this chunk is currently drawn at. 0 is full detail, and
+     * {@link #NUM_LODS} - 1 is the lowest detail.
+     *
+     * @return the current level of detail
+     */
+    public int getLod() {
+        return lod;
+    }
 
-        overlayModelCaches.values().forEach(ModelCache::end); // Finalize the cache for each overlay
+    /**
+     * Sets the level of detail to draw this chunk at.
+     *
+     * @param lod the level of detail, in [0, {@link #NUM_LODS})
+     * @throws IllegalArgumentException if the level of detail is out of range
+     */
+    public void setLod(int lod) {
+        if (lod < 0 || lod >= NUM_LODS) {
+            throw new IllegalArgumentException(String.format(
+                "Level of detail must be in [0, %d), was [%d]", NUM_LODS, lod));
+        }
+        this.lod = lod;
     }
 
+    /**
+     * Gets the tiles in this chunk, at the current level of detail (see {@link #setLod}).
+     *
+     * @return the tiles' renderables
+     */
     public RenderableProvider getTileModels() {
-        return tileModelCache;
+        return lodMeshes[lod];
     }
 
     public RenderableProvider getTileOverlayModels(TileOverlay overlay) {
@@ -205,11 +344,12 @@ public class ChunkModel implements RenderableProvider {
 
     @Override
     public void getRenderables(Array<Renderable> renderables, Pool<Renderable> pool) {
-        // Add all models from the cache to the array of renderables
-        tileModelCache.getRenderables(renderables, pool);
+        lodMeshes[lod].getRenderables(renderables, pool);
     }
 
     public void dispose() {
-        tileModelCache.dispose();
+        for (ChunkMesh lodMesh : lodMeshes) {
+            lodMesh.dispose();
+        }
     }
 }
@@ -0,0 +1,225 @@
+package me.lucaspickering.terra.render;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.collision.BoundingBox;
+
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+import me.lucaspickering.terra.util.Direction;
+import me.lucaspickering.terra.world.Tile;
+
+/**
+ * Writes the geometry of hexagonal prisms (one per tile) directly into vertex and index buffers,
+ * so that a whole chunk of tiles can be drawn as a few meshes. Each prism has the same shape as a
+ * 6-sided cylinder built by {@link com.badlogic.gdx.graphics.g3d.utils.ModelBuilder}, which is what
+ * tiles used to be drawn with: the sides have smooth normals that point out from the center
+ * through each corner, and the top has flat normals.
+ *
+ * Only the faces that can be seen are written. Tiles stand on the ground, so the bottom is never
+ * written, and each side wall only goes down as far as the top of the neighbor on that side. The
+ * rest of the wall would be buried inside the neighbor.
+ *
+ * Each vertex is a position, a normal, and a packed color (see {@link #VERTEX_ATTRIBUTES}).
+ * Triangles are wound counter-clockwise when viewed from outside the prism.
+ */
+final class HexPrismBuilder {
+
+    static final VertexAttributes VERTEX_ATTRIBUTES = new VertexAttributes(
+        VertexAttribute.Position(), VertexAttribute.Normal(), VertexAttribute.ColorPacked());
+    static final int VERTEX_SIZE = VERTEX_ATTRIBUTES.vertexSize / Float.BYTES; // In floats
+    private static final int COLOR_OFFSET = 6; // Floats from the start of a vertex to its color
+
+    // The direction that each side faces. Side i runs from corner i to corner i + 1.
+    static final Direction[] SIDE_DIRECTIONS = {
+        Direction.SOUTHEAST, Direction.SOUTH, Direction.SOUTHWEST,
+        Direction.NORTHWEST, Direction.NORTH, Direction.NORTHEAST
+    };
+
+    private static final int TOP_VERTICES = Tile.NUM_SIDES; // One per corner
+    private static final int TOP_INDICES = (Tile.NUM_SIDES - 2) * 3; // A fan from the first corner
+    private static final int WALL_VERTICES = 4; // Bottom and top of each of its two corners
+    private static final int WALL_INDICES = 6; // Two triangles
+
+    static final int MAX_VERTICES = TOP_VERTICES + Tile.NUM_SIDES * WALL_VERTICES;
+    static final int MAX_INDICES = getIndexCount(MAX_VERTICES);
+
+    // Offset of each corner from the center of the prism, in the xz plane
+    private static final float[] CORNER_X = new float[Tile.NUM_SIDES];
+    private static final float[] CORNER_Z = new float[Tile.NUM_SIDES];
+
+    // Normal of the sides at each corner, in the xz plane
+    private static final float[] NORMAL_X = new float[Tile.NUM_SIDES];
+    private static final float[] NORMAL_Z = new float[Tile.NUM_SIDES];
+
+    private static final float MIN_CORNER_X;
+    private static final float MAX_CORNER_X;
+    private static final float MIN_CORNER_Z;
+    private static final float MAX_CORNER_Z;
+
+    static {
+        // Same math that ModelBuilder uses for a cylinder, so the corners are in the same spots
+        final float radius = (float) ChunkModel.TILE_WIDTH * 0.5f;
+        final float step = MathUtils.degreesToRadians * 360f / Tile.NUM_SIDES;
+        float minX = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float minZ = Float.MAX_VALUE;
+        float maxZ = -Float.MAX_VALUE;
+        for (int i = 0; i < Tile.NUM_SIDES; i++) {
+            final float angle = step * i;
+            final float x = MathUtils.cos(angle) * radius;
+            final float z = MathUtils.sin(angle) * radius;
+            final float length = (float) Math.sqrt(x * x + z * z);
+            CORNER_X[i] = x;
+            CORNER_Z[i] = z;
+            NORMAL_X[i] = x / length;
+            NORMAL_Z[i] = z / length;
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minZ = Math.min(minZ, z);
+            maxZ = Math.max(maxZ, z);
+        }
+        MIN_CORNER_X = minX;
+        MAX_CORNER_X = maxX;
+        MIN_CORNER_Z = minZ;
+        MAX_CORNER_Z = maxZ;
+    }
+
+    private HexPrismBuilder() {
+        // This class should never be instantiated
+    }
+
+    /**
+     * Counts the vertices that {@link #writePrism} will write for a prism.
+     *
+     * @param height      the height of the prism
+     * @param wallBottoms the height that each side's wall goes down to, by side
+     * @param wallOffset  the index in {@code wallBottoms} of the first side's value
+     * @return the number of vertices, at most {@link #MAX_VERTICES}
+     */
+    static int getVertexCount(float height, float[] wallBottoms, int wallOffset) {
+        int count = TOP_VERTICES;
+        for (int side = 0; side < Tile.NUM_SIDES; side++) {
+            if (wallBottoms[wallOffset + side] < height) {
+                count += WALL_VERTICES;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of indices that {@link #writePrism} writes for a prism with the given number
+     * of vertices.
+     *
+     * @param vertexCount the number of vertices in the prism (see {@link #getVertexCount})
+     * @return the number of indices in the prism
+     */
+    static int getIndexCount(int vertexCount) {
+        final int walls = (vertexCount - TOP_VERTICES) / WALL_VERTICES;
+        return TOP_INDICES + walls * WALL_INDICES;
+    }
+
+    /**
+     * Writes one prism, standing on the plane y=0, at the current position of each buffer. The
+     * indices refer to vertices by their position in the vertex buffer, so all prisms written to
+     * the same buffers can be drawn with one call.
+     *
+     * @param vertices    the buffer to write vertices to, which must have room for
+     *                    {@link #MAX_VERTICES} more vertices
+     * @param indices     the buffer to write indices to, which must have room for
+     *                    {@link #MAX_INDICES} more indices
+     * @param x           the x coord of the center of the prism
+     * @param z           the z coord of the center of the prism
+     * @param size        the width of the prism, relative to a single tile
+     * @param height      the height of the prism
+     * @param wallBottoms the height that each side's wall goes down to, by side (see
+     *                    {@link #SIDE_DIRECTIONS}). Sides with a value of at least {@code height}
+     *                    get no wall.
+     * @param wallOffset  the index in {@code wallBottoms} of the first side's value
+     * @param color       the color of the prism (see {@link Color#toFloatBits})
+     * @return the number of vertices written
+     */
+    static int writePrism(FloatBuffer vertices, ShortBuffer indices, float x, float z,
+                          float size, float height, float[] wallBottoms, int wallOffset,
+                          float color) {
+        final int first = vertices.position() / VERTEX_SIZE;
+
+        // Top: one vertex per corner, then a fan of triangles from the first corner. Corners go
+        // clockwise when viewed from above, so each triangle has to go backwards.
+        for (int i = 0; i < Tile.NUM_SIDES; i++) {
+            putVertex(vertices, x + CORNER_X[i] * size, height, z + CORNER_Z[i] * size,
+                      0f, 1f, 0f, color);
+        }
+        for (int i = 1; i < Tile.NUM_SIDES - 1; i++) {
+            putTriangle(indices, first, first + i + 1, first + i);
+        }
+
+        // Walls: the bottom and top of this side's first corner, then the same for its second
+        int next = first + TOP_VERTICES;
+        for (int side = 0; side < Tile.NUM_SIDES; side++) {
+            final float bottom = wallBottoms[wallOffset + side];
+            if (bottom < height) {
+                putWallEdge(vertices, x, z, size, side, bottom, height, color);
+                putWallEdge(vertices, x, z, size, (side + 1) % Tile.NUM_SIDES, bottom, height,
+                            color);
+                putTriangle(indices, next, next + 1, next + 3);
+                putTriangle(indices, next, next + 3, next + 2);
+                next += WALL_VERTICES;
+            }
+        }
+
+        return next - first;
+    }
+
+    /**
+     * Sets the color of a range of vertices.
+     *
+     * @param vertices    the buffer that holds the vertices
+     * @param firstVertex the index of the first vertex to change
+     * @param count       the number of vertices to change
+     * @param color       the new color (see {@link Color#toFloatBits})
+     */
+    static void setColor(FloatBuffer vertices, int firstVertex, int count, float color) {
+        for (int vertex = firstVertex; vertex < firstVertex + count; vertex++) {
+            vertices.put(vertex * VERTEX_SIZE + COLOR_OFFSET, color);
+        }
+    }
+
+    /**
+     * Calculates the bounding box of a prism.
+     *
+     * @param x      the x coord of the center of the prism
+     * @param z      the z coord of the center of the prism
+     * @param height the height of the prism
+     * @param out    the box to store the result in
+     * @return {@code out}
+     */
+    static BoundingBox getBounds(float x, float z, float height, BoundingBox out) {
+        out.min.set(x + MIN_CORNER_X, 0f, z + MIN_CORNER_Z);
+        out.max.set(x + MAX_CORNER_X, height, z + MAX_CORNER_Z);
+        return out.set(out.min, out.max);
+    }
+
+    private static void putWallEdge(FloatBuffer vertices, float x, float z, float size,
+                                    int corner, float bottom, float top, float color) {
+        final float cornerX = x + CORNER_X[corner] * size;
+        final float cornerZ = z + CORNER_Z[corner] * size;
+        final float normalX = NORMAL_X[corner];
+        final float normalZ = NORMAL_Z[corner];
+        putVertex(vertices, cornerX, bottom, cornerZ, normalX, 0f, normalZ, color);
+        putVertex(vertices, cornerX, top, cornerZ, normalX, 0f, normalZ, color);
+    }
+
+    private static void putVertex(FloatBuffer vertices, float x, float y, float z,
+                                  float normalX, float normalY, float normalZ, float color) {
+        vertices.put(x).put(y).put(z).put(normalX).put(normalY).put(normalZ).put(color);
+    }
+
+    private static void putTriangle(ShortBuffer indices, int a, int b, int c) {
+        // Indices are unsigned, so anything above Short.MAX_VALUE is meant to overflow
+        indices.put((short) a).put((short) b).put((short) c);
+    }
+}
@@ -5,6 +5,7 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.VertexAttributes;
 import com.badlogic.gdx.graphics.g3d.Attribute;
 import com.badlogic.gdx.graphics.g3d.Material;
+import com.badlogic.gdx.graphics.g3d.Model;
 import com.badlogic.gdx.graphics.g3d.ModelCache;
 import com.badlogic.gdx.graphics.g3d.ModelInstance;
 import com.badlogic.gdx.graphics.g3d.attributes.BlendingAttribute;
@@ -14,15 +15,18 @@ import com.badlogic.gdx.graphics.g3d.utils.ModelBuilder;
 import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Quaternion;
 import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
 
 import me.lucaspickering.terra.util.Colors;
 import me.lucaspickering.terra.world.Tile;
+import me.lucaspickering.terra.world.util.RunoffPattern;
+import me.lucaspickering.terra.world.util.TileSet;
 
 public enum TileOverlay {
 
     RUNOFF_LEVEL {
         @Override
-        public void addRenderables(Tile tile, ModelCache modelCache) {
+        public void addRenderables(Tile tile, TileSet worldTiles, ModelCache modelCache) {
             if (tile.getRunoffLevel() > 0.0) {
                 final Vector3 translate = ChunkModel.getTilePos(tile);
                 final Quaternion rotate = new Quaternion(); // No rotation
@@ -31,7 +35,7 @@ public enum TileOverlay {
                 final Vector3 scale = new Vector3(1f, (float) tile.getRunoffLevel(), 1f);
 
                 final ModelInstance modelInst =
-                    new ModelInstance(ChunkModel.TILE_MODEL, new Matrix4(translate, rotate, scale));
+                    new ModelInstance(TILE_MODEL, new Matrix4(translate, rotate, scale));
 
                 // Add color and transparency material attributes
                 modelInst.materials.get(0).set(WATER_BLENDING_ATTR);
@@ -40,16 +44,27 @@ public enum TileOverlay {
                 modelCache.add(modelInst);
             }
         }
+
+        @Override
+        public void extendBounds(Tile tile, TileSet worldTiles, BoundingBox bounds) {
+            if (tile.getRunoffLevel() > 0.0) {
+                // Same width as the tile, centered on its top
+                final Vector3 top = ChunkModel.getTilePos(tile);
+                final float halfLevel = (float) tile.getRunoffLevel() / 2f;
+                bounds.ext(ChunkModel.getTileBoundingBox(tile, new BoundingBox()));
+                bounds.ext(top.x, top.y + halfLevel, top.z);
+            }
+        }
     },
     RUNOFF_EXITS {
         @Override
-        public void addRenderables(Tile tile, ModelCache modelCache) {
+        public void addRenderables(Tile tile, TileSet worldTiles, ModelCache modelCache) {
             Gdx.gl20.glLineWidth(3f);
 
             // Add a line between this tile and each exit
             final ModelBuilder modelBuilder = new ModelBuilder();
             modelBuilder.begin();
-            tile.getRunoffPattern().getExits().forEach((exitTile, factor) -> {
+            new RunoffPattern(tile, worldTiles).getExits().forEach((exitTile, factor) -> {
                 final MeshPartBuilder meshBuilder = modelBuilder.part(
                     null, 1,
                     VertexAttributes.Usage.Position | VertexAttributes.Usage.ColorUnpacked,
@@ -59,16 +74,24 @@ public enum TileOverlay {
             });
             modelCache.add(new ModelInstance(modelBuilder.end()));
         }
+
+        @Override
+        public void extendBounds(Tile tile, TileSet worldTiles, BoundingBox bounds) {
+            new RunoffPattern(tile, worldTiles).getExits().forEach((exitTile, factor) -> {
+                bounds.ext(ChunkModel.getTilePos(tile));
+                bounds.ext(ChunkModel.getTilePos(exitTile));
+            });
+        }
     },
     RUNOFF_TERMINALS {
         @Override
-        public void addRenderables(Tile tile, ModelCache modelCache) {
+        public void addRenderables(Tile tile, TileSet worldTiles, ModelCache modelCache) {
             Gdx.gl20.glLineWidth(3f);
 
             // Add a line between this tile and each exit
             final ModelBuilder modelBuilder = new ModelBuilder();
             modelBuilder.begin();
-            tile.getRunoffPattern().getTerminals().forEach((terminal, factor) -> {
+            new RunoffPattern(tile, worldTiles).getTerminals().forEach((terminal, factor) -> {
                 final MeshPartBuilder meshBuilder = modelBuilder.part(
                     null, 1,
                     VertexAttributes.Usage.Position | VertexAttributes.Usage.ColorUnpacked,
@@ -78,10 +101,44 @@ public enum TileOverlay {
             });
             modelCache.add(new ModelInstance(modelBuilder.end()));
         }
+
+        @Override
+        public void extendBounds(Tile tile, TileSet worldTiles, BoundingBox bounds) {
+            new RunoffPattern(tile, worldTiles).getTerminals().forEach((terminal, factor) -> {
+                bounds.ext(ChunkModel.getTilePos(tile));
+                bounds.ext(ChunkModel.getTilePos(terminal));
+            });
+        }
     };
 
+    // The hexagonal prism model used for overlays that are drawn in the shape of a tile. This will
+    // be created once, scaled and colored when creating a ModelInstance from it. Pls no modify!
+    private static final Model TILE_MODEL;
+
+    static {
+        // Initialize the tile model
+        final ModelBuilder modelBuilder = new ModelBuilder();
+
+        // A cylinder with 6 divisions just happens to be a hexagon
+        TILE_MODEL = modelBuilder.createCylinder((float) ChunkModel.TILE_WIDTH, 1f,
+                                                 (float) ChunkModel.TILE_WIDTH, Tile.NUM_SIDES,
+                                                 new Material(),
+                                                 VertexAttributes.Usage.Position
+                                                 | VertexAttributes.Usage.Normal);
+    }
+
     private static final Attribute RUNOFF_COLOR_ATTR = ColorAttribute.createDiffuse(Colors.RUNOFF);
     private static final Attribute WATER_BLENDING_ATTR = new BlendingAttribute(0.25f);
 
-    public abstract void addRenderables(Tile tile, ModelCache modelCache);
+    public abstract void addRenderables(Tile tile, TileSet worldTiles, ModelCache modelCache);
+
+    /**
+     * Extends the given bounding box to contain everything that {@link #addRenderables} adds for
+     * the given tile. This can reach outside of the tile's chunk.
+     *
+     * @param tile       the tile
+     * @param worldTiles all tiles in the world, used to find tiles in other chunks
+     * @param bounds     the box to extend
+     */
+    public abstract void extendBounds(Tile tile, TileSet worldTiles, BoundingBox bounds);
 }
@@ -8,32 +8,50 @@ import com.badlogic.gdx.graphics.g3d.ModelBatch;
 import com.badlogic.gdx.graphics.g3d.RenderableProvider;
 import com.badlogic.gdx.graphics.g3d.attributes.ColorAttribute;
 import com.badlogic.gdx.graphics.g3d.environment.DirectionalLight;
-import com.badlogic.gdx.math.Intersector;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.math.collision.BoundingBox;
 import com.badlogic.gdx.math.collision.Ray;
+import com.badlogic.gdx.utils.Array;
 
 import java.util.*;
 import java.util.logging.Logger;
 
 import me.lucaspickering.terra.input.CameraController;
 import me.lucaspickering.terra.input.KeyAction;
+import me.lucaspickering.terra.profile.ColorModeEvent;
+import me.lucaspickering.terra.profile.FrameEvent;
 import me.lucaspickering.terra.render.ChunkModel;
 import me.lucaspickering.terra.render.TileColorMode;
 import me.lucaspickering.terra.render.TileOverlay;
+import me.lucaspickering.terra.world.ChunkListener;
+import me.lucaspickering.terra.world.LazyWorld;
 import me.lucaspickering.terra.world.Tile;
 import me.lucaspickering.terra.world.World;
 import me.lucaspickering.terra.world.WorldHandler;
 import me.lucaspickering.terra.world.util.Chunk;
+import me.lucaspickering.terra.world.util.HexPoint;
 import me.lucaspickering.terra.world.util.HexPointMap;
+import me.lucaspickering.terra.world.util.TileSet;
 import me.lucaspickering.utils.GeneralFuncs;
+import me.lucaspickering.utils.Point2;
 
 public class WorldScreen extends Screen {
 
     private static final float FOV = 75f;
 
+    // Camera distance beyond which each level of detail switches to the next lower one. At these
+    // distances, each tile (or cell of tiles) is only a few pixels across.
+    private static final float[] LOD_DISTANCES = {15000f, 30000f};
+    // How far past a switching distance the camera has to go before the level of detail actually
+    // changes, as a fraction of that distance. Without this, a chunk right at a switching distance
+    // would keep popping back and forth.
+    private static final float LOD_HYSTERESIS = 0.1f;
+
     private final Logger logger;
     private final WorldHandler worldHandler;
+    private final LazyWorld lazyWorld; // null if the world was generated all at once
+    // Every tile that has a model. For a lazy world, this only holds the chunks that are loaded.
+    private final TileSet worldTiles;
 
     private final Camera camera;
     private final CameraController cameraController;
@@ -41,12 +59,19 @@ public class WorldScreen extends Screen {
     private final ModelBatch modelBatch;
     private final HexPointMap<Chunk, ChunkModel> chunkModels = new HexPointMap<>();
     private final Set<TileOverlay> activeTileOverlays = EnumSet.noneOf(TileOverlay.class);
+    // Everything to render in the current frame. Reused between frames to avoid allocation.
+    private final Array<RenderableProvider> toRender = new Array<>();
+    private TileColorMode tileColorMode = TileColorMode.COMPOSITE;
+    private long frameCount; // Number of frames drawn so far
+    private Tile tileUnderMouse; // null if the mouse isn't over any tile
 
     public WorldScreen(WorldHandler worldHandler) {
         Objects.requireNonNull(worldHandler);
 
         logger = Logger.getLogger(getClass().getName());
         this.worldHandler = worldHandler;
+        lazyWorld = worldHandler.getLazyWorld();
+        worldTiles = lazyWorld != null ? new TileSet() : worldHandler.getWorld().getTiles();
 
         initActionHandlers();
 
@@ -98,83 +123,174 @@ public class WorldScreen extends Screen {
     }
 
     private void initChunkModels() {
-        final long time = GeneralFuncs.timed(() -> worldHandler.getWorld().getChunks()
-            .forEach(c -> chunkModels.put(c, new ChunkModel(c, TileColorMode.COMPOSITE))));
+        if (lazyWorld != null) {
+            // Models are made as chunks are loaded around the camera, and thrown away with them
+            lazyWorld.setChunkListener(new ChunkListener() {
+                @Override
+                public void chunkLoaded(Chunk chunk) {
+                    addChunkModel(chunk);
+                }
+
+                @Override
+                public void chunkEvicted(Chunk chunk) {
+                    removeChunkModel(chunk);
+                }
+            });
+            return;
+        }
+
+        final World world = worldHandler.getWorld();
+        final long time = GeneralFuncs.timed(() -> world.getChunks().forEach(
+            c -> chunkModels.put(c, new ChunkModel(c, worldTiles, tileColorMode))));
         logger.info(String.format("Initializing world models took %d ms", time));
     }
 
+    /**
+     * Makes a model for a chunk that was just loaded into the lazy world. Neighboring chunks that
+     * aren't loaded yet are treated as missing, so the walls on that side go all the way down.
+     *
+     * @param chunk the loaded chunk
+     */
+    private void addChunkModel(Chunk chunk) {
+        worldTiles.addAll(chunk.getTiles());
+        final long time = GeneralFuncs.timed(
+            () -> chunkModels.put(chunk, new ChunkModel(chunk, worldTiles, tileColorMode)));
+        logger.finer(String.format("Initializing model for chunk %s took %d ms",
+                                   chunk.getPos(), time));
+    }
+
+    /**
+     * Throws away the model for a chunk that was just evicted from the lazy world.
+     *
+     * @param chunk the evicted chunk
+     */
+    private void removeChunkModel(Chunk chunk) {
+        for (Tile tile : chunk.getTiles()) {
+            worldTiles.removeByPoint(tile.pos());
+        }
+        final ChunkModel chunkModel = chunkModels.remove(chunk);
+        if (chunkModel != null) {
+            chunkModel.dispose();
+        }
+    }
+
+    /**
+     * Loads every chunk of the lazy world that is near the camera. Models are made for new
+     * chunks, and the chunks that were used least recently are evicted, along with their models.
+     */
+    private void loadChunksNearCamera() {
+        final HexPoint cameraTile = ChunkModel.pixelToTile(
+            new Point2(camera.position.x, camera.position.z));
+        lazyWorld.getChunksInRange(Chunk.getChunkPosForTile(cameraTile),
+                                   WorldHandler.LAZY_CHUNK_RADIUS);
+    }
+
     @Override
     public void draw() {
-        cameraController.update();
+        final FrameEvent event = FrameEvent.start(frameCount++, chunkModels.size());
 
-        final Tile tileUnderMouse = getTileUnderMouse();
-        if (tileUnderMouse != null) {
-            System.out.println(tileUnderMouse.pos());
+        cameraController.update();
+        if (lazyWorld != null) {
+            loadChunksNearCamera();
         }
 
-        // Build a list of everything to render
-        final List<RenderableProvider> toRender = new LinkedList<>();
+        final Tile newTileUnderMouse = getTileUnderMouse();
+        if (newTileUnderMouse != tileUnderMouse) {
+            tileUnderMouse = newTileUnderMouse;
+            logger.finer(String.format("Tile under mouse: %s", newTileUnderMouse));
+        }
 
-        // Add renderables for each chunk
+        // Build a list of everything to render, skipping whatever is outside the camera's view
+        toRender.clear();
+        int visibleChunks = 0;
         for (ChunkModel chunkModel : chunkModels.values()) {
-            toRender.add(chunkModel.getTileModels()); // Add the tiles
+            if (isVisible(chunkModel.getBoundingBox())) {
+                updateLod(chunkModel);
+                toRender.add(chunkModel.getTileModels()); // Add the tiles
+                visibleChunks++;
+            }
 
-            // Add models for each overlay that is active
+            // Add models for each overlay that is active. These can reach outside of the
+            // chunk, so they have their own bounds.
             for (TileOverlay overlay : activeTileOverlays) {
-                toRender.add(chunkModel.getTileOverlayModels(overlay));
+                if (isVisible(chunkModel.getOverlayBoundingBox(overlay))) {
+                    toRender.add(chunkModel.getTileOverlayModels(overlay));
+                }
             }
         }
+        event.setVisibleChunks(visibleChunks);
 
         // Render each chunk
         modelBatch.begin(camera);
         modelBatch.render(toRender, environment);
         modelBatch.end();
+        event.commit();
     }
 
     /**
-     * Get the tile under the mouse cursor. This generates a ray originating from the mouse cursor,
-     * and checks each tile to see if it intersects the ray. If multiple tiles intersect the ray,
-     * the nearest one is returned.
+     * Picks the level of detail for the given chunk, based on how far it is from the camera.
      *
-     * @return the tile under the mouse cursor
+     * @param chunkModel the chunk to update
      */
-    private Tile getTileUnderMouse() {
-        final Ray ray = camera.getPickRay(Gdx.input.getX(), Gdx.input.getY());
-
-        // Will store the intersection point for each tile that the ray hits
-        // Used to find the nearest tile when multiple are intersected
-        final Vector3 intersectPoint = new Vector3();
+    private void updateLod(ChunkModel chunkModel) {
+        final float distance = distanceToCamera(chunkModel.getBoundingBox());
+        int lod = chunkModel.getLod();
+        while (lod < LOD_DISTANCES.length
+               && distance > LOD_DISTANCES[lod] * (1f + LOD_HYSTERESIS)) {
+            lod++; // Far enough away to lower the detail
+        }
+        while (lod > 0 && distance < LOD_DISTANCES[lod - 1] * (1f - LOD_HYSTERESIS)) {
+            lod--; // Close enough to raise the detail
+        }
+        chunkModel.setLod(lod);
+    }
 
-        Tile nearestTile = null;
-        float distToNearestTile = Float.MAX_VALUE;
+    /**
+     * Gets the distance from the camera to the nearest point in the given box.
+     *
+     * @param boundingBox the box
+     * @return the distance, or 0 if the camera is in the box
+     */
+    private float distanceToCamera(BoundingBox boundingBox) {
+        final Vector3 pos = camera.position;
+        final Vector3 min = boundingBox.min;
+        final Vector3 max = boundingBox.max;
+        final float dx = Math.max(0f, Math.max(min.x - pos.x, pos.x - max.x));
+        final float dy = Math.max(0f, Math.max(min.y - pos.y, pos.y - max.y));
+        final float dz = Math.max(0f, Math.max(min.z - pos.z, pos.z - max.z));
+        return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
 
-        // Check each tile for intersection
-        for (ChunkModel chunkModel : chunkModels.values()) {
-            for (Map.Entry<Tile, BoundingBox> entry : chunkModel.tileBoundingBoxes.entrySet()) {
-                final Tile tile = entry.getKey();
-                final BoundingBox boundingBox = entry.getValue();
-
-                // Check if the ray intersects this tile
-                if (Intersector.intersectRayBounds(ray, boundingBox, intersectPoint)) {
-                    // Get the distance between the ray origin and the tile
-                    final float distance = ray.origin.dst(intersectPoint);
-
-                    // If this is the closest tile found so far, save it
-                    if (distance < distToNearestTile) {
-                        nearestTile = tile;
-                        distToNearestTile = distance;
-                    }
-                }
-            }
-        }
+    /**
+     * Checks if any part of the given box is in the camera's view.
+     *
+     * @param boundingBox the box to check
+     * @return {@code true} if the box is valid and in view, {@code false} otherwise
+     */
+    private boolean isVisible(BoundingBox boundingBox) {
+        return boundingBox.isValid() && camera.frustum.boundsInFrustum(boundingBox);
+    }
 
-        return nearestTile;
+    /**
+     * Get the tile under the mouse cursor. This generates a ray originating from the mouse cursor,
+     * and finds the nearest tile that it hits (see {@link ChunkModel#pickTile}).
+     *
+     * @return the tile under the mouse cursor, or {@code null} if there isn't one
+     */
+    private Tile getTileUnderMouse() {
+        final Ray ray = camera.getPickRay(Gdx.input.getX(), Gdx.input.getY());
+        return ChunkModel.pickTile(ray, worldTiles, camera.far);
     }
 
     private void setTileColorMode(TileColorMode tileColorMode) {
+        this.tileColorMode = tileColorMode; // For chunks that are loaded later
+        final ColorModeEvent event =
+            ColorModeEvent.start(tileColorMode.name(), chunkModels.size());
+
         // Set the color mode for each chunk
         final long time = GeneralFuncs.timed(() -> chunkModels.values()
             .forEach(cm -> cm.setColorMode(tileColorMode)));
+        event.commit();
         logger.finer(String.format("Color update took %d ms", time));
     }
 
@@ -188,6 +304,9 @@ public class WorldScreen extends Screen {
 
     @Override
     public void dispose() {
+        if (lazyWorld != null) {
+            lazyWorld.setChunkListener(null);
+        }
         chunkModels.values().forEach(ChunkModel::dispose);
     }
 
@@ -0,0 +1,26 @@
+package me.lucaspickering.terra.world;
+
+import me.lucaspickering.terra.world.util.Chunk;
+
+/**
+ * Receives each chunk as a {@link LazyWorld} brings it into memory and throws it away, so that
+ * anything built from a chunk (such as its model) can live exactly as long as the chunk does. See
+ * {@link LazyWorld#setChunkListener}.
+ */
+public interface ChunkListener {
+
+    /**
+     * Called after a chunk is generated and added to the cache.
+     *
+     * @param chunk the new chunk
+     */
+    void chunkLoaded(Chunk chunk);
+
+    /**
+     * Called after a chunk is removed from the cache. The chunk and its tiles are still valid, but
+     * the world won't return them again.
+     *
+     * @param chunk the removed chunk
+     */
+    void chunkEvicted(Chunk chunk);
+}
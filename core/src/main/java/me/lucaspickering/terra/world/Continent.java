@@ -6,19 +6,32 @@ import me.lucaspickering.terra.world.util.Cluster;
 
 public class Continent {
 
+    private final int id;
     private final Cluster tiles;
 
     private Color overlayColor;
 
-    public Continent(Cluster tiles) {
+    /**
+     * Constructs a new continent.
+     *
+     * @param id    the ID of this continent, which must be its position in the world's list of
+     *              continents, plus one (so that 0 can mean "no continent")
+     * @param tiles the tiles in the continent
+     */
+    public Continent(int id, Cluster tiles) {
+        this.id = id;
         this.tiles = tiles;
     }
 
     public Continent(Continent continent) {
-        this(continent.tiles);
+        this(continent.id, continent.tiles);
         this.overlayColor = continent.getOverlayColor();
     }
 
+    public int getId() {
+        return id;
+    }
+
     public Cluster getTiles() {
         return tiles;
     }
@@ -0,0 +1,219 @@
+package me.lucaspickering.terra.world;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+import me.lucaspickering.terra.profile.ChunkTaskEvent;
+import me.lucaspickering.terra.world.generate.BiomePainter;
+import me.lucaspickering.terra.world.generate.ChunkGenerator;
+import me.lucaspickering.terra.world.generate.NoiseNormalization;
+import me.lucaspickering.terra.world.generate.NoiseTerrainGenerator;
+import me.lucaspickering.terra.world.generate.OceanGenerator;
+import me.lucaspickering.terra.world.util.Chunk;
+import me.lucaspickering.terra.world.util.HexPoint;
+import me.lucaspickering.utils.GeneralFuncs;
+
+/**
+ * A world with no edges, whose chunks are generated the first time they are asked for. Only a
+ * bounded number of chunks are kept in memory. When that limit is reached, the least recently used
+ * chunk is thrown away. If it is asked for again, it is regenerated from the seed, and will be
+ * identical to the original.
+ *
+ * Only {@link ChunkGenerator}s can be used here, because a chunk's neighbors may not exist when it
+ * is generated. That means features that span many chunks, such as continents and runoff, are only
+ * available in a {@link World} generated all at once. Oceans are also simplified; see
+ * {@link OceanGenerator#generateChunk}.
+ *
+ * A chunk that is evicted is not modified, so tiles that are already held by a caller stay valid.
+ * They just won't be the same instances that are returned after the chunk is regenerated. To find
+ * out when chunks are loaded and evicted, set a {@link ChunkListener}.
+ *
+ * This class is thread-safe. Chunks are generated while holding a lock, so two threads can never
+ * generate the same chunk at once.
+ */
+public class LazyWorld {
+
+    public static final int DEFAULT_MAX_CHUNKS = 64;
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final long seed;
+    private final Map<HexPoint, Chunk> chunks;
+    private final ChunkGenerator[] generators;
+    private ChunkListener chunkListener; // null if nothing is listening
+
+    public LazyWorld(long seed) {
+        this(seed, DEFAULT_MAX_CHUNKS);
+    }
+
+    /**
+     * Constructs a new lazy world. No chunks are generated until they are asked for.
+     *
+     * @param seed      the seed used to generate every chunk
+     * @param maxChunks the maximum number of chunks to keep in memory at once
+     * @throws IllegalArgumentException if {@code maxChunks} is not positive
+     */
+    public LazyWorld(long seed, int maxChunks) {
+        if (maxChunks <= 0) {
+            throw new IllegalArgumentException(String.format(
+                "Max chunks must be positive, was %d", maxChunks));
+        }
+        this.seed = seed;
+
+        // A LinkedHashMap in access order always has the least recently used chunk first
+        chunks = new LinkedHashMap<HexPoint, Chunk>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<HexPoint, Chunk> eldest) {
+                if (size() > maxChunks) {
+                    remove(eldest.getKey()); // Remove it now so the listener sees it gone
+                    if (chunkListener != null) {
+                        chunkListener.chunkEvicted(eldest.getValue());
+                    }
+                }
+                return false; // Already removed, if it had to be
+            }
+        };
+
+        // The generators only use the world for its seed, so they can share an empty one. Noise
+        // has to be normalized without looking at the rest of the world, so use sampled ranges.
+        final World world = new World(seed);
+        generators = new ChunkGenerator[]{
+            new NoiseTerrainGenerator(world, NoiseNormalization.SAMPLED),
+            new OceanGenerator(world),
+            new BiomePainter(world),
+        };
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the listener that is told whenever a chunk is loaded or evicted. The listener is called
+     * on the thread that asked for the chunk, while this world is locked, so it must not ask this
+     * world for chunks itself. Chunks that are already in memory are not passed to the listener.
+     *
+     * @param chunkListener the listener, or {@code null} to remove the current one
+     */
+    public synchronized void setChunkListener(ChunkListener chunkListener) {
+        this.chunkListener = chunkListener;
+    }
+
+    /**
+     * Gets the chunk at the given position, generating it if it isn't in memory.
+     *
+     * @param chunkPos the position of the chunk
+     * @return the chunk (never {@code null})
+     */
+    public synchronized Chunk getChunk(HexPoint chunkPos) {
+        Chunk chunk = chunks.get(chunkPos); // Marks the chunk as most recently used
+        if (chunk == null) {
+            chunk = generateChunk(chunkPos);
+            chunks.put(chunkPos, chunk); // Evicts the least recently used chunk, if necessary
+            if (chunkListener != null) {
+                chunkListener.chunkLoaded(chunk);
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Gets the tile at the given position, generating its chunk if it isn't in memory.
+     *
+     * @param point the position of the tile
+     * @return the tile (never {@code null})
+     */
+    public Tile getByPoint(HexPoint point) {
+        return getByCoords(point.x(), point.y());
+    }
+
+    /**
+     * Gets the tile at the given coordinates, generating its chunk if it isn't in memory.
+     *
+     * @param x the x coord of the tile
+     * @param y the y coord of the tile
+     * @return the tile (never {@code null})
+     */
+    public Tile getByCoords(int x, int y) {
+        final Chunk chunk = getChunk(new HexPoint(Math.floorDiv(x, Chunk.SIDE_LENGTH),
+                                                  Math.floorDiv(y, Chunk.SIDE_LENGTH)));
+        return chunk.getTile(Chunk.getTileIndex(x, y));
+    }
+
+    /**
+     * Gets every chunk within the given distance of a center chunk, generating any that aren't in
+     * memory. This is meant for finding the chunks around a camera. Every chunk in range that is
+     * already in memory is marked as used before any missing chunk is generated, so the chunks
+     * that get evicted to make room are never in range, as long as the cache holds at least
+     * {@link #getChunkCountInRange} chunks. Otherwise, the chunks in the returned list will still
+     * be valid, but some of them will have been evicted by the time this returns.
+     *
+     * @param center the position of the center chunk
+     * @param radius the maximum distance from the center chunk, in chunks
+     * @return all chunks in range, ordered by x, then y
+     * @throws IllegalArgumentException if {@code radius} is negative
+     */
+    public synchronized List<Chunk> getChunksInRange(HexPoint center, int radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException(String.format(
+                "Radius must be non-negative, was %d", radius));
+        }
+
+        // Touch the chunks that are already in memory first. If the missing ones were generated
+        // in the same pass, they could evict chunks in range that just hadn't been reached yet.
+        final List<HexPoint> positions = new ArrayList<>(getChunkCountInRange(radius));
+        final List<Chunk> result = new ArrayList<>(getChunkCountInRange(radius));
+        for (int dx = -radius; dx <= radius; dx++) {
+            // Calculate the min and max y offsets that a chunk in this range can have
+            final int minDy = Math.max(-radius, -dx - radius);
+            final int maxDy = Math.min(radius, -dx + radius);
+            for (int dy = minDy; dy <= maxDy; dy++) {
+                final HexPoint chunkPos = new HexPoint(center.x() + dx, center.y() + dy);
+                positions.add(chunkPos);
+                result.add(chunks.get(chunkPos)); // Marks the chunk as most recently used
+            }
+        }
+
+        // Now generate the missing chunks
+        for (int i = 0; i < result.size(); i++) {
+            if (result.get(i) == null) {
+                result.set(i, getChunk(positions.get(i)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of chunks within the given distance of a center chunk, including the center
+     * chunk itself (see {@link #getChunksInRange}).
+     *
+     * @param radius the maximum distance from the center chunk, in chunks
+     * @return the number of chunks in range
+     */
+    public static int getChunkCountInRange(int radius) {
+        return 1 + 3 * radius * (radius + 1);
+    }
+
+    /**
+     * Gets the number of chunks that are currently held in memory.
+     *
+     * @return the number of cached chunks
+     */
+    public synchronized int getCachedChunkCount() {
+        return chunks.size();
+    }
+
+    private Chunk generateChunk(HexPoint chunkPos) {
+        // There are no continents in a lazy world, so every chunk gets an empty list
+        final Chunk chunk = Chunk.createChunkWithTiles(chunkPos, Collections.emptyList());
+        final long time = GeneralFuncs.timed(() -> {
+            for (ChunkGenerator generator : generators) {
+                final ChunkTaskEvent event =
+                    ChunkTaskEvent.start(generator.getClass().getSimpleName(), chunkPos);
+                generator.generateChunk(chunk);
+                event.commit();
+            }
+        });
+        logger.finer(String.format("Generated chunk %s in %d ms", chunkPos, time));
+        return chunk;
+    }
+}
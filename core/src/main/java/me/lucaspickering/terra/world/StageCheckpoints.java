@@ -0,0 +1,138 @@
+package me.lucaspickering.terra.world;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import me.lucaspickering.terra.world.generate.Generator;
+
+/**
+ * Saves the world after each stage of generation, so that when the parameters of one stage change,
+ * only that stage and the stages after it have to be run again.
+ *
+ * Each checkpoint is keyed by a hash of the generation version (see
+ * {@link Generator#GENERATION_VERSION}), the world's seed and size, and the class and parameters
+ * (see {@link Generator#describeParameters()}) of its stage and every stage before it. Changing a
+ * stage's parameters changes its key and the keys of every later stage, but the earlier stages'
+ * checkpoints stay valid. Checkpoints that become stale are never deleted.
+ *
+ * A checkpoint is a {@link WorldSnapshot} of the world. Generators don't share any random state
+ * (see {@link Generator#random(long)}), so the world is all that later stages need. Every stage's
+ * output has to be stored in the snapshot, including the tiles' runoff exits, so that resuming
+ * from any checkpoint gives the same world as generating from scratch.
+ */
+class StageCheckpoints {
+
+    private static final String WORLD_EXTENSION = ".world";
+
+    private final Path dir;
+    private final String[] fileNames; // Name of each stage's file, without an extension
+
+    /**
+     * Constructs a new set of checkpoints. The given generators are only used to calculate the key
+     * for each stage. They are never run.
+     *
+     * @param dir        the directory that checkpoints are stored in
+     * @param seed       the world's seed
+     * @param size       the world's radius, in chunks
+     * @param generators every stage of the pipeline, in order
+     */
+    StageCheckpoints(Path dir, long seed, int size, Generator[] generators) {
+        this.dir = dir;
+        final String[] keys = calcKeys(seed, size, generators);
+        fileNames = new String[generators.length];
+        for (int i = 0; i < generators.length; i++) {
+            fileNames[i] = String.format("%s_%s", generators[i].getClass().getSimpleName(),
+                                         keys[i]);
+        }
+    }
+
+    /**
+     * Calculates the checkpoint key for each stage in the given pipeline.
+     *
+     * Package visible for testing purposes.
+     *
+     * @param seed       the world's seed
+     * @param size       the world's radius, in chunks
+     * @param generators every stage of the pipeline, in order
+     * @return the key for each stage, by index
+     */
+    static String[] calcKeys(long seed, int size, Generator[] generators) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Every JVM has to support SHA-256
+        }
+
+        // Each key covers everything upstream of its stage, so build up one description
+        final StringBuilder description = new StringBuilder(String.format(
+            "snapshotVersion=%d generationVersion=%d seed=%d size=%d",
+            WorldSnapshot.VERSION, Generator.GENERATION_VERSION, seed, size));
+        final String[] keys = new String[generators.length];
+        for (int i = 0; i < generators.length; i++) {
+            description.append(String.format("\n%s: %s", generators[i].getClass().getName(),
+                                             generators[i].describeParameters()));
+            final byte[] hash =
+                digest.digest(description.toString().getBytes(StandardCharsets.UTF_8));
+            keys[i] = String.format("%016x", ByteBuffer.wrap(hash).getLong());
+        }
+        return keys;
+    }
+
+    /**
+     * Finds the latest stage that has a checkpoint.
+     *
+     * @return the index of the latest stage with a checkpoint, or -1 if there are none
+     */
+    int findLatest() {
+        return findLatestBefore(fileNames.length);
+    }
+
+    /**
+     * Finds the latest stage before the given one that has a checkpoint. This is used to fall
+     * back to an earlier checkpoint when a later one can't be loaded.
+     *
+     * @param stage the index of the stage to search before
+     * @return the index of the latest earlier stage with a checkpoint, or -1 if there are none
+     */
+    int findLatestBefore(int stage) {
+        for (stage--; stage >= 0; stage--) {
+            if (Files.exists(getWorldFile(stage))) {
+                return stage;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Loads the world as it was after the given stage.
+     *
+     * @param stage the index of the stage
+     * @return the loaded world
+     * @throws IOException if the checkpoint can't be read
+     */
+    World loadWorld(int stage) throws IOException {
+        return WorldSnapshot.read(getWorldFile(stage));
+    }
+
+    /**
+     * Saves a checkpoint for the given stage, replacing any existing checkpoint with the same key.
+     *
+     * @param stage the index of the stage that just finished
+     * @param world the world after the stage
+     * @throws IOException if the checkpoint can't be written
+     */
+    void save(int stage, World world) throws IOException {
+        Files.createDirectories(dir);
+        WorldSnapshot.write(world, getWorldFile(stage));
+    }
+
+    private Path getWorldFile(int stage) {
+        return dir.resolve(fileNames[stage] + WORLD_EXTENSION);
+    }
+}
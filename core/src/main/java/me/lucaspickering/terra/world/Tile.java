@@ -1,15 +1,18 @@
 package me.lucaspickering.terra.world;
 
-import java.util.EnumMap;
-import java.util.Map;
 import java.util.Objects;
 
 import me.lucaspickering.terra.util.Direction;
 import me.lucaspickering.terra.world.util.Chunk;
 import me.lucaspickering.terra.world.util.HexPoint;
 import me.lucaspickering.terra.world.util.HexPointable;
-import me.lucaspickering.terra.world.util.RunoffPattern;
+import me.lucaspickering.terra.world.util.TileColumns;
 
+/**
+ * A single tile in the world. A tile doesn't hold its own attributes; it is a lightweight view onto
+ * its slot in its chunk's {@link TileColumns}. All reads and writes go straight through to those
+ * columns, so any number of views onto the same position will always agree.
+ */
 public class Tile implements HexPointable {
 
     public static final int NUM_SIDES = Direction.values().length;
@@ -22,38 +25,36 @@ public class Tile implements HexPointable {
                                                     "Water: %.2f%n";
 
     private final HexPoint pos; // The position of this tile in the world (NOT chunk-relative)
+    private final Chunk chunk; // The chunk that this tile belongs to
+    private final TileColumns columns; // The columns that hold this tile's attributes
+    private final int index; // The offset of this tile within its chunk
 
-    private Chunk chunk; // The chunk that this tile belongs to
-    private Continent continent; // The continent that this tile belongs to
-
-    private Biome biome = Biome.NONE;
-
-    private double elevation;
-    private double humidity;
-
-    private double runoffLevel;
-    private Map<Direction, Double> runoffTraversed = new EnumMap<>(Direction.class);
-
-    private final RunoffPattern runoffPattern = new RunoffPattern(this);
 
     public Tile(HexPoint pos, Chunk chunk) {
         Objects.requireNonNull(pos);
         Objects.requireNonNull(chunk);
         this.pos = pos;
         this.chunk = chunk;
+        columns = chunk.getColumns();
+        index = Chunk.getTileIndex(pos);
     }
 
     public Chunk getChunk() {
         return chunk;
     }
 
-    public void setChunk(Chunk chunk) {
-        Objects.requireNonNull(chunk);
-        this.chunk = chunk;
+    /**
+     * Gets the offset of this tile within its chunk, i.e. the index of this tile's values in its
+     * chunk's {@link TileColumns}.
+     *
+     * @return the index of this tile within its chunk
+     */
+    public int getIndex() {
+        return index;
     }
 
     public Continent getContinent() {
-        return continent;
+        return chunk.getContinent(index);
     }
 
     /**
@@ -65,7 +66,7 @@ public class Tile implements HexPointable {
      * @param continent the new continent for this tile to belong to
      */
     public void setContinent(Continent continent) {
-        this.continent = continent;
+        chunk.setContinent(index, continent);
     }
 
     public final HexPoint pos() {
@@ -90,34 +91,34 @@ public class Tile implements HexPointable {
     }
 
     public final Biome biome() {
-        return biome;
+        return columns.getBiome(index);
     }
 
     public void setBiome(Biome biome) {
         Objects.requireNonNull(biome);
-        this.biome = biome;
+        columns.setBiome(index, biome);
     }
 
     public final double elevation() {
-        return elevation;
+        return columns.getElevation(index);
     }
 
     public void setElevation(double elevation) {
         // Coerce the elevation to be a valid value
-        this.elevation = World.ELEVATION_RANGE.coerce(elevation);
+        columns.setElevation(index, World.ELEVATION_RANGE.coerce(elevation));
     }
 
     public final double humidity() {
-        return humidity;
+        return columns.getHumidity(index);
     }
 
     public void setHumidity(double humidity) {
         // Coerce the elevation to be a valid value
-        this.humidity = World.HUMIDITY_RANGE.coerce(humidity);
+        columns.setHumidity(index, World.HUMIDITY_RANGE.coerce(humidity));
     }
 
     public double getRunoffLevel() {
-        return runoffLevel;
+        return columns.getRunoffLevel(index);
     }
 
     /**
@@ -134,8 +135,8 @@ public class Tile implements HexPointable {
         }
 
         // Onnly land tiles can take runoff - water tiles swallow it and move on with their days
-        if (biome.isLand()) {
-            runoffLevel += runoff;
+        if (biome().isLand()) {
+            columns.setRunoffLevel(index, columns.getRunoffLevel(index) + runoff);
             return runoff;
         }
         return 0.0;
@@ -147,13 +148,13 @@ public class Tile implements HexPointable {
      * @return the amount of runoff removed from this tile (i.e. its previous runoff level)
      */
     public double clearRunoff() {
-        final double remove = runoffLevel;
-        runoffLevel = 0.0;
+        final double remove = columns.getRunoffLevel(index);
+        columns.setRunoffLevel(index, 0.0);
         return remove;
     }
 
     public double getRunoffTraversed(Direction dir) {
-        return runoffTraversed.getOrDefault(dir, 0.0);
+        return columns.getRunoffTraversed(index, dir);
     }
 
     public void addRunoffTraversed(Direction dir, double traversed) {
@@ -162,22 +163,53 @@ public class Tile implements HexPointable {
                 "Runoff traversed must be positive, was [%f]", traversed));
         }
 
-        // Add the given amount to the given direction in the map. If the direction isn't in the
-        // map already, will use 0 as the existing aount.
-        runoffTraversed.put(dir, runoffTraversed.getOrDefault(dir, 0.0) + traversed);
+        columns.addRunoffTraversed(index, dir, traversed);
     }
 
-    public RunoffPattern getRunoffPattern() {
-        return runoffPattern;
+    /**
+     * Gets the directions of this tile's runoff exits. Bit {@code d} is set if the neighbor in the
+     * direction with ordinal {@code d} is an exit.
+     *
+     * @return this tile's exit mask (0 if it has no exits)
+     */
+    public int getRunoffExitMask() {
+        return columns.getRunoffExitMask(index);
+    }
+
+    /**
+     * Gets the portion of runoff from this tile that exits through its neighbor in the given
+     * direction.
+     *
+     * @param dir the direction of the neighbor
+     * @return the portion of runoff that exits through that neighbor, or 0 if it isn't an exit
+     */
+    public double getRunoffExitFactor(Direction dir) {
+        return columns.getRunoffExitFactor(index, dir);
+    }
+
+    /**
+     * Makes this tile's neighbor in the given direction a runoff exit.
+     *
+     * @param dir    the direction of the neighbor that runoff will exit through
+     * @param factor the portion of runoff from this tile that will exit through it (0, 1]
+     * @throws IllegalArgumentException if {@code factor} is outside of (0, 1]
+     */
+    public void addRunoffExit(Direction dir, double factor) {
+        if (factor <= 0.0 || factor > 1.0) {
+            throw new IllegalArgumentException(String.format(
+                "Runoff exit factor must be in (0, 1], was [%f]", factor));
+        }
+
+        columns.setRunoffExit(index, dir, factor);
     }
 
     public String info(boolean debug) {
         // If in debug mode, display extra debug info
-        final String info = String.format(INFO_STRING, biome.displayName(), elevation(),
+        final String info = String.format(INFO_STRING, biome().displayName(), elevation(),
                                           (int) (humidity() * 100));
         if (debug) {
             return info + String.format(DEBUG_INFO_STRING, pos, chunk.getPos(),
-                                        runoffLevel);
+                                        getRunoffLevel());
         }
         return info;
     }
@@ -193,8 +225,8 @@ public class Tile implements HexPointable {
 
         final Tile tile = (Tile) o;
         return Objects.equals(pos, tile.pos)
-               && Objects.equals(biome, tile.biome)
-               && Objects.equals(elevation, tile.elevation);
+               && Objects.equals(biome(), tile.biome())
+               && Objects.equals(elevation(), tile.elevation());
     }
 
     @Override
@@ -3,11 +3,14 @@ package me.lucaspickering.terra.world;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import me.lucaspickering.terra.util.Direction;
 import me.lucaspickering.terra.world.util.Chunk;
 import me.lucaspickering.terra.world.util.HexPoint;
 import me.lucaspickering.terra.world.util.HexPointSet;
+import me.lucaspickering.terra.world.util.NeighborConsumer;
 import me.lucaspickering.terra.world.util.TileSet;
 import me.lucaspickering.utils.range.DoubleRange;
 import me.lucaspickering.utils.range.Range;
@@ -35,15 +38,43 @@ public class World {
 
         @Override
         public Tile getByPoint(HexPoint point) {
+            return getByCoords(point.x(), point.y());
+        }
+
+        @Override
+        public Tile getByCoords(int x, int y) {
             // Find the chunk that contains the given point, then get the tile from that chunk
-            final HexPoint chunkPos = Chunk.getChunkPosForTile(point);
-            final Chunk chunk = chunks.getByPoint(chunkPos);
+            final Chunk chunk = getChunkForTile(x, y);
             if (chunk != null) {
-                return chunk.getTiles().getByPoint(point);
+                return chunk.getTile(Chunk.getTileIndex(x, y));
             }
             return null; // The chunk doesn't exist, therefore the tile doesn't exist
         }
 
+        @Override
+        protected <T> Map<HexPoint, T> createSimilarMap() {
+            if (chunks.isEmpty()) {
+                return super.createSimilarMap();
+            }
+
+            // Copies of the world's tiles are dense, covering the rectangle that contains every
+            // chunk. Most of that rectangle is taken up by chunks, so little space is wasted.
+            int minX = Integer.MAX_VALUE;
+            int minY = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE;
+            int maxY = Integer.MIN_VALUE;
+            for (Chunk chunk : chunks) {
+                minX = Math.min(minX, chunk.getPos().x());
+                minY = Math.min(minY, chunk.getPos().y());
+                maxX = Math.max(maxX, chunk.getPos().x());
+                maxY = Math.max(maxY, chunk.getPos().y());
+            }
+            return createDenseMap(minX * Chunk.SIDE_LENGTH,
+                                  minY * Chunk.SIDE_LENGTH,
+                                  (maxX + 1) * Chunk.SIDE_LENGTH - 1,
+                                  (maxY + 1) * Chunk.SIDE_LENGTH - 1);
+        }
+
         @Override
         public int size() {
             // Chunks have a constant size so we can calculate the total number of tiles from the
@@ -57,6 +88,12 @@ public class World {
             return new WorldTilesIterator();
         }
 
+        @Override
+        public Spliterator<Tile> spliterator() {
+            return new WorldTilesSpliterator(chunks.toArray(new Chunk[0]), 0,
+                                             chunks.size() * Chunk.TOTAL_TILES);
+        }
+
         @Override
         public boolean add(Tile tile) {
             throw new UnsupportedOperationException(); // Cannot add tiles
@@ -73,42 +110,60 @@ public class World {
         }
 
         /**
-         * Gets the set of all tiles adjacent to the given tile. This is an optimized version of
-         * {@link TileSet#getAdjacentTiles(HexPoint)}. The tiles in this container are divided by
-         * chunk. For a large majority of lookups, all adjacent tiles will be in the same chunk as
-         * the given ("host") tile. We can avoid doing unnecessary chunk lookups by first checking
-         * if the adjacent tile is in the same chunk as the host tile.
-         *
-         * @param tilePos the center of the search
-         * @return tiles adjacent to {@code tile}, in a direction:point map
+         * An optimized version of {@link TileSet#forEachNeighbor}. The tiles in this container are
+         * divided by chunk. For a large majority of lookups, the host tile is in the interior of
+         * its chunk, so all of its neighbors are in that same chunk. In that case we can skip the
+         * chunk lookup for each neighbor, and find it directly by its index in the chunk.
          */
         @Override
-        @NotNull
-        public Map<Direction, Tile> getAdjacentTiles(@NotNull HexPoint tilePos) {
-            Objects.requireNonNull(tilePos);
-            final Map<Direction, Tile> result = new EnumMap<>(Direction.class);
-            final Chunk hostChunk = chunks.getByPoint(Chunk.getChunkPosForTile(tilePos));
-
-            for (Direction dir : Direction.values()) {
-                final HexPoint otherPoint = dir.shift(tilePos); // Get the shifted point
-                final Tile otherTile;
-
-                // If the other tile is in the same chunk as the given tile, we already have that
-                // chunk on-hand so just look it up from there. Otherwise, look it up normally,
-                // which means it looks up the chunk, then the tile.
-                if (Chunk.getChunkPosForTile(otherPoint).equals(hostChunk.getPos())) {
-                    otherTile = hostChunk.getTiles().getByPoint(otherPoint);
-                } else {
-                    otherTile = getByPoint(otherPoint);
+        public void forEachNeighbor(int x, int y, @NotNull NeighborConsumer consumer) {
+            final Chunk hostChunk = getInteriorHostChunk(x, y);
+            if (hostChunk != null) {
+                final int index = Chunk.getTileIndex(x, y);
+                for (Direction dir : DIRECTIONS) {
+                    consumer.accept(dir, hostChunk.getTile(Chunk.getNeighborIndex(index, dir)));
                 }
+            } else {
+                super.forEachNeighbor(x, y, consumer); // Edge of a chunk, do the slow lookups
+            }
+        }
 
-                // If the other point is in the world, add it to the map
-                if (otherTile != null) {
-                    result.put(dir, otherTile);
+        /**
+         * An optimized version of {@link TileSet#anyNeighborMatches}.
+         *
+         * @see #forEachNeighbor
+         */
+        @Override
+        public boolean anyNeighborMatches(int x, int y, @NotNull Predicate<Tile> predicate) {
+            final Chunk hostChunk = getInteriorHostChunk(x, y);
+            if (hostChunk != null) {
+                final int index = Chunk.getTileIndex(x, y);
+                for (Direction dir : DIRECTIONS) {
+                    if (predicate.test(hostChunk.getTile(Chunk.getNeighborIndex(index, dir)))) {
+                        return true;
+                    }
                 }
+                return false;
             }
+            return super.anyNeighborMatches(x, y, predicate); // Edge of a chunk
+        }
+
+        /**
+         * Gets the chunk that contains the given tile, if that tile is in the interior of the
+         * chunk.
+         *
+         * @param x the x coord of the tile
+         * @param y the y coord of the tile
+         * @return the tile's chunk, or {@code null} if the tile is on the edge of its chunk or the
+         * chunk doesn't exist
+         */
+        private Chunk getInteriorHostChunk(int x, int y) {
+            return Chunk.isInteriorTile(x, y) ? getChunkForTile(x, y) : null;
+        }
 
-            return result;
+        private Chunk getChunkForTile(int x, int y) {
+            return chunks.getByCoords(Math.floorDiv(x, Chunk.SIDE_LENGTH),
+                                      Math.floorDiv(y, Chunk.SIDE_LENGTH));
         }
     }
 
@@ -145,6 +200,86 @@ public class World {
         }
     }
 
+    /**
+     * Splits the world's tiles by chunk, then by index range within a chunk. Each tile is
+     * identified by a position, which is its chunk's index in the array times
+     * {@link Chunk#TOTAL_TILES}, plus the tile's index within its chunk. Tiles are visited in the
+     * same order as {@link WorldTilesIterator}.
+     */
+    private static class WorldTilesSpliterator implements Spliterator<Tile> {
+
+        // Don't split a chunk into pieces smaller than this, it's not worth the overhead
+        private static final int MIN_SPLIT_SIZE = Chunk.TOTAL_TILES / 16;
+
+        private final Chunk[] chunks;
+        private int pos; // Position of the next tile to visit
+        private final int end; // Position after the last tile to visit
+
+        private WorldTilesSpliterator(Chunk[] chunks, int pos, int end) {
+            this.chunks = chunks;
+            this.pos = pos;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Tile> action) {
+            if (pos < end) {
+                action.accept(chunks[pos / Chunk.TOTAL_TILES].getTile(pos % Chunk.TOTAL_TILES));
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Tile> action) {
+            // Walk each chunk's tiles directly by index, rather than going tile by tile through
+            // tryAdvance
+            while (pos < end) {
+                final Chunk chunk = chunks[pos / Chunk.TOTAL_TILES];
+                final int chunkStart = pos - pos % Chunk.TOTAL_TILES;
+                final int chunkEnd = Math.min(end, chunkStart + Chunk.TOTAL_TILES);
+                for (int index = pos - chunkStart; index < chunkEnd - chunkStart; index++) {
+                    action.accept(chunk.getTile(index));
+                }
+                pos = chunkEnd;
+            }
+        }
+
+        @Override
+        public Spliterator<Tile> trySplit() {
+            final int remaining = end - pos;
+            final int mid;
+            if (remaining > Chunk.TOTAL_TILES) {
+                // Spans multiple chunks, so split on the chunk boundary closest to the middle
+                final int midChunk = (pos + remaining / 2 + Chunk.TOTAL_TILES / 2)
+                                     / Chunk.TOTAL_TILES;
+                mid = midChunk * Chunk.TOTAL_TILES;
+            } else if (remaining >= 2 * MIN_SPLIT_SIZE) {
+                mid = pos + remaining / 2; // Within one chunk, so split the index range in half
+            } else {
+                return null; // Too small to be worth splitting
+            }
+
+            if (mid <= pos || mid >= end) {
+                return null;
+            }
+            final Spliterator<Tile> prefix = new WorldTilesSpliterator(chunks, pos, mid);
+            pos = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - pos;
+        }
+
+        @Override
+        public int characteristics() {
+            return SIZED | SUBSIZED | NONNULL | DISTINCT;
+        }
+    }
+
     /**
      * Every tile's elevation must be in this range
      */
@@ -164,14 +299,23 @@ public class World {
 
     public World(long seed, int chunkRadius) {
         this.seed = seed;
+        continents = new ArrayList<>(); // Has to be initialized first, each chunk needs it
         chunks = initChunks(chunkRadius);
-        continents = new ArrayList<>();
     }
 
     /**
-     * Copy constructor.
+     * Constructs a world with no chunks. Used by {@link LazyWorld}, which generates its chunks
+     * itself, as they are needed.
+     */
+    World(long seed) {
+        this(seed, new HexPointSet<>(), new ArrayList<>());
+    }
+
+    /**
+     * Constructs a world from existing chunks and continents. No copies are made. Also used as a
+     * copy constructor.
      */
-    private World(long seed, HexPointSet<Chunk> chunks, List<Continent> continents) {
+    World(long seed, HexPointSet<Chunk> chunks, List<Continent> continents) {
         this.seed = seed;
         this.chunks = chunks;
         this.continents = continents;
@@ -181,7 +325,7 @@ public class World {
      * Initializes all chunks in the world, so that each tile belongs to exactly one chunk.
      */
     private HexPointSet<Chunk> initChunks(int radius) {
-        final HexPointSet<Chunk> result = new HexPointSet<>();
+        final HexPointSet<Chunk> result = new HexPointSet<>(-radius, -radius, radius, radius);
 
         // Iterate over x and y to create a "circle" of chunks with the given radius
         for (int x = -radius; x <= radius; x++) {
@@ -192,7 +336,7 @@ public class World {
             for (int y = minY; y <= maxY; y++) {
                 // Create a chunk at this location
                 final HexPoint pos = new HexPoint(x, y);
-                result.add(Chunk.createChunkWithTiles(pos));
+                result.add(Chunk.createChunkWithTiles(pos, continents));
             }
         }
 
@@ -215,6 +359,25 @@ public class World {
         return continents;
     }
 
+    /**
+     * Creates a world with a new seed that reuses the chunks and tiles of this world, rather than
+     * allocating new ones. Every tile is reset to the state it had when it was created. This world,
+     * and any copies of it, must not be used afterwards, because they share the same tiles.
+     *
+     * The reset runs on the calling thread. It's cheap next to generation, and running it in
+     * parallel would put it on the common pool, outside of the executor that generation runs on.
+     *
+     * @param newSeed the seed of the new world
+     * @return the new world, with the same chunks as this one
+     */
+    World recycle(long newSeed) {
+        for (Chunk chunk : chunks) {
+            chunk.getColumns().clear();
+        }
+        continents.clear();
+        return new World(newSeed, chunks, continents);
+    }
+
     public World immutableCopy() {
         return new World(seed,
                          chunks.immutableCopy(), // NO DEEP COPY
@@ -1,6 +1,13 @@
 package me.lucaspickering.terra.world;
 
-import java.util.Random;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import me.lucaspickering.terra.world.generate.*;
@@ -17,73 +24,287 @@ public class WorldHandler {
 
     private static final int DEFAULT_CHUNK_RADIUS = 1; // Default radius of the world, in chunks
 
+    // For a lazy world, the distance from the chunk under the camera to the farthest chunk that is
+    // kept loaded, in chunks. Each chunk is 7500 units across, so this reaches about as far as
+    // the lowest level of detail starts.
+    public static final int LAZY_CHUNK_RADIUS = 4;
+    // The cache holds twice the chunks in range, so moving around never evicts chunks in range
+    private static final int LAZY_MAX_CHUNKS =
+        2 * LazyWorld.getChunkCountInRange(LAZY_CHUNK_RADIUS);
+
     private final Logger logger = Logger.getLogger(getClass().getName());
     private final long seed;
     private final int size; // Radius of the world
 
+    private NoiseNormalization noiseNormalization = NoiseNormalization.GLOBAL;
+    private Executor executor = ForkJoinPool.commonPool();
+    private Path checkpointDir; // null means no checkpoints
+    private boolean lazy;
+    private LazyWorld lazyWorld; // Only set for lazy handlers
     private World world;
-    private Random random;
+    private World mutableWorld; // The world that the immutable copy was made from
+    private World recycledWorld; // A world whose storage will be reused by the next generation
 
     public WorldHandler(long seed) {
         this(seed, DEFAULT_CHUNK_RADIUS);
     }
 
-    // Package visible for benchmarking purposes
-    WorldHandler(long seed, int size) {
+    /**
+     * Constructs a new handler for a world of the given size.
+     *
+     * @param seed the world's seed
+     * @param size the world's radius, in chunks
+     */
+    public WorldHandler(long seed, int size) {
         this.seed = seed;
         this.size = size;
     }
 
+    /**
+     * Sets how noise values are normalized during generation. The default is
+     * {@link NoiseNormalization#GLOBAL}. This only affects worlds generated after it is called.
+     *
+     * @param noiseNormalization the normalization for all noise generators to use
+     */
+    public void setNoiseNormalization(NoiseNormalization noiseNormalization) {
+        this.noiseNormalization = noiseNormalization;
+    }
+
+    /**
+     * Sets the executor that generator stages are run on. The default is the common fork-join
+     * pool. This only affects worlds generated after it is called.
+     *
+     * @param executor the executor for generator stages to run on
+     * @see GeneratorScheduler
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the directory that the world is checkpointed to after each generation stage. When a
+     * stage's parameters change, generation resumes from the checkpoint of the last stage before
+     * it. By default, there are no checkpoints. This only affects worlds generated after it is
+     * called.
+     *
+     * @param checkpointDir the directory to store checkpoints in, or {@code null} to disable
+     *                      checkpoints
+     * @see StageCheckpoints
+     */
+    public void setCheckpointDir(Path checkpointDir) {
+        this.checkpointDir = checkpointDir;
+    }
+
+    /**
+     * Sets whether this handler makes a {@link LazyWorld}, whose chunks are generated when they are
+     * first asked for, instead of a {@link World} that is generated all at once. A lazy world has
+     * no edges, but it only has the features that can be generated one chunk at a time. Its size,
+     * checkpoints and snapshots are ignored. It is meant to be loaded {@link #LAZY_CHUNK_RADIUS}
+     * chunks around the camera, and its cache is sized to match. The default is {@code false}.
+     * This only affects worlds generated after it is called.
+     *
+     * @param lazy {@code true} to make lazy worlds, {@code false} otherwise
+     * @see #getLazyWorld
+     */
+    public void setLazy(boolean lazy) {
+        this.lazy = lazy;
+    }
+
     /**
      * Generates a new set of tiles to represent this world. This method does not return until the
-     * generation process is complete.
+     * generation process is complete. For a lazy handler (see {@link #setLazy}), this just
+     * creates the world, and no chunks are generated until they are asked for.
      */
     public void generate() {
-        random = new Random(seed); // Init the Random instance
+        if (lazy) {
+            lazyWorld = new LazyWorld(seed, LAZY_MAX_CHUNKS);
+            world = null;
+            mutableWorld = null;
+            logger.info(String.format("Created lazy world with seed %d", seed));
+            return;
+        }
+
+        lazyWorld = null;
 
         // Generate the world, and time how long it takes
         final long time = GeneralFuncs.timed(() -> {
-            final World world = new World(seed, size);
-            final Generator[] generators = makeGenerators(world, random); // Initialize generators
-
-            // Apply each generator in sequence (this is the heavy lifting)
-            for (Generator generator : generators) {
-                runGenerator(generator);
-            }
-
+            final World world = checkpointDir != null ? generateWithCheckpoints() : generateAll();
+            mutableWorld = world;
             this.world = world.immutableCopy(); // Make an immutable copy and save it for the class
         });
         logger.info(String.format("Generated %d chunks, %s tiles in %d ms",
                                   world.getChunks().size(), world.getTiles().size(), time));
     }
 
-    private Generator[] makeGenerators(World world, Random random) {
-        return new Generator[]{
-            new NoiseElevationGenerator(world, random),
-            new NoiseHumidityGenerator(world, random),
-            new OceanGenerator(world, random),
-            new BiomePainter(world, random),
-            new ContinentClusterer(world, random),
-            new CoastGenerator(world, random),
-            new RunoffGenerator(world, random),
-//            new LakeGenerator(world, random),
-        };
+    /**
+     * Loads this world from a snapshot in the given directory, if there is one. Otherwise, the
+     * world is generated, then a snapshot is saved to the directory so that the next load is
+     * fast. Each combination of seed, size, noise normalization and generation version (see
+     * {@link Generator#GENERATION_VERSION}) gets its own snapshot, so snapshots of worlds made by
+     * older generation code are never loaded. If the snapshot can't be read or written, the world
+     * is still generated, and a warning is logged. Lazy worlds are never saved, so for a lazy
+     * handler, this is the same as {@link #generate}.
+     *
+     * @param snapshotDir the directory that holds snapshots
+     * @see WorldSnapshot
+     */
+    public void generateOrLoad(Path snapshotDir) {
+        if (lazy) {
+            generate();
+            return;
+        }
+
+        final Path snapshotFile = snapshotDir.resolve(
+            String.format("%d_%d_%s_v%d.world", seed, size, noiseNormalization,
+                          Generator.GENERATION_VERSION));
+        if (Files.exists(snapshotFile)) {
+            mutableWorld = null;
+            final long time = GeneralFuncs.timed(() -> mutableWorld = loadSnapshot(snapshotFile));
+            if (mutableWorld != null) {
+                world = mutableWorld.immutableCopy();
+                logger.info(String.format("Loaded %d chunks from %s in %d ms",
+                                          world.getChunks().size(), snapshotFile, time));
+                return;
+            }
+        }
+
+        generate();
+        try {
+            Files.createDirectories(snapshotDir);
+            WorldSnapshot.write(world, snapshotFile);
+            logger.info(String.format("Saved world snapshot to %s", snapshotFile));
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to save world snapshot", e);
+        }
+    }
+
+    /**
+     * Creates a handler for a new seed, with the same settings as this one. The new handler's first
+     * generation reuses the chunks and tiles of this handler's world, rather than allocating new
+     * ones, so this handler's world must not be used after this is called. If this handler hasn't
+     * generated a world, the new handler allocates its own.
+     *
+     * @param newSeed the seed for the new handler
+     * @return the new handler
+     */
+    public WorldHandler recycle(long newSeed) {
+        final WorldHandler handler = new WorldHandler(newSeed, size);
+        handler.noiseNormalization = noiseNormalization;
+        handler.executor = executor;
+        handler.checkpointDir = checkpointDir;
+        handler.lazy = lazy;
+        handler.recycledWorld = mutableWorld;
+        world = null;
+        mutableWorld = null;
+        return handler;
+    }
+
+    private World generateAll() {
+        final World world = createWorld();
+        final Generator[] generators = makeGenerators(world, noiseNormalization);
+
+        // Apply each generator, overlapping independent stages (this is the heavy lifting)
+        new GeneratorScheduler(world, Arrays.asList(generators), executor).run();
+        return world;
+    }
+
+    private World generateWithCheckpoints() {
+        // These generators are only used to calculate the checkpoint keys, so an empty world works
+        final StageCheckpoints checkpoints = new StageCheckpoints(
+            checkpointDir, seed, size,
+            makeGenerators(new World(seed), noiseNormalization));
+
+        // Resume from the latest stage that still has a valid checkpoint. If a checkpoint can't be
+        // loaded, fall back to the ones before it, which are still good.
+        World world = null;
+        int latestStage = checkpoints.findLatest();
+        while (world == null && latestStage >= 0) {
+            try {
+                world = checkpoints.loadWorld(latestStage);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, String.format(
+                    "Failed to load checkpoint for stage %d, trying an earlier one",
+                    latestStage), e);
+                latestStage = checkpoints.findLatestBefore(latestStage);
+            }
+        }
+        if (world == null) {
+            world = createWorld();
+        }
+
+        // Run the remaining stages one at a time, so that each checkpoint only has the output of
+        // its own stage and the ones before it
+        final Generator[] generators = makeGenerators(world, noiseNormalization);
+        logger.fine(String.format("Resuming generation at stage %d of %d",
+                                  latestStage + 1, generators.length));
+        for (int stage = latestStage + 1; stage < generators.length; stage++) {
+            new GeneratorScheduler(world, Collections.singletonList(generators[stage]), executor)
+                .run();
+            try {
+                checkpoints.save(stage, world);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to save checkpoint", e);
+            }
+        }
+        return world;
+    }
+
+    /**
+     * Creates an empty world to generate, reusing the recycled world if there is one.
+     */
+    private World createWorld() {
+        if (recycledWorld != null) {
+            final World world = recycledWorld.recycle(seed);
+            recycledWorld = null;
+            return world;
+        }
+        return new World(seed, size);
     }
 
-    private void runGenerator(Generator generator) {
-        final long time = GeneralFuncs.timed(generator::generate);
-        logger.fine(String.format("Generator stage %s took %d ms",
-                                  generator.getClass().getSimpleName(), time));
+    private World loadSnapshot(Path snapshotFile) {
+        try {
+            return WorldSnapshot.read(snapshotFile);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, String.format(
+                "Failed to load world snapshot %s, regenerating", snapshotFile), e);
+            return null;
+        }
+    }
+
+    // Package visible for benchmarking purposes
+    static Generator[] makeGenerators(World world) {
+        return makeGenerators(world, NoiseNormalization.GLOBAL);
+    }
+
+    private static Generator[] makeGenerators(World world, NoiseNormalization noiseNormalization) {
+        return new Generator[]{
+            new NoiseTerrainGenerator(world, noiseNormalization),
+            new OceanGenerator(world),
+            new BiomePainter(world),
+            new ContinentClusterer(world),
+            new CoastGenerator(world),
+            new RunoffGenerator(world),
+//            new LakeGenerator(world),
+        };
     }
 
     /**
      * Gets the current world for this handler. No copy is made, but the returned object is
      * immutable.
      *
-     * @return the world
+     * @return the world, or {@code null} if this handler is lazy (see {@link #getLazyWorld})
      */
     public World getWorld() {
         return world;
     }
 
+    /**
+     * Gets the current lazy world for this handler (see {@link #setLazy}).
+     *
+     * @return the lazy world, or {@code null} if this handler isn't lazy
+     */
+    public LazyWorld getLazyWorld() {
+        return lazyWorld;
+    }
+
 }
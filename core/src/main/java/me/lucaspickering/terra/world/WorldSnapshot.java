@@ -0,0 +1,243 @@
+package me.lucaspickering.terra.world;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import me.lucaspickering.terra.world.util.Chunk;
+import me.lucaspickering.terra.world.util.Cluster;
+import me.lucaspickering.terra.world.util.HexPoint;
+import me.lucaspickering.terra.world.util.HexPointSet;
+import me.lucaspickering.terra.world.util.TileColumns;
+
+/**
+ * Reads and writes binary snapshots of a {@link World}. A snapshot holds every column of every
+ * chunk, so a world can be loaded without being generated again.
+ *
+ * The format is a header followed by one fixed-size block for each chunk. All values are
+ * big-endian.
+ * <ul>
+ * <li>Header: magic number (int), version (int), seed (long), chunk count (int), continent count
+ * (int), the x and y of each chunk (int, int), the tile count of each continent (int), then padding
+ * to a multiple of 8 bytes</li>
+ * <li>Each chunk, in the same order as the header: elevations, humidities and runoff levels
+ * ({@link Chunk#TOTAL_TILES} doubles each), runoff exit factors ({@link Tile#NUM_SIDES} doubles
+ * per tile, by direction ordinal), continent IDs (shorts), biome ordinals (bytes), then runoff exit
+ * masks (bytes)</li>
+ * </ul>
+ *
+ * Each chunk's block is memory-mapped and bulk-copied into its columns, so nothing is parsed tile
+ * by tile, and the OS only reads each chunk from disk as it's copied. Continents are rebuilt from
+ * the continent ID column. Runoff exits are stored the same way as in {@link TileColumns}: bit
+ * {@code d} of a tile's mask is set if its neighbor in the direction with ordinal {@code d} is an
+ * exit, and the matching exit factor is the portion of runoff that goes to that neighbor. Exit
+ * factors of directions that aren't exits are 0.
+ *
+ * Biomes are stored by ordinal, so {@link #VERSION} must be bumped whenever the constants in
+ * {@link Biome} change, as well as whenever the layout changes.
+ */
+public class WorldSnapshot {
+
+    public static final int VERSION = 2;
+
+    private static final int MAGIC = 0x54455252; // "TERR"
+    private static final int FIXED_HEADER_BYTES = 24; // Everything up to the chunk positions
+    private static final int EXIT_FACTORS = Chunk.TOTAL_TILES * Tile.NUM_SIDES; // Per chunk
+    private static final int DOUBLE_BYTES = (3 * Chunk.TOTAL_TILES + EXIT_FACTORS) * Double.BYTES;
+    private static final int CHUNK_BYTES = DOUBLE_BYTES
+                                           + Chunk.TOTAL_TILES * (Short.BYTES + 2 * Byte.BYTES);
+
+    private WorldSnapshot() {
+        // This should never be instantiated
+    }
+
+    /**
+     * Writes a snapshot of the given world to the given file, replacing it if it exists. The
+     * snapshot is written to a temporary file in the same directory, then moved into place in one
+     * atomic step, so if writing fails partway through (or the process dies), the file at
+     * {@code path} is either the old one or doesn't exist. It's never a partial snapshot.
+     *
+     * @param world the world to save
+     * @param path  the file to write to
+     * @throws IOException if the file can't be written
+     */
+    public static void write(World world, Path path) throws IOException {
+        final Path dir = path.toAbsolutePath().getParent();
+        final Path tempFile = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+        try {
+            writeTo(world, tempFile);
+            Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile); // Only still there if something went wrong
+        }
+    }
+
+    private static void writeTo(World world, Path path) throws IOException {
+        final List<Chunk> chunks = new ArrayList<>(world.getChunks());
+        final List<Continent> continents = world.getContinents();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer header =
+                ByteBuffer.allocate(getHeaderSize(chunks.size(), continents.size()));
+            header.putInt(MAGIC).putInt(VERSION).putLong(world.getSeed())
+                .putInt(chunks.size()).putInt(continents.size());
+            for (Chunk chunk : chunks) {
+                header.putInt(chunk.getPos().x()).putInt(chunk.getPos().y());
+            }
+            for (Continent continent : continents) {
+                header.putInt(continent.getTiles().size());
+            }
+            header.position(header.limit()); // Skip the padding
+            header.flip();
+            writeFully(channel, header);
+
+            // Re-use one buffer for every chunk
+            final ByteBuffer chunkBuffer = ByteBuffer.allocateDirect(CHUNK_BYTES);
+            for (Chunk chunk : chunks) {
+                final TileColumns columns = chunk.getColumns();
+                chunkBuffer.clear();
+                chunkBuffer.asDoubleBuffer().put(columns.getElevations())
+                    .put(columns.getHumidities()).put(columns.getRunoffLevels())
+                    .put(columns.getRunoffExitFactors());
+                chunkBuffer.position(DOUBLE_BYTES);
+                chunkBuffer.asShortBuffer().put(columns.getContinentIds());
+                chunkBuffer.position(chunkBuffer.position() + Chunk.TOTAL_TILES * Short.BYTES);
+                chunkBuffer.put(columns.getBiomeOrdinals()).put(columns.getRunoffExitMasks());
+                chunkBuffer.flip();
+                writeFully(channel, chunkBuffer);
+            }
+            channel.force(false); // Make sure it's all on disk before it replaces anything
+        }
+    }
+
+    /**
+     * Reads a world from a snapshot file.
+     *
+     * @param path the file to read
+     * @return the world in the snapshot
+     * @throws IOException if the file can't be read, isn't a snapshot, was written by a different
+     *                     version, or is truncated
+     */
+    public static World read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer fixedHeader = readFully(channel, 0, FIXED_HEADER_BYTES, path);
+            if (fixedHeader.getInt() != MAGIC) {
+                throw new IOException(String.format("Not a world snapshot: %s", path));
+            }
+            final int version = fixedHeader.getInt();
+            if (version != VERSION) {
+                throw new IOException(String.format(
+                    "Snapshot %s has version %d, expected %d", path, version, VERSION));
+            }
+            final long seed = fixedHeader.getLong();
+            final int numChunks = fixedHeader.getInt();
+            final int numContinents = fixedHeader.getInt();
+            if (numChunks < 0 || numContinents < 0 || numContinents > Short.MAX_VALUE) {
+                throw new IOException(String.format("Corrupt snapshot header: %s", path));
+            }
+
+            // Make sure the file is exactly as big as the header says it should be
+            final int headerSize = getHeaderSize(numChunks, numContinents);
+            if (channel.size() != headerSize + (long) numChunks * CHUNK_BYTES) {
+                throw new IOException(String.format("Truncated snapshot: %s", path));
+            }
+
+            final ByteBuffer header = readFully(channel, FIXED_HEADER_BYTES,
+                                                headerSize - FIXED_HEADER_BYTES, path);
+            final HexPoint[] chunkPositions = new HexPoint[numChunks];
+            for (int i = 0; i < numChunks; i++) {
+                chunkPositions[i] = new HexPoint(header.getInt(), header.getInt());
+            }
+            final Cluster[] continentTiles = new Cluster[numContinents];
+            final int[] continentSizes = new int[numContinents];
+            for (int i = 0; i < numContinents; i++) {
+                continentTiles[i] = new Cluster();
+                continentSizes[i] = header.getInt();
+            }
+
+            // Create each chunk and map its block. The mappings stay valid after the channel is
+            // closed, and nothing is read from disk until the columns are copied.
+            final List<Continent> continents = new ArrayList<>(numContinents);
+            final Chunk[] chunks = new Chunk[numChunks];
+            final MappedByteBuffer[] blocks = new MappedByteBuffer[numChunks];
+            for (int i = 0; i < numChunks; i++) {
+                chunks[i] = Chunk.createChunkWithTiles(chunkPositions[i], continents);
+                blocks[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                                        headerSize + (long) i * CHUNK_BYTES, CHUNK_BYTES);
+            }
+
+            // Copy each block into its chunk's columns. This can be done in parallel.
+            IntStream.range(0, numChunks).parallel().forEach(i -> {
+                final TileColumns columns = chunks[i].getColumns();
+                final ByteBuffer block = blocks[i];
+                block.asDoubleBuffer().get(columns.getElevations())
+                    .get(columns.getHumidities()).get(columns.getRunoffLevels())
+                    .get(columns.getRunoffExitFactors());
+                block.position(DOUBLE_BYTES);
+                block.asShortBuffer().get(columns.getContinentIds());
+                block.position(block.position() + Chunk.TOTAL_TILES * Short.BYTES);
+                block.get(columns.getBiomeOrdinals()).get(columns.getRunoffExitMasks());
+            });
+
+            // Rebuild the continents from the continent ID of each tile
+            final HexPointSet<Chunk> chunkSet = new HexPointSet<>();
+            for (Chunk chunk : chunks) {
+                chunkSet.add(chunk);
+                final short[] continentIds = chunk.getColumns().getContinentIds();
+                for (int index = 0; index < Chunk.TOTAL_TILES; index++) {
+                    final int id = continentIds[index];
+                    if (id < 0 || id > numContinents) {
+                        throw new IOException(String.format(
+                            "Invalid continent ID %d in snapshot %s", id, path));
+                    }
+                    if (id != 0) {
+                        continentTiles[id - 1].add(chunk.getTile(index));
+                    }
+                }
+            }
+            for (int i = 0; i < numContinents; i++) {
+                if (continentTiles[i].size() != continentSizes[i]) {
+                    throw new IOException(String.format(
+                        "Continent %d has %d tiles, expected %d, in snapshot %s",
+                        i + 1, continentTiles[i].size(), continentSizes[i], path));
+                }
+                continents.add(new Continent(i + 1, continentTiles[i]));
+            }
+
+            return new World(seed, chunkSet, continents);
+        }
+    }
+
+    private static int getHeaderSize(int numChunks, int numContinents) {
+        final int size = FIXED_HEADER_BYTES + numChunks * 2 * Integer.BYTES
+                         + numContinents * Integer.BYTES;
+        return (size + 7) / 8 * 8; // Pad to a multiple of 8, so that each chunk is aligned
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int size, Path path)
+        throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException(String.format("Truncated snapshot: %s", path));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
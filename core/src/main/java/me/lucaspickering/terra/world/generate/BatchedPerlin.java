@@ -0,0 +1,162 @@
+package me.lucaspickering.terra.world.generate;
+
+import com.flowpowered.noise.NoiseQuality;
+import com.flowpowered.noise.Utils;
+import com.flowpowered.noise.module.source.Perlin;
+
+/**
+ * Evaluates the same noise as a {@link Perlin} module, but for many points at once. Every point
+ * goes through exactly the same arithmetic as {@link Perlin#getValue}, so the values are identical.
+ * What changes is the order: each octave is evaluated for a whole row of points before moving onto
+ * the next one, so anything that is the same for the whole row is only calculated once per octave.
+ * The inner loop runs over flat arrays, with no virtual calls or allocation. The caller passes in
+ * the scratch space for each row, so that it can be re-used from row to row.
+ *
+ * The settings of the {@link Perlin} module are copied when this is constructed, so later changes
+ * to the module have no effect here.
+ */
+final class BatchedPerlin {
+
+    // Constants for the lattice hash. These have to match the ones used by libnoise.
+    private static final int X_NOISE_GEN = 1619;
+    private static final int Y_NOISE_GEN = 31337;
+    private static final int Z_NOISE_GEN = 6971;
+    private static final int SEED_NOISE_GEN = 1013;
+    private static final int SHIFT_NOISE_GEN = 8;
+    private static final double GRADIENT_SCALE = 2.12; // Scales values to roughly [-1, 1]
+
+    private static final double[] RANDOM_VECTORS = Utils.RANDOM_VECTORS;
+
+    private final double frequency;
+    private final double lacunarity;
+    private final double persistence;
+    private final int octaveCount;
+    private final int seed;
+    private final NoiseQuality quality;
+
+    BatchedPerlin(Perlin perlin) {
+        frequency = perlin.getFrequency();
+        lacunarity = perlin.getLacunarity();
+        persistence = perlin.getPersistence();
+        octaveCount = perlin.getOctaveCount();
+        seed = perlin.getSeed();
+        quality = perlin.getNoiseQuality();
+    }
+
+    /**
+     * Evaluates the noise at each point in a row that runs parallel to the yz plane, i.e. every
+     * point has the same x coord. Each point's value is the same as {@link Perlin#getValue}.
+     *
+     * @param x        the x coord of every point
+     * @param ys       the y coord of each point
+     * @param zs       the z coord of each point
+     * @param count    the number of points, starting at index 0 of each coord array
+     * @param octaveYs scratch space for the y coords, at least {@code count} long (overwritten)
+     * @param octaveZs scratch space for the z coords, at least {@code count} long (overwritten)
+     * @param out      the array to write the values to
+     * @param offset   the index in {@code out} to write the first value to
+     */
+    void getRow(double x, double[] ys, double[] zs, int count, double[] octaveYs,
+                double[] octaveZs, double[] out, int offset) {
+        // Coords for the current octave, which are scaled up by the lacunarity after each one
+        double octaveX = x * frequency;
+        for (int i = 0; i < count; i++) {
+            octaveYs[i] = ys[i] * frequency;
+            octaveZs[i] = zs[i] * frequency;
+            out[offset + i] = 0.0;
+        }
+
+        double curPersistence = 1.0;
+        for (int octave = 0; octave < octaveCount; octave++) {
+            addOctave(octaveX, octaveYs, octaveZs, count, seed + octave, curPersistence,
+                      out, offset);
+            octaveX *= lacunarity;
+            for (int i = 0; i < count; i++) {
+                octaveYs[i] *= lacunarity;
+                octaveZs[i] *= lacunarity;
+            }
+            curPersistence *= persistence;
+        }
+    }
+
+    /**
+     * Adds one octave of coherent gradient noise to each point's value. Everything that only
+     * depends on x is calculated once for the whole row.
+     */
+    private void addOctave(double octaveX, double[] ys, double[] zs, int count, int octaveSeed,
+                           double curPersistence, double[] out, int offset) {
+        final double x = Utils.makeInt32Range(octaveX);
+        final int x0 = x > 0.0 ? (int) x : (int) x - 1;
+        final double dx0 = x - x0; // Offset from the near corner
+        final double dx1 = x - (x0 + 1); // Offset from the far corner
+        final double sx = sCurve(dx0);
+
+        // Each corner's lattice hash is a sum of one term per axis (and the seed), so the x terms
+        // are shared by every point
+        final int hx0 = X_NOISE_GEN * x0 + SEED_NOISE_GEN * octaveSeed;
+        final int hx1 = hx0 + X_NOISE_GEN;
+
+        for (int i = 0; i < count; i++) {
+            final double y = Utils.makeInt32Range(ys[i]);
+            final double z = Utils.makeInt32Range(zs[i]);
+            final int y0 = y > 0.0 ? (int) y : (int) y - 1;
+            final int z0 = z > 0.0 ? (int) z : (int) z - 1;
+            final double dy0 = y - y0;
+            final double dz0 = z - z0;
+            final double dy1 = y - (y0 + 1);
+            final double dz1 = z - (z0 + 1);
+            final double sy = sCurve(dy0);
+            final double sz = sCurve(dz0);
+            final int hy0 = Y_NOISE_GEN * y0;
+            final int hy1 = hy0 + Y_NOISE_GEN;
+            final int hz0 = Z_NOISE_GEN * z0;
+            final int hz1 = hz0 + Z_NOISE_GEN;
+
+            // Same order of operations as Noise.gradientCoherentNoise3D, so the values match
+            double ix0 = lerp(gradient(hx0 + hy0 + hz0, dx0, dy0, dz0),
+                              gradient(hx1 + hy0 + hz0, dx1, dy0, dz0), sx);
+            double ix1 = lerp(gradient(hx0 + hy1 + hz0, dx0, dy1, dz0),
+                              gradient(hx1 + hy1 + hz0, dx1, dy1, dz0), sx);
+            final double iy0 = lerp(ix0, ix1, sy);
+            ix0 = lerp(gradient(hx0 + hy0 + hz1, dx0, dy0, dz1),
+                       gradient(hx1 + hy0 + hz1, dx1, dy0, dz1), sx);
+            ix1 = lerp(gradient(hx0 + hy1 + hz1, dx0, dy1, dz1),
+                       gradient(hx1 + hy1 + hz1, dx1, dy1, dz1), sx);
+            final double iy1 = lerp(ix0, ix1, sy);
+
+            out[offset + i] += lerp(iy0, iy1, sz) * curPersistence;
+        }
+    }
+
+    private double sCurve(double a) {
+        switch (quality) {
+            case FAST:
+                return a;
+            case STANDARD:
+                return Utils.sCurve3(a);
+            case BEST:
+                return Utils.sCurve5(a);
+            default:
+                throw new IllegalStateException(String.format("Unknown noise quality %s",
+                                                              quality));
+        }
+    }
+
+    /**
+     * Calculates the value of one corner's gradient at a point.
+     *
+     * @param hash the corner's lattice hash, before it is mixed
+     * @param dx   the x offset of the point from the corner
+     * @param dy   the y offset of the point from the corner
+     * @param dz   the z offset of the point from the corner
+     */
+    private static double gradient(int hash, double dx, double dy, double dz) {
+        final int index = ((hash ^ (hash >> SHIFT_NOISE_GEN)) & 0xff) << 2;
+        return ((RANDOM_VECTORS[index] * dx) + (RANDOM_VECTORS[index + 1] * dy)
+                + (RANDOM_VECTORS[index + 2] * dz)) * GRADIENT_SCALE;
+    }
+
+    private static double lerp(double n0, double n1, double a) {
+        return ((1.0 - a) * n0) + (a * n1);
+    }
+}
@@ -1,25 +1,35 @@
 package me.lucaspickering.terra.world.generate;
 
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.Map;
-import java.util.Random;
-import java.util.function.BiPredicate;
+import java.util.Set;
 
 import me.lucaspickering.terra.world.Biome;
-import me.lucaspickering.terra.world.Tile;
 import me.lucaspickering.terra.world.World;
+import me.lucaspickering.terra.world.util.Chunk;
+import me.lucaspickering.terra.world.util.TileColumns;
 
 /**
  * Paints biomes onto each continent. Without adjusting elevation, each tile is assigned a land
  * biome. The biomes are assigned in blotches. These tiles can be changed to other biomes (e.g.
  * ocean, lake) later on, and can have the elevation adjusted. This is a very early step in the
  * generation process.
+ *
+ * Rather than testing every biome's region for every tile, biomes are looked up in a table that
+ * divides the elevation/humidity graph into a grid of cells. Most cells are entirely inside one
+ * biome's region, so every tile in them gets that biome. Only tiles in cells that a region boundary
+ * passes through are tested against the regions directly, so the result is always exactly the same
+ * as testing every tile.
  */
-public class BiomePainter extends Generator {
+public class BiomePainter extends Generator implements ChunkGenerator {
 
-    // Basically a typedef, for convenience. Takes an elevation and a humidity.
-    private interface BiomeFunction extends BiPredicate<Double, Double> {
+    private static final long STREAM_ID = 5;
 
+    // Takes an elevation and a humidity. Primitive arguments, so nothing is boxed for each tile.
+    private interface BiomeFunction {
+
+        boolean test(double elevation, double humidity);
     }
 
     // These functions represent a 2D graph of humidity:elevation, where there is a region of the
@@ -36,36 +46,138 @@ public class BiomePainter extends Generator {
             put(Biome.PLAINS, (e, h) -> true); // Default case
         }};
 
-    public BiomePainter(World world, Random random) {
-        super(world, random);
+    // Number of cells along each axis of the lookup table
+    private static final int ELEVATION_CELLS = 256;
+    private static final int HUMIDITY_CELLS = 256;
+
+    // Marks a cell in the lookup table that a region boundary passes through
+    private static final byte BOUNDARY_CELL = -1;
+
+    private static final Biome[] BIOMES = Biome.values(); // Cached so we don't copy on each lookup
+    private static final double MIN_ELEVATION = World.ELEVATION_RANGE.lower();
+    private static final double MIN_HUMIDITY = World.HUMIDITY_RANGE.lower();
+    private static final double ELEVATION_CELL_SIZE =
+        (World.ELEVATION_RANGE.upper() - MIN_ELEVATION) / ELEVATION_CELLS;
+    private static final double HUMIDITY_CELL_SIZE =
+        (World.HUMIDITY_RANGE.upper() - MIN_HUMIDITY) / HUMIDITY_CELLS;
+
+    // Biome ordinal for each cell, indexed by elevation cell * HUMIDITY_CELLS + humidity cell
+    private static final byte[] biomeTable = buildBiomeTable();
+
+    public BiomePainter(World world) {
+        super(world, STREAM_ID);
     }
 
     @Override
     public void generate() {
-        // Compute the biome for each tile. This can be done in parallel.
-        world().getTiles().parallelStream()
-            .filter(t -> !t.biome().isWater()) // Don't re-compute for water tiles
-            .forEach(t -> t.setBiome(computeBiome(t)));
+        // Compute the biome for each tile. Chunks are independent, so this can be done in parallel.
+        world().getChunks().parallelStream().forEach(this::generateChunk);
+    }
+
+    @Override
+    public Set<TileAttribute> getReads() {
+        return EnumSet.of(TileAttribute.ELEVATION, TileAttribute.HUMIDITY, TileAttribute.BIOME);
+    }
+
+    @Override
+    public Set<TileAttribute> getWrites() {
+        return EnumSet.of(TileAttribute.BIOME);
+    }
+
+    @Override
+    public void generateChunk(Chunk chunk) {
+        final TileColumns columns = chunk.getColumns();
+        final double[] elevations = columns.getElevations();
+        final double[] humidities = columns.getHumidities();
+        final byte[] biomes = columns.getBiomeOrdinals();
+        for (int index = 0; index < Chunk.TOTAL_TILES; index++) {
+            if (!BIOMES[biomes[index]].isWater()) { // Don't re-compute for water tiles
+                biomes[index] = lookupBiome(elevations[index], humidities[index]);
+            }
+        }
     }
 
     /**
-     * Computes a biome for the tile, as a function of elevation and humidity.
-     *
-     * @param tile the tile
-     * @return a biome for the given tile
+     * Builds the biome lookup table. Every region function is monotonic in both elevation and
+     * humidity, so if a function gives the same result at all four corners of a cell, it gives
+     * that result everywhere in the cell. If that's true of every function, the whole cell is one
+     * biome. Otherwise, the cell is marked as a boundary cell. Cells are padded slightly when
+     * checking, so that rounding when finding a value's cell can't land it in the wrong one.
      */
-    private Biome computeBiome(Tile tile) {
-        final double elevation = tile.elevation();
-        final double humidity = tile.humidity();
+    private static byte[] buildBiomeTable() {
+        final double elevationPadding = ELEVATION_CELL_SIZE * 1e-6;
+        final double humidityPadding = HUMIDITY_CELL_SIZE * 1e-6;
+        final byte[] table = new byte[ELEVATION_CELLS * HUMIDITY_CELLS];
+        for (int e = 0; e < ELEVATION_CELLS; e++) {
+            final double minE = MIN_ELEVATION + e * ELEVATION_CELL_SIZE - elevationPadding;
+            final double maxE = MIN_ELEVATION + (e + 1) * ELEVATION_CELL_SIZE + elevationPadding;
+            for (int h = 0; h < HUMIDITY_CELLS; h++) {
+                final double minH = MIN_HUMIDITY + h * HUMIDITY_CELL_SIZE - humidityPadding;
+                final double maxH = MIN_HUMIDITY + (h + 1) * HUMIDITY_CELL_SIZE + humidityPadding;
+                table[e * HUMIDITY_CELLS + h] = calcCellBiome(minE, maxE, minH, maxH);
+            }
+        }
+        return table;
+    }
 
-        // Test the function for each biome. As soon as one returns true, use that biome.
+    /**
+     * Calculates the biome of the given cell of the lookup table.
+     *
+     * @return the biome's ordinal, or {@link #BOUNDARY_CELL} if the cell isn't all one biome
+     */
+    private static byte calcCellBiome(double minE, double maxE, double minH, double maxH) {
         for (Map.Entry<Biome, BiomeFunction> entry : biomeFuncs.entrySet()) {
-            final Biome biome = entry.getKey();
             final BiomeFunction func = entry.getValue();
-            if (func.test(elevation, humidity)) {
+            final boolean result = func.test(minE, minH);
+            if (func.test(minE, maxH) != result
+                || func.test(maxE, minH) != result
+                || func.test(maxE, maxH) != result) {
+                return BOUNDARY_CELL; // This region's boundary passes through the cell
+            }
+            if (result) {
+                return (byte) entry.getKey().ordinal(); // The whole cell is in this region
+            }
+        }
+        return BOUNDARY_CELL; // No region covers the cell, let the exact check deal with it
+    }
+
+    /**
+     * Looks up the biome for the given elevation and humidity in the lookup table, falling back to
+     * {@link #computeBiome} if the value is in a boundary cell.
+     *
+     * Package visible for testing purposes.
+     *
+     * @return the biome's ordinal
+     */
+    static byte lookupBiome(double elevation, double humidity) {
+        final double e = (elevation - MIN_ELEVATION) / ELEVATION_CELL_SIZE;
+        final double h = (humidity - MIN_HUMIDITY) / HUMIDITY_CELL_SIZE;
+        // These comparisons are also false for NaN
+        if (e >= 0.0 && e < ELEVATION_CELLS && h >= 0.0 && h < HUMIDITY_CELLS) {
+            final byte biome = biomeTable[(int) e * HUMIDITY_CELLS + (int) h];
+            if (biome != BOUNDARY_CELL) {
                 return biome;
             }
         }
+        return (byte) computeBiome(elevation, humidity).ordinal();
+    }
+
+    /**
+     * Computes a biome for the given elevation and humidity by testing each biome's region.
+     *
+     * Package visible for testing purposes.
+     *
+     * @param elevation the elevation of the tile
+     * @param humidity  the humidity of the tile
+     * @return a biome for the given values
+     */
+    static Biome computeBiome(double elevation, double humidity) {
+        // Test the function for each biome. As soon as one returns true, use that biome.
+        for (Map.Entry<Biome, BiomeFunction> entry : biomeFuncs.entrySet()) {
+            if (entry.getValue().test(elevation, humidity)) {
+                return entry.getKey();
+            }
+        }
 
         throw new IllegalStateException(String.format(
             "No biome found for [elevation=%f], [humidity=%f]", elevation, humidity));
@@ -0,0 +1,31 @@
+package me.lucaspickering.terra.world.generate;
+
+import me.lucaspickering.terra.world.util.Chunk;
+
+/**
+ * A generation stage that can be run on one chunk at a time. The values it generates for a chunk
+ * depend only on that chunk and the world's seed, never on any other chunk. That means chunks can
+ * be generated in any order, and a chunk that is thrown away can be generated again later with
+ * exactly the same result.
+ */
+public interface ChunkGenerator {
+
+    /**
+     * Generates values for each tile in the given chunk.
+     *
+     * @param chunk the chunk to generate
+     */
+    void generateChunk(Chunk chunk);
+
+    /**
+     * Determines if calling {@link #generateChunk} on every chunk in the world gives exactly the
+     * same result as {@link Generator#generate()}. If so, the stage can be pipelined chunk by
+     * chunk, starting on each chunk as soon as the previous stages are done with that chunk.
+     *
+     * @return {@code true} if this generator can replace its whole-world generation with
+     * per-chunk generation, {@code false} otherwise
+     */
+    default boolean isChunkLocal() {
+        return true;
+    }
+}
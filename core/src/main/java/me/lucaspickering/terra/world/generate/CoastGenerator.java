@@ -1,7 +1,6 @@
 package me.lucaspickering.terra.world.generate;
 
 import java.util.EnumSet;
-import java.util.Random;
 import java.util.Set;
 
 import me.lucaspickering.terra.world.Biome;
@@ -15,14 +14,16 @@ import me.lucaspickering.terra.world.util.TileSet;
  */
 public class CoastGenerator extends Generator {
 
+    private static final long STREAM_ID = 7;
+
     // Any tile <= this elevation will become beach, others will keep their normal biome
     private static final int MAX_BEACH_ELEV = 50;
 
     // Biomes that can get beaches adjacent to them
     private static final Set<Biome> BEACHABLE_BIOMES = EnumSet.of(Biome.OCEAN, Biome.COAST);
 
-    public CoastGenerator(World world, Random random) {
-        super(world, random);
+    public CoastGenerator(World world) {
+        super(world, STREAM_ID);
     }
 
     @Override
@@ -31,17 +32,27 @@ public class CoastGenerator extends Generator {
         for (Tile tile : worldTiles) {
             // If this tile is land and within our elevation bound, check the adjacent tiles, and
             // if there is an ocean (or similar) tile adjacent, make a beach.
-            if (tile.biome().isLand()) {
-                for (Tile adj : worldTiles.getAdjacentTiles(tile.pos()).values()) {
-                    if (BEACHABLE_BIOMES.contains(adj.biome())) {
-                        // If this tile is under the elevation threshold, make it a beach
-                        if (tile.elevation() <= MAX_BEACH_ELEV) {
-                            tile.setBiome(Biome.BEACH);
-                        }
-                        break; // Done with this tile
-                    }
-                }
+            if (tile.biome().isLand() && tile.elevation() <= MAX_BEACH_ELEV
+                && worldTiles.anyNeighborMatches(tile.pos().x(), tile.pos().y(),
+                                                 adj -> BEACHABLE_BIOMES.contains(adj.biome()))) {
+                tile.setBiome(Biome.BEACH);
             }
         }
     }
+
+    @Override
+    public Set<TileAttribute> getReads() {
+        return EnumSet.of(TileAttribute.ELEVATION, TileAttribute.BIOME);
+    }
+
+    @Override
+    public Set<TileAttribute> getWrites() {
+        return EnumSet.of(TileAttribute.BIOME);
+    }
+
+    @Override
+    public String describeParameters() {
+        return String.format("maxBeachElev=%d beachableBiomes=%s",
+                             MAX_BEACH_ELEV, BEACHABLE_BIOMES);
+    }
 }
@@ -1,7 +1,8 @@
 package me.lucaspickering.terra.world.generate;
 
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Random;
+import java.util.Set;
 
 import me.lucaspickering.terra.world.Continent;
 import me.lucaspickering.terra.world.Tile;
@@ -16,15 +17,17 @@ import me.lucaspickering.terra.world.util.Cluster;
  */
 public class ContinentClusterer extends Generator {
 
-    public ContinentClusterer(World world, Random random) {
-        super(world, random);
+    private static final long STREAM_ID = 6;
+
+    public ContinentClusterer(World world) {
+        super(world, STREAM_ID);
     }
 
     @Override
     public void generate() {
         // Cluster tiles based on whether they're land or not
         final List<Cluster> continentClusters =
-            Cluster.predicateCluster(world().getTiles(), tile -> tile.biome().isLand());
+            Cluster.predicateCluster(world().getChunks(), tile -> tile.biome().isLand());
 
         final List<Continent> continents = world().getContinents();
 
@@ -32,7 +35,8 @@ public class ContinentClusterer extends Generator {
         continents.clear();
 
         for (Cluster cluster : continentClusters) {
-            final Continent continent = new Continent(cluster);
+            // IDs start at 1, so that 0 can mean "no continent"
+            final Continent continent = new Continent(continents.size() + 1, cluster);
             continents.add(continent); // Add the new continent to the list
 
             // Put each tile in the continent into our map
@@ -41,4 +45,14 @@ public class ContinentClusterer extends Generator {
             }
         }
     }
+
+    @Override
+    public Set<TileAttribute> getReads() {
+        return EnumSet.of(TileAttribute.BIOME);
+    }
+
+    @Override
+    public Set<TileAttribute> getWrites() {
+        return EnumSet.of(TileAttribute.CONTINENT);
+    }
 }
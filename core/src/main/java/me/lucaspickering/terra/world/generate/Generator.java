@@ -1,14 +1,23 @@
 package me.lucaspickering.terra.world.generate;
 
-import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.logging.Logger;
 
 import me.lucaspickering.terra.world.World;
+import me.lucaspickering.terra.world.util.HexPoint;
 
 /**
  * Represents one stage in the world generation process. A {@link Generator} is constructed with a
- * {@link World} and an {@link Random}. When {@link #generate()} is called, the {@link World}
- * instance will be modified.
+ * {@link World}. When {@link #generate()} is called, the {@link World} instance will be modified.
+ *
+ * Each generator declares which tile attributes it reads and writes. Stages that don't touch each
+ * other's attributes can be run at the same time (see {@link GeneratorScheduler}).
+ *
+ * There is no shared random number generator. Instead, a stage gets an independent stream for each
+ * piece of work (e.g. a chunk or a cluster) from {@link #random(long)}. Each stream is derived from
+ * the world's seed, the stage, and a key that identifies that piece of work, so the generated world
+ * doesn't depend on which order the pieces are done in, or how many are done at once.
  *
  * A specific instance of this type should only be used once. If you want to generate a new world,
  * create a new instance of each generator you want to use to ensure that no state is left over from
@@ -16,13 +25,32 @@ import me.lucaspickering.terra.world.World;
  */
 public abstract class Generator {
 
+    /**
+     * Version of the generation code as a whole. This must be bumped whenever a code change, such
+     * as to a formula or to how random values are drawn, changes the world generated from the same
+     * seed and parameters. It is part of every checkpoint and snapshot key, so saved worlds from
+     * older code are never loaded in place of new ones.
+     *
+     * Version 2 derives random streams from the seed (see {@link #random(long)}), which changed
+     * generated oceans. Version 3 iterates sparse point sets in sorted order again, which changes
+     * how ties between equal elevations are broken. Version 4 identifies each generator's random
+     * streams by an explicit ID rather than by its class name.
+     */
+    public static final int GENERATION_VERSION = 4;
+
     private final World world;
-    private final Random random;
+    private final long stageSeed; // Seed shared by every random stream in this stage
     private final Logger logger;
 
-    protected Generator(World world, Random random) {
+    /**
+     * @param world    the world to generate in
+     * @param streamId the ID of this generator's random streams (see {@link #random(long)}). Each
+     *                 generator must have its own ID, and an ID can't change without bumping
+     *                 {@link #GENERATION_VERSION}.
+     */
+    protected Generator(World world, long streamId) {
         this.world = world;
-        this.random = random;
+        stageSeed = mix(mix(world.getSeed()) ^ streamId);
         logger = Logger.getLogger(getClass().getName());
     }
 
@@ -31,15 +59,74 @@ public abstract class Generator {
      */
     public abstract void generate();
 
+    /**
+     * Gets the tile attributes that this generator reads. Any attribute that is written by an
+     * earlier stage and read by this one will be fully written before this stage starts.
+     *
+     * @return the attributes read by this generator
+     */
+    public abstract Set<TileAttribute> getReads();
+
+    /**
+     * Gets the tile attributes that this generator writes.
+     *
+     * @return the attributes written by this generator
+     */
+    public abstract Set<TileAttribute> getWrites();
+
+    /**
+     * Describes the parameters that control this generator's output, other than the world's seed
+     * and size. Changing any parameter must change this description, because it is used to decide
+     * when a checkpoint of this stage is out of date. Changes to code that aren't captured here,
+     * such as to a formula, require {@link #GENERATION_VERSION} to be bumped.
+     *
+     * @return a description of this generator's parameters (empty if it has none)
+     */
+    public String describeParameters() {
+        return "";
+    }
+
     protected final World world() {
         return world;
     }
 
-    protected final Random random() {
-        return random;
+    /**
+     * Gets the random stream for the piece of work with the given key. The stream only depends on
+     * the world's seed, this generator's stream ID, and the key, so it is the same no matter when
+     * or on which thread it is requested. Each piece of work should get its own stream, and use a
+     * key that no other piece of work in this stage uses.
+     *
+     * @param key the key that identifies the piece of work
+     * @return a new random stream for that piece of work
+     */
+    protected final SplittableRandom random(long key) {
+        return new SplittableRandom(mix(stageSeed ^ key));
+    }
+
+    /**
+     * Gets the random stream for the piece of work identified by the given point, e.g. a chunk's
+     * position, or the first tile of a cluster.
+     *
+     * @param point the point that identifies the piece of work
+     * @return a new random stream for that piece of work
+     * @see #random(long)
+     */
+    protected final SplittableRandom random(HexPoint point) {
+        return random(((long) point.x() << 32) | (point.y() & 0xffffffffL));
     }
 
     protected final Logger logger() {
         return logger;
     }
+
+    /**
+     * Scrambles the bits of the given value (SplitMix64's finalizer), so that similar inputs, such
+     * as neighboring points, give unrelated seeds.
+     */
+    private static long mix(long z) {
+        z += 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
 }
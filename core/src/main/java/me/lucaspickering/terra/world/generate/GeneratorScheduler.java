@@ -0,0 +1,206 @@
+package me.lucaspickering.terra.world.generate;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+import java.util.logging.Logger;
+
+import me.lucaspickering.terra.profile.ChunkTaskEvent;
+import me.lucaspickering.terra.profile.GeneratorStageEvent;
+import me.lucaspickering.terra.world.World;
+import me.lucaspickering.terra.world.util.Chunk;
+import me.lucaspickering.utils.GeneralFuncs;
+
+/**
+ * Runs a pipeline of generators, running stages at the same time wherever it's safe to do so.
+ * The stages form a DAG: a stage depends on an earlier stage if it reads an attribute that the
+ * earlier stage writes, writes an attribute that the earlier stage reads, or writes the same
+ * attribute. Every stage starts as soon as all of its dependencies are done, so the generated world
+ * is always the same as running the stages one after another, in order.
+ *
+ * If a stage and all of the stages it depends on are chunk-local (see
+ * {@link ChunkGenerator#isChunkLocal()}), it is pipelined: each chunk of the stage starts as soon
+ * as the stages it depends on are done with that chunk, rather than waiting for the whole world.
+ *
+ * Each stage (or chunk of a stage) is one task on the given executor. Stages can still use
+ * parallel streams internally.
+ */
+public class GeneratorScheduler {
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final World world;
+    private final List<Generator> generators;
+    private final Executor executor;
+
+    /**
+     * Constructs a new scheduler.
+     *
+     * @param world      the world that the generators modify
+     * @param generators the generators, in the order they would be run one after another
+     * @param executor   the executor to run each stage on
+     */
+    public GeneratorScheduler(World world, List<Generator> generators, Executor executor) {
+        this.world = world;
+        this.generators = generators;
+        this.executor = executor;
+    }
+
+    /**
+     * Runs every generator. This method does not return until every stage is complete. If any
+     * stage throws an exception, the stages that depend on it are skipped and the exception is
+     * re-thrown here, after the other stages have finished.
+     */
+    @SuppressWarnings("unchecked")
+    public void run() {
+        final int[][] dependencies = calcDependencies(generators);
+        final List<Chunk> chunks = new ArrayList<>(world.getChunks());
+
+        // Completion of each stage, and of each chunk of each pipelined stage (null for stages
+        // that aren't pipelined)
+        final CompletableFuture<Void>[] stageFutures = new CompletableFuture[generators.size()];
+        final CompletableFuture<Void>[][] chunkFutures = new CompletableFuture[generators.size()][];
+
+        for (int i = 0; i < generators.size(); i++) {
+            final Generator generator = generators.get(i);
+            final int[] deps = dependencies[i];
+
+            if (isPipelined(i, dependencies)) {
+                chunkFutures[i] = runByChunk(generator, chunks, c -> {
+                    // Wait for each dependency to finish this chunk
+                    final CompletableFuture<?>[] depFutures = new CompletableFuture[deps.length];
+                    for (int d = 0; d < deps.length; d++) {
+                        depFutures[d] = chunkFutures[deps[d]][c];
+                    }
+                    return depFutures;
+                });
+                stageFutures[i] = CompletableFuture.allOf(chunkFutures[i]);
+            } else {
+                final CompletableFuture<?>[] depFutures = new CompletableFuture[deps.length];
+                for (int d = 0; d < deps.length; d++) {
+                    depFutures[d] = stageFutures[deps[d]];
+                }
+                stageFutures[i] = CompletableFuture.allOf(depFutures)
+                    .thenRunAsync(() -> runGenerator(generator), executor);
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(stageFutures).join();
+        } catch (CompletionException e) {
+            // Unwrap the exception thrown by the stage, so callers see the real error
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Calculates which stages each stage depends on. Each stage can only depend on stages that
+     * come before it in the list.
+     *
+     * Package visible for testing purposes.
+     *
+     * @param generators the stages, in order
+     * @return for each stage, the indices of the stages that must finish before it can start, in
+     * ascending order
+     */
+    static int[][] calcDependencies(List<Generator> generators) {
+        final int[][] dependencies = new int[generators.size()][];
+        for (int i = 0; i < generators.size(); i++) {
+            final Generator generator = generators.get(i);
+            final int[] deps = new int[i];
+            int numDeps = 0;
+            for (int j = 0; j < i; j++) {
+                if (conflicts(generators.get(j), generator)) {
+                    deps[numDeps++] = j;
+                }
+            }
+            dependencies[i] = Arrays.copyOf(deps, numDeps);
+        }
+        return dependencies;
+    }
+
+    /**
+     * Determines if the given later stage has to wait for the given earlier stage.
+     */
+    private static boolean conflicts(Generator earlier, Generator later) {
+        final Set<TileAttribute> earlierWrites = earlier.getWrites();
+        final Set<TileAttribute> laterWrites = later.getWrites();
+        return !Collections.disjoint(earlierWrites, later.getReads()) // Read after write
+               || !Collections.disjoint(earlier.getReads(), laterWrites) // Write after read
+               || !Collections.disjoint(earlierWrites, laterWrites); // Write after write
+    }
+
+    private boolean isPipelined(int stage, int[][] dependencies) {
+        if (!isChunkLocal(generators.get(stage))) {
+            return false;
+        }
+        for (int dep : dependencies[stage]) {
+            if (!isChunkLocal(generators.get(dep))) {
+                return false; // Have to wait for all of this dependency anyway
+            }
+        }
+        return true;
+    }
+
+    private static boolean isChunkLocal(Generator generator) {
+        return generator instanceof ChunkGenerator && ((ChunkGenerator) generator).isChunkLocal();
+    }
+
+    /**
+     * Starts a task for each chunk of the given stage.
+     *
+     * @param generator the stage, which must be a {@link ChunkGenerator}
+     * @param chunks    all chunks in the world
+     * @param depsFunc  gets the futures that must complete before each chunk (by index) can start
+     * @return the future for each chunk, by index
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Void>[] runByChunk(Generator generator, List<Chunk> chunks,
+                                                 IntFunction<CompletableFuture<?>[]> depsFunc) {
+        final ChunkGenerator chunkGenerator = (ChunkGenerator) generator;
+        final String stage = generator.getClass().getSimpleName();
+        final AtomicLong totalTime = new AtomicLong();
+        // The stage starts with whichever of its chunks starts first
+        final AtomicReference<GeneratorStageEvent> stageEvent = new AtomicReference<>();
+        final CompletableFuture<Void>[] futures = new CompletableFuture[chunks.size()];
+        for (int c = 0; c < chunks.size(); c++) {
+            final Chunk chunk = chunks.get(c);
+            futures[c] = CompletableFuture.allOf(depsFunc.apply(c)).thenRunAsync(() -> {
+                if (stageEvent.get() == null) {
+                    stageEvent.compareAndSet(
+                        null, GeneratorStageEvent.start(stage, world.getTiles().size(), true));
+                }
+                final ChunkTaskEvent event = ChunkTaskEvent.start(stage, chunk.getPos());
+                totalTime.addAndGet(GeneralFuncs.timed(() -> chunkGenerator.generateChunk(chunk)));
+                event.commit();
+            }, executor);
+        }
+        CompletableFuture.allOf(futures).thenRun(() -> {
+            if (stageEvent.get() != null) {
+                stageEvent.get().commit();
+            }
+            logger.fine(String.format("Generator stage %s took %d ms over %d chunks",
+                                      stage, totalTime.get(), chunks.size()));
+        });
+        return futures;
+    }
+
+    private void runGenerator(Generator generator) {
+        final GeneratorStageEvent event = GeneratorStageEvent.start(
+            generator.getClass().getSimpleName(), world.getTiles().size(), false);
+        final long time = GeneralFuncs.timed(generator::generate);
+        event.commit();
+        logger.fine(String.format("Generator stage %s took %d ms",
+                                  generator.getClass().getSimpleName(), time));
+    }
+}
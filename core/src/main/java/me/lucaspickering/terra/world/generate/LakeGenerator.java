@@ -1,6 +1,7 @@
 package me.lucaspickering.terra.world.generate;
 
-import java.util.Random;
+import java.util.EnumSet;
+import java.util.Set;
 
 import me.lucaspickering.terra.world.Biome;
 import me.lucaspickering.terra.world.Continent;
@@ -9,10 +10,11 @@ import me.lucaspickering.terra.world.World;
 
 public class LakeGenerator extends Generator {
 
+    private static final long STREAM_ID = 9;
     private static final double LAKE_THRESHOLD = 3.0;
 
-    public LakeGenerator(World world, Random random) {
-        super(world, random);
+    public LakeGenerator(World world) {
+        super(world, STREAM_ID);
     }
 
     @Override
@@ -20,6 +22,21 @@ public class LakeGenerator extends Generator {
         world().getContinents().parallelStream().forEach(this::generateForContinent);
     }
 
+    @Override
+    public Set<TileAttribute> getReads() {
+        return EnumSet.of(TileAttribute.CONTINENT, TileAttribute.RUNOFF);
+    }
+
+    @Override
+    public Set<TileAttribute> getWrites() {
+        return EnumSet.of(TileAttribute.BIOME);
+    }
+
+    @Override
+    public String describeParameters() {
+        return String.format("lakeThreshold=%s", LAKE_THRESHOLD);
+    }
+
     private void generateForContinent(Continent continent) {
         for (Tile tile : continent.getTiles()) {
             if (tile.getRunoffLevel() >= LAKE_THRESHOLD) {
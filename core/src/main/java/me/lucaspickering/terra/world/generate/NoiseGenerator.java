@@ -2,61 +2,380 @@ package me.lucaspickering.terra.world.generate;
 
 import com.flowpowered.noise.module.source.Perlin;
 
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
-import me.lucaspickering.terra.world.Tile;
 import me.lucaspickering.terra.world.World;
-import me.lucaspickering.terra.world.util.HexPoint;
-import me.lucaspickering.terra.world.util.HexPointMap;
-import me.lucaspickering.terra.world.util.TileSet;
-import me.lucaspickering.utils.Pair;
+import me.lucaspickering.terra.world.util.Chunk;
+import me.lucaspickering.terra.world.util.TileColumns;
+import me.lucaspickering.utils.range.DoubleRange;
+import me.lucaspickering.utils.range.Range;
 
 /**
- * A generator that uses a noise function to generate some type of values.
+ * A generator that uses one or more noise functions to generate some types of values. Each noise
+ * function fills one tile column (see {@link NoiseField}). All of the fields are evaluated in the
+ * same traversal of the world, so generating several of them at once costs only one pass over
+ * the tiles, plus one more to normalize the values. Noise is evaluated a row of tiles at a time
+ * (see {@link BatchedPerlin}).
+ *
+ * With a streaming {@link NoiseNormalization}, values are normalized as soon as they are generated,
+ * and each chunk can be generated on its own with {@link #generateChunk}.
  */
-abstract class NoiseGenerator extends Generator {
+abstract class NoiseGenerator extends Generator implements ChunkGenerator {
+
+    /**
+     * One noise function, along with the tile attribute and column that its values go in. Raw
+     * noise values are mapped from the range of all values generated for the world to
+     * {@link #outputRange}.
+     */
+    static class NoiseField {
+
+        private final String name;
+        private final TileAttribute attribute;
+        private final Perlin noise;
+        private final BatchedPerlin batchedNoise; // Same values as noise, many points at a time
+        private final Function<TileColumns, double[]> column;
+        private final Range<Double> outputRange;
+
+        NoiseField(String name, TileAttribute attribute, Perlin noise,
+                   Function<TileColumns, double[]> column, Range<Double> outputRange) {
+            this.name = name;
+            this.attribute = attribute;
+            this.noise = noise;
+            batchedNoise = new BatchedPerlin(noise);
+            this.column = column;
+            this.outputRange = outputRange;
+        }
+    }
+
+    @FunctionalInterface
+    private interface BlockConsumer {
+
+        void accept(int block, Chunk chunk, int startIndex, int endIndex);
+    }
 
     private static final double VALUE_RANGE = 256.0;
 
-    protected final Perlin noiseGenerator;
+    // Row coord arrays hold the y and z noise coords of each tile in a row, followed by two arrays
+    // of scratch space for BatchedPerlin. One set is allocated per task and re-used for every row.
+    private static final int ROW_ARRAYS = 4;
+
+    // Each chunk is split into this many blocks of rows, and each block is one parallel task. This
+    // gives plenty of tasks to spread around, even when there are only a few chunks.
+    private static final int BLOCKS_PER_CHUNK = 10;
+    private static final int ROWS_PER_BLOCK = Chunk.SIDE_LENGTH / BLOCKS_PER_CHUNK;
+
+    // Sampled ranges are taken from a SAMPLE_COUNT x SAMPLE_COUNT grid of tiles, spaced
+    // SAMPLE_SPACING tiles apart and centered on the origin, then padded by SAMPLE_PADDING of the
+    // range on each end.
+    private static final int SAMPLE_COUNT = 64;
+    private static final int SAMPLE_SPACING = Chunk.SIDE_LENGTH / 4;
+    private static final double SAMPLE_PADDING = 0.05;
+
+    private final NoiseNormalization normalization;
+    private final NoiseField[] fields;
+
+    // Fixed noise range for each field. Only used for streaming normalizations.
+    private final Range<Double>[] fixedRanges;
+
+    protected NoiseGenerator(World world, long streamId, NoiseNormalization normalization,
+                             NoiseField... fields) {
+        super(world, streamId);
+        this.normalization = normalization;
+        this.fields = fields;
+        fixedRanges = normalization.isStreaming() ? calcFixedRanges() : null;
+    }
+
+    @Override
+    public void generate() {
+        final List<Chunk> chunks = new ArrayList<>(world().getChunks());
+        if (normalization.isStreaming()) {
+            generateStreaming(chunks);
+            return;
+        }
+
+        final Range<Double>[] noiseRanges = generateNoises(chunks);
+
+        // Map each raw value to the output range, in place. This can be done in parallel.
+        forEachBlock(chunks, (block, chunk, startIndex, endIndex) -> {
+            final double[][] columns = getColumns(chunk);
+            for (int index = startIndex; index < endIndex; index++) {
+                for (int f = 0; f < fields.length; f++) {
+                    final Range<Double> outputRange = fields[f].outputRange;
+                    final double value = noiseRanges[f].mapTo(columns[f][index], outputRange);
+                    columns[f][index] = outputRange.coerce(value);
+                }
+            }
+        });
+
+        for (int f = 0; f < fields.length; f++) {
+            logger().finer(String.format("%s noise range: %s", fields[f].name, noiseRanges[f]));
+        }
+    }
+
+    @Override
+    public Set<TileAttribute> getReads() {
+        return EnumSet.noneOf(TileAttribute.class);
+    }
 
-    public NoiseGenerator(World world, Random random, Perlin noiseGenerator) {
-        super(world, random);
-        this.noiseGenerator = noiseGenerator;
+    @Override
+    public Set<TileAttribute> getWrites() {
+        final Set<TileAttribute> writes = EnumSet.noneOf(TileAttribute.class);
+        for (NoiseField field : fields) {
+            writes.add(field.attribute);
+        }
+        return writes;
+    }
+
+    @Override
+    public String describeParameters() {
+        final StringBuilder sb = new StringBuilder("normalization=").append(normalization);
+        if (normalization == NoiseNormalization.SAMPLED) {
+            sb.append(String.format(" samples=%d spacing=%d padding=%s",
+                                    SAMPLE_COUNT, SAMPLE_SPACING, SAMPLE_PADDING));
+        }
+        for (NoiseField field : fields) {
+            final Perlin noise = field.noise;
+            sb.append(String.format(
+                " %s[frequency=%s lacunarity=%s persistence=%s octaves=%d quality=%s seed=%d]",
+                field.name, noise.getFrequency(), noise.getLacunarity(), noise.getPersistence(),
+                noise.getOctaveCount(), noise.getNoiseQuality(), noise.getSeed()));
+        }
+        return sb.toString();
     }
 
     /**
-     * Generates a noise value for each tile and returns all values in a map.
+     * Generates values for each tile in the given chunk. The chunk's values don't depend on any
+     * other chunk, so this can be called on chunks one at a time, as they are needed. Calling this
+     * for every chunk in the world has the same result as {@link #generate()}.
      *
-     * @param tiles the set of tiles to generate noises for
-     * @return a map containing tile:noise entries, with exactly one entry for each tile in the
-     * given set.
+     * @param chunk the chunk to generate values for
+     * @throws IllegalStateException if this generator doesn't use a streaming normalization
+     * @see NoiseNormalization#isStreaming()
      */
-    HexPointMap<Tile, Double> generateNoises(TileSet tiles) {
-        // Compute a noise value for each tile. This can be done in parallel, but it seems to
-        // actually take longer that way so let's not.
-        return tiles.stream()
-            .map(t -> new Pair<>(t, generateNoise(t))) // Generate a noise for each tile
-            .collect(Pair.mapCollector(HexPointMap::new));
+    @Override
+    public void generateChunk(Chunk chunk) {
+        if (!normalization.isStreaming()) {
+            throw new IllegalStateException(String.format(
+                "Cannot generate a single chunk with %s normalization", normalization));
+        }
+        generateStreaming(Collections.singletonList(chunk));
+    }
+
+    @Override
+    public boolean isChunkLocal() {
+        return normalization.isStreaming(); // Global normalization needs the whole world
     }
 
     /**
-     * Generates a noise value for the given tile. This value is entirely independent of all other
-     * tiles in the world, and is guaranteed to be the same on subsequent calls with the same input,
-     * as long as the settings of the noise generator don't change.
+     * Generates and normalizes values for each tile in the given chunks, using the fixed range of
+     * each field. Each value is written once, and no chunk depends on any other.
      *
-     * @param tile the tile to generate noise for
-     * @return the noise value for the given tile
+     * @param chunks the chunks to generate values for
      */
-    private double generateNoise(Tile tile) {
-        final HexPoint pos = tile.pos();
+    private void generateStreaming(List<Chunk> chunks) {
+        forEachBlock(chunks, (block, chunk, startIndex, endIndex) -> {
+            final int startX = chunk.getPos().x() * Chunk.SIDE_LENGTH;
+            final int startY = chunk.getPos().y() * Chunk.SIDE_LENGTH;
+            final double[][] columns = getColumns(chunk);
+            final double[][] rowCoords = new double[ROW_ARRAYS][Chunk.SIDE_LENGTH];
+            for (int rowStart = startIndex; rowStart < endIndex; rowStart += Chunk.SIDE_LENGTH) {
+                final int x = startX + rowStart / Chunk.SIDE_LENGTH;
+                fillRowCoords(rowCoords, x, startY, 1);
+                for (int f = 0; f < fields.length; f++) {
+                    final Range<Double> outputRange = fields[f].outputRange;
+                    final double[] column = columns[f];
+                    generateRow(fields[f], x, rowCoords, column, rowStart);
+                    for (int index = rowStart; index < rowStart + Chunk.SIDE_LENGTH; index++) {
+                        final double value = fixedRanges[f].mapTo(column[index], outputRange);
+                        column[index] = outputRange.coerce(value);
+                    }
+                }
+            }
+        });
+    }
 
+    /**
+     * Calculates the fixed noise range of each field, according to {@link #normalization}. The
+     * ranges depend only on each field's noise function, not on the world, so they are the same
+     * for every chunk.
+     *
+     * @return the fixed range of each field, in the same order as {@link #fields}
+     */
+    @SuppressWarnings("unchecked")
+    private Range<Double>[] calcFixedRanges() {
+        final Range<Double>[] ranges = new Range[fields.length];
+        for (int f = 0; f < fields.length; f++) {
+            switch (normalization) {
+                case ANALYTIC:
+                    ranges[f] = calcAnalyticRange(fields[f].noise);
+                    break;
+                case SAMPLED:
+                    ranges[f] = calcSampledRange(fields[f]);
+                    break;
+                default:
+                    throw new IllegalStateException(String.format(
+                        "No fixed range for %s normalization", normalization));
+            }
+            logger().finer(String.format("%s fixed noise range: %s", fields[f].name, ranges[f]));
+        }
+        return ranges;
+    }
+
+    private static Range<Double> calcAnalyticRange(Perlin noise) {
+        // Each octave's signal is within [-1, 1], and is scaled by persistence^octave, so the
+        // total is bounded by the geometric series 1 + p + p^2 + ... + p^(octaves - 1)
+        double bound = 0.0;
+        double persistence = 1.0;
+        for (int octave = 0; octave < noise.getOctaveCount(); octave++) {
+            bound += persistence;
+            persistence *= noise.getPersistence();
+        }
+        return new DoubleRange(-bound, bound);
+    }
+
+    private static Range<Double> calcSampledRange(NoiseField field) {
+        final int offset = SAMPLE_COUNT / 2 * SAMPLE_SPACING; // Center the grid on the origin
+        final double[][] rowCoords = new double[ROW_ARRAYS][SAMPLE_COUNT];
+        final double[] values = new double[SAMPLE_COUNT];
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            final int x = i * SAMPLE_SPACING - offset;
+            fillRowCoords(rowCoords, x, -offset, SAMPLE_SPACING);
+            generateRow(field, x, rowCoords, values, 0);
+            for (double value : values) {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        final double padding = (max - min) * SAMPLE_PADDING;
+        return new DoubleRange(min - padding, max + padding);
+    }
+
+    /**
+     * Generates a raw noise value for each field, for each tile in the given chunks. The values
+     * are written directly into each chunk's columns, and the range of each field is computed in
+     * the same pass.
+     *
+     * @param chunks the chunks to generate noises for
+     * @return the range of the raw values for each field, in the same order as {@link #fields}
+     */
+    @SuppressWarnings("unchecked")
+    private Range<Double>[] generateNoises(List<Chunk> chunks) {
+        // Each block records its own min and max for each field, then they're combined at the end
+        final int numBlocks = chunks.size() * BLOCKS_PER_CHUNK;
+        final double[][] blockMins = new double[fields.length][numBlocks];
+        final double[][] blockMaxes = new double[fields.length][numBlocks];
+
+        forEachBlock(chunks, (block, chunk, startIndex, endIndex) -> {
+            final int startX = chunk.getPos().x() * Chunk.SIDE_LENGTH;
+            final int startY = chunk.getPos().y() * Chunk.SIDE_LENGTH;
+            final double[][] columns = getColumns(chunk);
+            final double[][] rowCoords = new double[ROW_ARRAYS][Chunk.SIDE_LENGTH];
+            final double[] mins = new double[fields.length];
+            final double[] maxes = new double[fields.length];
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxes, Double.NEGATIVE_INFINITY);
+
+            // Visit each row once, and evaluate every field for it
+            for (int rowStart = startIndex; rowStart < endIndex; rowStart += Chunk.SIDE_LENGTH) {
+                final int x = startX + rowStart / Chunk.SIDE_LENGTH;
+                fillRowCoords(rowCoords, x, startY, 1);
+                for (int f = 0; f < fields.length; f++) {
+                    final double[] column = columns[f];
+                    generateRow(fields[f], x, rowCoords, column, rowStart);
+                    for (int index = rowStart; index < rowStart + Chunk.SIDE_LENGTH; index++) {
+                        mins[f] = Math.min(mins[f], column[index]);
+                        maxes[f] = Math.max(maxes[f], column[index]);
+                    }
+                }
+            }
+
+            for (int f = 0; f < fields.length; f++) {
+                blockMins[f][block] = mins[f];
+                blockMaxes[f][block] = maxes[f];
+            }
+        });
+
+        final Range<Double>[] ranges = new Range[fields.length];
+        for (int f = 0; f < fields.length; f++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int block = 0; block < numBlocks; block++) {
+                min = Math.min(min, blockMins[f][block]);
+                max = Math.max(max, blockMaxes[f][block]);
+            }
+            ranges[f] = new DoubleRange(min, max);
+        }
+        return ranges;
+    }
+
+    private double[][] getColumns(Chunk chunk) {
+        final double[][] columns = new double[fields.length][];
+        for (int f = 0; f < fields.length; f++) {
+            columns[f] = fields[f].column.apply(chunk.getColumns());
+        }
+        return columns;
+    }
+
+    /**
+     * Splits each of the given chunks into blocks of rows, and passes each block to the given
+     * consumer. Blocks are processed in parallel, so the consumer must be thread-safe.
+     *
+     * @param chunks   the chunks to process
+     * @param consumer the consumer to be given each block's number, chunk and range of tile
+     *                 indexes
+     */
+    private static void forEachBlock(List<Chunk> chunks, BlockConsumer consumer) {
+        final int blockSize = ROWS_PER_BLOCK * Chunk.SIDE_LENGTH;
+        IntStream.range(0, chunks.size() * BLOCKS_PER_CHUNK).parallel().forEach(block -> {
+            final Chunk chunk = chunks.get(block / BLOCKS_PER_CHUNK);
+            final int startIndex = (block % BLOCKS_PER_CHUNK) * blockSize;
+            consumer.accept(block, chunk, startIndex, startIndex + blockSize);
+        });
+    }
+
+    /**
+     * Calculates the noise coords of a row of tiles with the same x coord. The noise values for a
+     * tile are entirely independent of all other tiles in the world, and are guaranteed to be the
+     * same on subsequent calls with the same input, as long as the settings of the noise function
+     * don't change.
+     *
+     * @param rowCoords the arrays to fill with the y and z noise coords of each tile
+     * @param x         the x coord of every tile in the row
+     * @param startY    the y coord of the first tile in the row
+     * @param stepY     the difference in y coord between consecutive tiles in the row
+     */
+    private static void fillRowCoords(double[][] rowCoords, int x, int startY, int stepY) {
         // The Perlin noise function relies of receiving non-integer input in order to generate
         // reasonable noise values. Divide x/y/z by some large constant to get decimal values.
-        final double nx = pos.x() / VALUE_RANGE;
-        final double ny = pos.y() / VALUE_RANGE;
-        final double nz = pos.z() / VALUE_RANGE;
+        for (int i = 0; i < rowCoords[0].length; i++) {
+            final int y = startY + i * stepY;
+            rowCoords[0][i] = y / VALUE_RANGE;
+            rowCoords[1][i] = (-x - y) / VALUE_RANGE;
+        }
+    }
 
-        return noiseGenerator.getValue(nx, ny, nz);
+    /**
+     * Generates the raw noise value of the given field for each tile in a row.
+     *
+     * @param field     the field to generate
+     * @param x         the x coord of every tile in the row
+     * @param rowCoords the y and z noise coords of each tile (see {@link #fillRowCoords}), and
+     *                  the scratch space for the noise
+     * @param out       the array to write the values to
+     * @param offset    the index in {@code out} to write the first tile's value to
+     */
+    private static void generateRow(NoiseField field, int x, double[][] rowCoords, double[] out,
+                                    int offset) {
+        field.batchedNoise.getRow(x / VALUE_RANGE, rowCoords[0], rowCoords[1],
+                                  rowCoords[0].length, rowCoords[2], rowCoords[3], out, offset);
     }
 }
@@ -0,0 +1,40 @@
+package me.lucaspickering.terra.world.generate;
+
+/**
+ * Strategies for mapping raw noise values to tile values (e.g. elevation). Raw noise has no fixed
+ * range, so it has to be mapped from some range of noise values to the range of the output. The
+ * strategies differ in where that noise range comes from.
+ */
+public enum NoiseNormalization {
+
+    /**
+     * Use the range of every noise value generated for the world. This makes full use of the
+     * output range, but no tile can be given its value until every tile's noise has been
+     * generated, so the world has to be generated all at once.
+     */
+    GLOBAL,
+
+    /**
+     * Use the theoretical bounds of the noise function, calculated from its settings. Each chunk
+     * can be normalized on its own, but the bounds are loose, so values will be squashed towards
+     * the middle of the output range.
+     */
+    ANALYTIC,
+
+    /**
+     * Use the range of the noise function over a fixed grid of sample points around the origin,
+     * padded slightly. Each chunk can be normalized on its own, and the output range is used
+     * almost as fully as with {@link #GLOBAL}. Any values outside the sampled range are coerced
+     * into the output range.
+     */
+    SAMPLED;
+
+    /**
+     * Can each chunk be normalized without knowing about any other chunks?
+     *
+     * @return {@code true} if chunks can be generated independently, {@code false} otherwise
+     */
+    public boolean isStreaming() {
+        return this != GLOBAL;
+    }
+}
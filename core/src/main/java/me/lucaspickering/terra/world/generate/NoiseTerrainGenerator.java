@@ -0,0 +1,24 @@
+package me.lucaspickering.terra.world.generate;
+
+import me.lucaspickering.terra.world.World;
+
+/**
+ * Generates both elevation and humidity values for each tile, in a single pass over the world.
+ * The values are identical to running {@link NoiseElevationGenerator} followed by
+ * {@link NoiseHumidityGenerator}, but each tile is only visited once per pass, rather than once
+ * for each generator.
+ */
+public class NoiseTerrainGenerator extends NoiseGenerator {
+
+    private static final long STREAM_ID = 1;
+
+    public NoiseTerrainGenerator(World world) {
+        this(world, NoiseNormalization.GLOBAL);
+    }
+
+    public NoiseTerrainGenerator(World world, NoiseNormalization normalization) {
+        super(world, STREAM_ID, normalization,
+              NoiseElevationGenerator.createField(world.getSeed()),
+              NoiseHumidityGenerator.createField(world.getSeed()));
+    }
+}
@@ -1,57 +1,120 @@
 package me.lucaspickering.terra.world.generate;
 
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Random;
+import java.util.Set;
 
 import me.lucaspickering.terra.world.Biome;
 import me.lucaspickering.terra.world.Tile;
 import me.lucaspickering.terra.world.World;
+import me.lucaspickering.terra.world.util.Chunk;
 import me.lucaspickering.terra.world.util.Cluster;
-import me.lucaspickering.utils.GeneralFuncs;
+import me.lucaspickering.terra.world.util.HexPoint;
 
 /**
  * Generates oceans. Calculates all clusters of tiles that are below sea level, then turns those
  * clusters into oceans. If a cluster is above a certain size threshold, it is guaranteed to be an
  * ocean. Otherwise, it has a random chance to become an ocean, with that chance being proportional
  * to its size.
+ *
+ * Each cluster's roll comes from its own random stream, keyed by the cluster's lowest point, so the
+ * clusters can be decided in parallel, in any order.
  */
-public class OceanGenerator extends Generator {
+public class OceanGenerator extends Generator implements ChunkGenerator {
 
+    private static final long STREAM_ID = 4;
     private static final int MIN_OCEAN_SIZE = 50; // Minimum size to be possibly become an ocean
     private static final int MIN_GUARANTEED_OCEAN_SIZE = 100; // Min size to be guaranteed an ocean
     private static final int MIN_COAST_DEPTH = -100; // Everything in an ocean >= this is coast
 
-    public OceanGenerator(World world, Random random) {
-        super(world, random);
+    public OceanGenerator(World world) {
+        super(world, STREAM_ID);
     }
 
     @Override
     public void generate() {
         // Get clusters of tiles that are below sea level
         final List<Cluster> clusters =
-            Cluster.predicateCluster(world().getTiles(), t -> t.elevation() < World.SEA_LEVEL);
+            Cluster.predicateCluster(world().getChunks(), t -> t.elevation() < World.SEA_LEVEL);
 
         // We use this every iteration so calculate it now. See below for explanation of math.
         final float chanceDenom = MIN_GUARANTEED_OCEAN_SIZE - MIN_OCEAN_SIZE + 1;
 
-        for (Cluster cluster : clusters) {
+        clusters.parallelStream().forEach(cluster -> {
             // Calculate the chance of this cluster becoming an ocean. For this example, let's
             // say MIN_OCEAN_SIZE=15 and MIN_GUARANTEED_OCEAN_SIZE=50. Clusters of size 14 and
             // below have 0 chance of being an ocean. Size 15 has a 1/36 chance, size 16 has
             // 2/36, etc. up to 49->35/36 size, and 50 has 100% chance.
             final float chance = (cluster.size() - MIN_OCEAN_SIZE + 1) / chanceDenom;
 
-            // Decide if this should be an ocean
-            if (GeneralFuncs.weightedChance(random(), chance)) {
+            // Decide if this should be an ocean. Clusters never share tiles, so they can be
+            // modified at the same time.
+            if (random(getKeyPoint(cluster)).nextDouble() < chance) {
                 makeOcean(cluster);
             }
+        });
+    }
+
+    @Override
+    public Set<TileAttribute> getReads() {
+        return EnumSet.of(TileAttribute.ELEVATION);
+    }
+
+    @Override
+    public Set<TileAttribute> getWrites() {
+        return EnumSet.of(TileAttribute.BIOME);
+    }
+
+    @Override
+    public String describeParameters() {
+        return String.format("minOceanSize=%d minGuaranteedOceanSize=%d minCoastDepth=%d",
+                             MIN_OCEAN_SIZE, MIN_GUARANTEED_OCEAN_SIZE, MIN_COAST_DEPTH);
+    }
+
+    /**
+     * Generates oceans for a single chunk. Clusters can extend into chunks that haven't been
+     * generated, so there's no way of knowing how big a cluster really is. Instead, every tile
+     * below sea level becomes ocean, the same as a cluster that is guaranteed to be an ocean.
+     *
+     * @param chunk the chunk to generate oceans for
+     */
+    @Override
+    public void generateChunk(Chunk chunk) {
+        for (int index = 0; index < Chunk.TOTAL_TILES; index++) {
+            final Tile tile = chunk.getTile(index);
+            if (tile.elevation() < World.SEA_LEVEL) {
+                makeOcean(tile);
+            }
         }
     }
 
+    @Override
+    public boolean isChunkLocal() {
+        return false; // Whole-world generation uses clusters, which this can't do by chunk
+    }
+
+    /**
+     * Gets the point that identifies the given cluster, which is its lowest point. This only
+     * depends on which tiles are in the cluster, not the order that they were found in.
+     */
+    private static HexPoint getKeyPoint(Cluster cluster) {
+        HexPoint keyPoint = null;
+        for (Tile tile : cluster) {
+            if (keyPoint == null || tile.pos().compareTo(keyPoint) < 0) {
+                keyPoint = tile.pos();
+            }
+        }
+        return keyPoint;
+    }
+
     private void makeOcean(Cluster cluster) {
         for (Tile tile : cluster) {
-            // If this tile is shallow, make it coast, otherwise make it ocean
-            tile.setBiome(tile.elevation() >= MIN_COAST_DEPTH ? Biome.COAST : Biome.OCEAN);
+            makeOcean(tile);
         }
     }
+
+    private void makeOcean(Tile tile) {
+        // If this tile is shallow, make it coast, otherwise make it ocean
+        tile.setBiome(tile.elevation() >= MIN_COAST_DEPTH ? Biome.COAST : Biome.OCEAN);
+    }
 }
@@ -1,101 +1,144 @@
 package me.lucaspickering.terra.world.generate;
 
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.List;
-import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.EnumSet;
+import java.util.Set;
 
+import me.lucaspickering.terra.util.Direction;
 import me.lucaspickering.terra.world.Continent;
 import me.lucaspickering.terra.world.Tile;
 import me.lucaspickering.terra.world.World;
-import me.lucaspickering.terra.world.util.RunoffPattern;
-import me.lucaspickering.utils.Pair;
+import me.lucaspickering.terra.world.util.NeighborConsumer;
 
 /**
  * Simulates rainfall, which will later be used to determine where to generate lakes and rivers.
  */
 public class RunoffGenerator extends Generator {
 
+    private static final long STREAM_ID = 8;
     private static final double RAINFALL = 10.0;
+    private static final Direction[] DIRECTIONS = Direction.values();
 
-    public RunoffGenerator(World world, Random random) {
-        super(world, random);
+    public RunoffGenerator(World world) {
+        super(world, STREAM_ID);
     }
 
     @Override
     public void generate() {
-        final List<Continent> continents = world().getContinents();
-        initWaterLevels(world());
-        continents.parallelStream().forEach(this::doContinentRunoff);
+        // Continents can be done in parallel because no two of them write to the same tile. A
+        // tile's exits are only stored on the tile itself, and runoff is only stored on land
+        // tiles, whose land neighbors are always in the same continent. Water tiles that border
+        // several continents swallow the runoff sent to them without storing anything.
+        world().getContinents().parallelStream().forEach(this::doContinentRunoff);
     }
 
-    /**
-     * Initializes each land to a default water level.
-     */
-    private void initWaterLevels(World world) {
-        for (Continent continent : world.getContinents()) {
-            for (Tile tile : continent.getTiles()) {
-                tile.addRunoff(RAINFALL);
-            }
-        }
+    @Override
+    public Set<TileAttribute> getReads() {
+        return EnumSet.of(TileAttribute.ELEVATION, TileAttribute.BIOME, TileAttribute.CONTINENT);
+    }
+
+    @Override
+    public Set<TileAttribute> getWrites() {
+        return EnumSet.of(TileAttribute.RUNOFF);
+    }
+
+    @Override
+    public String describeParameters() {
+        return String.format("rainfall=%s", RAINFALL);
     }
 
     /**
-     * Simulates water runoff for the given continent. This assumes that the continent has already
-     * been populated with water.
+     * Simulates water runoff for the given continent. Rain falls on each tile, then runs downhill
+     * until it reaches a terminal. Each tile only ever sends water to lower tiles, so visiting the
+     * tiles from highest to lowest moves all of the water in a single pass. By the time a tile is
+     * visited, everything that will ever flow into it already has.
+     *
+     * Terminals (tiles that have no exits) keep all of the water that reaches them, but the rain
+     * that falls directly on them goes straight to the ocean.
      *
      * @param continent the continent
      */
     private void doContinentRunoff(Continent continent) {
-        // Sort the tiles
-        final List<Tile> sortedTiles = continent.getTiles().stream()
-            .sorted(Comparator.comparingDouble(Tile::elevation)) // Sort by ascending elevation
-            .collect(Collectors.toList());
+        // Sort the tiles by descending elevation. This is the only sort needed.
+        final Tile[] sortedTiles = continent.getTiles().toArray(new Tile[0]);
+        Arrays.sort(sortedTiles, Comparator.comparingDouble(Tile::elevation).reversed());
 
-        // Starting at the lowest tile, initialize the runoff pattern for each tile. This has to
-        // start at the lowerst tile so that higher tiles can reference lowers tiles
-        sortedTiles.forEach(this::initRunoffPattern);
+        // Scratch space for the neighbors of each tile, indexed by direction. These are re-used
+        // for every tile in the continent so that we don't allocate anything per tile.
+        final Tile[] adjTiles = new Tile[Tile.NUM_SIDES];
+        final NeighborConsumer adjCollector = (dir, adj) -> adjTiles[dir.ordinal()] = adj;
 
-        // Apply the runoff pattern for each tile to move all the water
-        sortedTiles.forEach(t -> t.getRunoffPattern().distributeRunoff());
-    }
+        for (Tile tile : sortedTiles) {
+            Arrays.fill(adjTiles, null);
+            world().getTiles().forEachNeighbor(tile.pos().x(), tile.pos().y(), adjCollector);
+            initRunoffExits(tile, adjTiles);
 
-    private void initRunoffPattern(Tile tile) {
-        final Collection<Tile> adjTiles = world().getTiles().getAdjacentTiles(tile.pos()).values();
-        final RunoffPattern runoffPattern = tile.getRunoffPattern();
+            final int exitMask = tile.getRunoffExitMask();
+            if (exitMask != 0) {
+                tile.addRunoff(RAINFALL);
 
+                // Pass all water on this tile down the slope
+                final double toDistribute = tile.clearRunoff();
+                for (int d = 0; d < Tile.NUM_SIDES; d++) {
+                    if ((exitMask & (1 << d)) != 0) {
+                        adjTiles[d].addRunoff(
+                            toDistribute * tile.getRunoffExitFactor(DIRECTIONS[d]));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Initializes the runoff exits for the given tile.
+     *
+     * @param tile     the tile
+     * @param adjTiles the tiles adjacent to the given tile, indexed by direction ordinal (with
+     *                 {@code null} for each direction that has no tile)
+     */
+    private void initRunoffExits(Tile tile, Tile[] adjTiles) {
         // If any of the adjacent tiles are water, just dump all our runoff in there
-        final List<Tile> adjWaterTiles = adjTiles.stream()
-            .filter(t -> t.biome().isWater())
-            .collect(Collectors.toList());
-        if (!adjWaterTiles.isEmpty()) {
+        int numAdjWaterTiles = 0;
+        for (Tile adj : adjTiles) {
+            if (adj != null && adj.biome().isWater()) {
+                numAdjWaterTiles++;
+            }
+        }
+        if (numAdjWaterTiles > 0) {
             // Add each exit to the traversal pattern - evenly distribute the runoff among them
-            final double factor = 1.0 / adjWaterTiles.size(); // Amount of runoff for each tile
-            adjWaterTiles.forEach(t -> runoffPattern.addExit(t, factor));
+            final double factor = 1.0 / numAdjWaterTiles; // Amount of runoff for each tile
+            for (int d = 0; d < Tile.NUM_SIDES; d++) {
+                final Tile adj = adjTiles[d];
+                if (adj != null && adj.biome().isWater()) {
+                    tile.addRunoffExit(DIRECTIONS[d], factor);
+                }
+            }
         } else {
             // Add each lower adjacent tile as a runoff exit for this one. The runoff will be
             // divided among the tiles proportional to their elevation difference. The further
             // below this tile, the more runoff it gets.
 
-            // Get all tiles adjacent to this one with lower elevation, along with their elevation
-            // difference from the this tile
-            final List<Pair<Tile, Double>> lowerTiles = adjTiles.stream()
-                .filter(adj -> adj.elevation() < tile.elevation())
-                .map(t -> new Pair<>(t, tile.elevation() - t.elevation() + 1)) // Calc # of shares
-                .collect(Collectors.toList());
-
-            // Sum all elevation diffs
-            final double totalElevDiff = lowerTiles.stream()
-                .mapToDouble(Pair::second)
-                .sum();
-
-            for (Pair<Tile, Double> pair : lowerTiles) {
-                final Tile lowerTile = pair.first();
-                final double elevDiff = pair.second();
-                // Add the adjacent tile as a runoff exit, with the appropriate number of shares
-                runoffPattern.addExit(lowerTile, elevDiff / totalElevDiff);
+            // Sum the elevation differences between this tile and each lower adjacent tile. Each
+            // difference is the number of shares of runoff that tile gets.
+            double totalElevDiff = 0.0;
+            for (Tile adj : adjTiles) {
+                if (adj != null && adj.elevation() < tile.elevation()) {
+                    totalElevDiff += getElevDiff(tile, adj);
+                }
+            }
+
+            for (int d = 0; d < Tile.NUM_SIDES; d++) {
+                final Tile adj = adjTiles[d];
+                if (adj != null && adj.elevation() < tile.elevation()) {
+                    // Add the adjacent tile as a runoff exit, with the appropriate number of shares
+                    tile.addRunoffExit(DIRECTIONS[d], getElevDiff(tile, adj) / totalElevDiff);
+                }
             }
         }
     }
+
+    private static double getElevDiff(Tile tile, Tile lowerTile) {
+        return tile.elevation() - lowerTile.elevation() + 1;
+    }
 }
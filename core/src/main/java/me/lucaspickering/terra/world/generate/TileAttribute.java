@@ -0,0 +1,10 @@
+package me.lucaspickering.terra.world.generate;
+
+/**
+ * The attributes of a tile that generators can read and write. Each {@link Generator} declares
+ * which attributes it reads and writes, so that {@link GeneratorScheduler} can tell which stages
+ * depend on each other.
+ */
+public enum TileAttribute {
+    ELEVATION, HUMIDITY, BIOME, CONTINENT, RUNOFF
+}
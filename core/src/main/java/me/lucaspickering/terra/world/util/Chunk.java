@@ -1,7 +1,10 @@
 package me.lucaspickering.terra.world.util;
 
 import java.awt.Color;
+import java.util.List;
 
+import me.lucaspickering.terra.util.Direction;
+import me.lucaspickering.terra.world.Continent;
 import me.lucaspickering.terra.world.Tile;
 
 /**
@@ -11,22 +14,45 @@ import me.lucaspickering.terra.world.Tile;
  * always exactly {@link #TOTAL_TILES} tiles in a chunk</li> <li>Tiles cannot be added to or removed
  * from the chunk after initialization</li> <li>A tile that is in this chunk cannot be in any other
  * chunk</li> </ul>
+ *
+ * The attributes of each tile in a chunk are stored column-wise in a {@link TileColumns}, and each
+ * {@link Tile} is just a view onto its slot in those columns.
  */
 public class Chunk implements HexPointable {
 
     public static final int SIDE_LENGTH = 100;
     public static final int TOTAL_TILES = SIDE_LENGTH * SIDE_LENGTH;
 
+    // The difference in tile index between a tile and each of its neighbors, by direction ordinal.
+    // Only valid for tiles that aren't on the edge of the chunk.
+    private static final int[] NEIGHBOR_INDEX_OFFSETS = new int[Tile.NUM_SIDES];
+
+    static {
+        for (Direction dir : Direction.values()) {
+            NEIGHBOR_INDEX_OFFSETS[dir.ordinal()] =
+                dir.delta().x() * SIDE_LENGTH + dir.delta().y();
+        }
+    }
+
     private static final int OVERLAY_RGB_FACTOR = 50;
     private static final int OVERLAY_ALPHA = 100;
 
     private final HexPoint pos; // Position of this chunk relative to other chunks
     private final TileSet tiles;
+    private final Tile[] tilesByIndex; // Same tiles as above, by their index in the chunk
+    private final TileColumns columns;
+    private final List<Continent> continents; // Used to look up continents by ID
     private final Color overlayColor;
 
-    private Chunk(HexPoint pos) {
+    private Chunk(HexPoint pos, List<Continent> continents) {
         this.pos = pos;
-        tiles = new TileSet();
+        // Chunks are always full, so a dense set fits perfectly
+        final int startX = pos.x() * SIDE_LENGTH;
+        final int startY = pos.y() * SIDE_LENGTH;
+        tiles = new TileSet(startX, startY, startX + SIDE_LENGTH - 1, startY + SIDE_LENGTH - 1);
+        tilesByIndex = new Tile[TOTAL_TILES];
+        columns = new TileColumns();
+        this.continents = continents;
         overlayColor = new Color(pos.x() * OVERLAY_RGB_FACTOR & 0xff,
                                  pos.y() * OVERLAY_RGB_FACTOR & 0xff,
                                  pos.z() * OVERLAY_RGB_FACTOR & 0xff,
@@ -36,9 +62,13 @@ public class Chunk implements HexPointable {
     /**
      * Copy constructor
      */
-    private Chunk(HexPoint pos, TileSet tiles, Color overlayColor) {
+    private Chunk(HexPoint pos, TileSet tiles, Tile[] tilesByIndex, TileColumns columns,
+                  List<Continent> continents, Color overlayColor) {
         this.pos = pos;
         this.tiles = tiles;
+        this.tilesByIndex = tilesByIndex;
+        this.columns = columns;
+        this.continents = continents;
         this.overlayColor = overlayColor;
     }
 
@@ -48,11 +78,13 @@ public class Chunk implements HexPointable {
      * themselves are mutable. Each tile in the chunk will be initialized so that it belongs to this
      * chunk.
      *
-     * @param pos the position of the chunk
+     * @param pos        the position of the chunk
+     * @param continents the list of continents in the world, which will be used to look up each
+     *                   tile's continent by its ID
      * @return the created chunk
      */
-    public static Chunk createChunkWithTiles(HexPoint pos) {
-        final Chunk chunk = new Chunk(pos);
+    public static Chunk createChunkWithTiles(HexPoint pos, List<Continent> continents) {
+        final Chunk chunk = new Chunk(pos, continents);
         final int startX = pos.x() * SIDE_LENGTH;
         final int startY = pos.y() * SIDE_LENGTH;
         for (int x = startX; x < startX + SIDE_LENGTH; x++) {
@@ -60,7 +92,7 @@ public class Chunk implements HexPointable {
                 final HexPoint tilePos = new HexPoint(x, y);
                 final Tile tile = new Tile(tilePos, chunk);
                 chunk.tiles.add(tile);
-                tile.setChunk(chunk);
+                chunk.tilesByIndex[tile.getIndex()] = tile;
             }
         }
         assert chunk.tiles.size() == TOTAL_TILES;
@@ -79,6 +111,51 @@ public class Chunk implements HexPointable {
                             Math.floorDiv(tilePos.y(), SIDE_LENGTH));
     }
 
+    /**
+     * Converts the given tile position to the offset of that tile within its chunk. This offset is
+     * the index of the tile's values in its chunk's {@link TileColumns}. Tiles are laid out by x,
+     * then y, which matches the iteration order of a chunk's {@link TileSet}.
+     *
+     * @param tilePos the position of the tile
+     * @return the offset of the tile within its chunk, in [0, {@link #TOTAL_TILES})
+     */
+    public static int getTileIndex(HexPoint tilePos) {
+        return getTileIndex(tilePos.x(), tilePos.y());
+    }
+
+    /**
+     * @see #getTileIndex(HexPoint)
+     */
+    public static int getTileIndex(int x, int y) {
+        return Math.floorMod(x, SIDE_LENGTH) * SIDE_LENGTH + Math.floorMod(y, SIDE_LENGTH);
+    }
+
+    /**
+     * Is the tile at the given position in the interior of its chunk? A tile is in the interior if
+     * all of its neighbors are in the same chunk as it.
+     *
+     * @param x the x coord of the tile
+     * @param y the y coord of the tile
+     * @return {@code true} if the tile isn't on the edge of its chunk, {@code false} otherwise
+     */
+    public static boolean isInteriorTile(int x, int y) {
+        final int localX = Math.floorMod(x, SIDE_LENGTH);
+        final int localY = Math.floorMod(y, SIDE_LENGTH);
+        return localX > 0 && localX < SIDE_LENGTH - 1 && localY > 0 && localY < SIDE_LENGTH - 1;
+    }
+
+    /**
+     * Gets the index of the given tile's neighbor in the given direction. The tile must be in the
+     * interior of its chunk (see {@link #isInteriorTile}), otherwise the result is meaningless.
+     *
+     * @param index the index of a tile in the interior of a chunk
+     * @param dir   the direction of the neighbor
+     * @return the index of the neighbor, which is in the same chunk as the given tile
+     */
+    public static int getNeighborIndex(int index, Direction dir) {
+        return index + NEIGHBOR_INDEX_OFFSETS[dir.ordinal()];
+    }
+
     public HexPoint getPos() {
         return pos;
     }
@@ -92,12 +169,54 @@ public class Chunk implements HexPointable {
         return tiles;
     }
 
+    /**
+     * Gets the tile at the given offset within this chunk.
+     *
+     * @param index the offset of the tile (see {@link #getTileIndex})
+     * @return the tile
+     */
+    public Tile getTile(int index) {
+        return tilesByIndex[index];
+    }
+
+    public TileColumns getColumns() {
+        return columns;
+    }
+
+    /**
+     * Gets the continent that the tile at the given index belongs to.
+     *
+     * @param index the offset of the tile within this chunk
+     * @return the tile's continent, or {@code null} if it doesn't belong to one
+     */
+    public Continent getContinent(int index) {
+        final int id = columns.getContinentId(index);
+        return id != 0 ? continents.get(id - 1) : null; // IDs are 1-indexed, 0 means no continent
+    }
+
+    /**
+     * Sets the continent that the tile at the given index belongs to. The continent must already
+     * be in the world's list of continents, at position {@code continent.getId() - 1}.
+     *
+     * @param index     the offset of the tile within this chunk
+     * @param continent the tile's new continent (or {@code null} for no continent)
+     * @throws IllegalArgumentException if the continent's ID doesn't fit in a tile column
+     */
+    public void setContinent(int index, Continent continent) {
+        final int id = continent != null ? continent.getId() : 0;
+        if (id < 0 || id > Short.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Invalid continent ID [%d]", id));
+        }
+        columns.setContinentId(index, (short) id);
+    }
+
     public Color getOverlayColor() {
         return overlayColor;
     }
 
     public Chunk immutableCopy() {
-        return new Chunk(pos, tiles.immutableCopy(), overlayColor);
+        return new Chunk(pos, tiles.immutableCopy(), tilesByIndex, columns, continents,
+                         overlayColor);
     }
 
     @Override
@@ -8,7 +8,6 @@ import java.util.function.Predicate;
 import java.util.function.ToDoubleBiFunction;
 
 import me.lucaspickering.terra.world.Tile;
-import me.lucaspickering.utils.GeneralFuncs;
 
 /**
  * A Cluster is a {@link TileSet}, where the tiles in the collection are assumed to form one
@@ -22,9 +21,9 @@ import me.lucaspickering.utils.GeneralFuncs;
 public class Cluster extends TileSet {
 
     /**
-     * Constructs a new empty Cluster.
+     * Constructs a new empty Cluster. Like any other sparse set, it iterates in order of x, then y.
      */
-    private Cluster() {
+    public Cluster() {
         super();
     }
 
@@ -48,6 +47,18 @@ public class Cluster extends TileSet {
         return categoryCluster(tiles, predicate::test).getOrDefault(true, new LinkedList<>());
     }
 
+    /**
+     * Same as {@link #predicateCluster(TileSet, Predicate)}, but clusters all of the tiles in the
+     * given chunks, in parallel. The predicate must be thread-safe.
+     *
+     * @see #categoryCluster(Collection, Function)
+     */
+    @NotNull
+    public static List<Cluster> predicateCluster(@NotNull Collection<Chunk> chunks,
+                                                 @NotNull Predicate<Tile> predicate) {
+        return categoryCluster(chunks, predicate::test).getOrDefault(true, new LinkedList<>());
+    }
+
     /**
      * Clusters the tiles in the given set into lists of clusters based on adjacency. For each tile
      * in any given cluster, the following is true: <ul> <li>if it is not the only tile in the
@@ -66,6 +77,9 @@ public class Cluster extends TileSet {
      *
      * The category function should be stable, i.e. the same input always returns the same output.
      *
+     * Within each list, clusters are ordered by their first tile, when tiles are ordered by x, then
+     * y. See {@link ComponentLabels} for details of the algorithm.
+     *
      * @param tiles        the set of tiles on which to operate
      * @param categoryFunc the function used to determine if each tile should be clustered or not
      * @return the positive and negative clusters, in a pair (with positive first)
@@ -73,63 +87,24 @@ public class Cluster extends TileSet {
     @NotNull
     public static <T> Map<T, List<Cluster>>
     categoryCluster(@NotNull TileSet tiles, @NotNull Function<Tile, T> categoryFunc) {
-        // Potential optimization?
-        // First divide each tile into its own cluster, then iterate over all those clusters and
-        // begin joining clusters that have the same category and have adjacent tiles.
-
-        final TileSet unclusteredTiles = new TileSet(tiles); // Copy the input structure
-        final Map<T, List<Cluster>> result = new HashMap<>();
-
-        // Each iteration of this loop creates a new cluster
-        while (!unclusteredTiles.isEmpty()) {
-            // Grab a tile to work with
-            final Tile firstTile = GeneralFuncs.firstFromCollection(unclusteredTiles);
-            final T category = categoryFunc.apply(firstTile); // Determine its category
-
-            // Start building a cluster around this tile
-            final Cluster cluster = new Cluster();
-            // Keep track of the tiles whose adjacent tiles haven't been checked yet
-            final TileSet uncheckedTiles = new TileSet();
-
-            // Add the first tile to the cluster
-            addToCluster(firstTile, cluster, uncheckedTiles, unclusteredTiles);
-
-            // If there is still at least one tile whose adjacents haven't been checked yet...
-            while (!uncheckedTiles.isEmpty()) {
-                // Grab one of those unchecked tiles
-                final Tile tile = GeneralFuncs.firstFromCollection(uncheckedTiles);
-
-                // For each unclustered tile adjacent to this one...
-                for (final Tile adjTile : unclusteredTiles.getAdjacentTiles(tile.pos()).values()) {
-                    // If this adjacent tile has the same category as the cluster, add it
-                    if (categoryFunc.apply(adjTile).equals(category)) {
-                        addToCluster(adjTile, cluster, uncheckedTiles, unclusteredTiles);
-                    }
-                }
-
-                uncheckedTiles.remove(tile); // We've now checked this tile
-            }
-
-            // Add this cluster to the list of clusters in this category. If there is no list for
-            // this category yet, make one and add it to the map.
-            final List<Cluster> clusterList;
-            if (result.containsKey(category)) {
-                clusterList = result.get(category);
-            } else {
-                clusterList = new ArrayList<>();
-                result.put(category, clusterList);
-            }
-            clusterList.add(cluster);
-        }
-
-        return result;
+        return ComponentLabels.label(tiles, categoryFunc).toClusters();
     }
 
-    private static void addToCluster(Tile tile, Cluster cluster, TileSet uncheckedTiles,
-                                     TileSet unclusteredTiles) {
-        cluster.add(tile);
-        uncheckedTiles.add(tile);
-        unclusteredTiles.remove(tile);
+    /**
+     * Same as {@link #categoryCluster(TileSet, Function)}, but clusters all of the tiles in the
+     * given chunks. Each chunk is clustered in parallel, then clusters are joined across chunk
+     * borders. The result, including the order of clusters in each list, is exactly the same as
+     * clustering a set of all of the chunks' tiles. The category function must be thread-safe.
+     *
+     * @param chunks       the chunks whose tiles will be clustered
+     * @param categoryFunc the function used to determine the category of each tile
+     * @return the clusters for each category
+     * @see ComponentLabels#labelChunks
+     */
+    @NotNull
+    public static <T> Map<T, List<Cluster>>
+    categoryCluster(@NotNull Collection<Chunk> chunks, @NotNull Function<Tile, T> categoryFunc) {
+        return ComponentLabels.labelChunks(chunks, categoryFunc).toClusters();
     }
 
     /**
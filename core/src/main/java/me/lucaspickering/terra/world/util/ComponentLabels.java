@@ -0,0 +1,460 @@
+package me.lucaspickering.terra.world.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Function;
+
+import me.lucaspickering.terra.profile.ClusterPassEvent;
+import me.lucaspickering.terra.world.Tile;
+
+/**
+ * The connected components of a set of tiles, where two adjacent tiles are connected iff they are
+ * in the same category. Each component is given an integer label, starting at 0. Labels are
+ * assigned in order of each component's first tile, when the tiles are ordered by x, then y (the
+ * same as {@link HexPoint#compareTo}).
+ *
+ * The tiles are laid out on a dense grid covering their bounding rectangle, and components are
+ * found using union-find on primitive arrays. This takes near-linear time, and allocates nothing
+ * per tile. Components can be found either with a single scan over the grid
+ * ({@link #label}), or chunk-by-chunk in parallel ({@link #labelChunks}). Both give exactly the
+ * same labels for the same tiles.
+ *
+ * @param <T> the type of the categories
+ */
+public class ComponentLabels<T> {
+
+    public static final int NO_LABEL = -1; // Label for points that aren't in the tile set
+
+    private final int minX;
+    private final int minY;
+    private final int width; // Number of x values in the grid
+    private final int height; // Number of y values in the grid
+    private final Tile[] cells; // The tile in each cell of the grid, or null if there is none
+    private final int[] labels; // The label for each cell of the grid, or NO_LABEL
+    private final int[] sizes; // The number of tiles in each component, by label
+    private final List<T> categories; // The category of each component, by label
+
+    /**
+     * Constructs a new set of labels from the given grid. The root of each cell's component must
+     * be the first cell in that component.
+     *
+     * @param minX           the lowest x value in the grid
+     * @param minY           the lowest y value in the grid
+     * @param width          the number of x values in the grid
+     * @param height         the number of y values in the grid
+     * @param cells          the tile in each cell, or {@code null} for empty cells
+     * @param roots          the root of the component of each non-empty cell
+     * @param cellCategories the category ID of each non-empty cell
+     * @param categoryList   the category for each category ID
+     */
+    private ComponentLabels(int minX, int minY, int width, int height, Tile[] cells, int[] roots,
+                            int[] cellCategories, List<T> categoryList) {
+        this.minX = minX;
+        this.minY = minY;
+        this.width = width;
+        this.height = height;
+        this.cells = cells;
+
+        // Assign labels to each root in order, then give each tile the label of its root. Every
+        // root is the first cell of its component, so it is labelled before any other cell in
+        // the component.
+        labels = new int[cells.length];
+        Arrays.fill(labels, NO_LABEL);
+        categories = new ArrayList<>();
+        int[] sizes = new int[16];
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] == null) {
+                continue;
+            }
+            final int root = roots[cell];
+            final int label;
+            if (root == cell) {
+                // This is the first cell in a new component
+                label = categories.size();
+                categories.add(categoryList.get(cellCategories[cell]));
+                if (label == sizes.length) {
+                    sizes = Arrays.copyOf(sizes, sizes.length * 2);
+                }
+            } else {
+                label = labels[root];
+            }
+            labels[cell] = label;
+            sizes[label]++;
+        }
+        this.sizes = Arrays.copyOf(sizes, categories.size());
+    }
+
+    /**
+     * Labels the connected components of the given tiles, in a single thread. See the class
+     * description for details.
+     *
+     * @param tiles        the tiles to label
+     * @param categoryFunc the function that determines each tile's category (must be stable)
+     * @param <T>          the type of the categories
+     * @return the labelled components
+     */
+    @NotNull
+    public static <T> ComponentLabels<T> label(@NotNull TileSet tiles,
+                                               @NotNull Function<Tile, T> categoryFunc) {
+        final ClusterPassEvent event = ClusterPassEvent.start("label", tiles.size());
+
+        // Find the bounds of the grid
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (Tile tile : tiles) {
+            minX = Math.min(minX, tile.pos().x());
+            minY = Math.min(minY, tile.pos().y());
+            maxX = Math.max(maxX, tile.pos().x());
+            maxY = Math.max(maxY, tile.pos().y());
+        }
+        final int width = tiles.isEmpty() ? 0 : maxX - minX + 1;
+        final int height = tiles.isEmpty() ? 0 : maxY - minY + 1;
+
+        // Lay the tiles out on the grid, and find each tile's category. Categories are stored as
+        // ints, so the category function is only called once per tile.
+        final Tile[] cells = new Tile[width * height];
+        final int[] cellCategories = new int[cells.length];
+        final Map<T, Integer> categoryIds = new HashMap<>();
+        final List<T> categoryList = new ArrayList<>();
+        for (Tile tile : tiles) {
+            final T category = categoryFunc.apply(tile);
+            Integer categoryId = categoryIds.get(category);
+            if (categoryId == null) {
+                categoryId = categoryList.size();
+                categoryIds.put(category, categoryId);
+                categoryList.add(category);
+            }
+            final int cell = (tile.pos().x() - minX) * height + (tile.pos().y() - minY);
+            cells[cell] = tile;
+            cellCategories[cell] = categoryId;
+        }
+
+        // Scan the grid in order, joining each tile with any neighbors that have already been
+        // visited and are in the same category. Those are the neighbors at (x - 1, y),
+        // (x - 1, y + 1) and (x, y - 1).
+        final int[] parents = new int[cells.length];
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] == null) {
+                continue;
+            }
+            parents[cell] = cell;
+            final int x = cell / height;
+            final int y = cell % height;
+            if (x > 0) {
+                union(parents, cells, cellCategories, cell, cell - height);
+                if (y < height - 1) {
+                    union(parents, cells, cellCategories, cell, cell - height + 1);
+                }
+            }
+            if (y > 0) {
+                union(parents, cells, cellCategories, cell, cell - 1);
+            }
+        }
+
+        // Point every cell directly at its root
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] != null) {
+                parents[cell] = find(parents, cell);
+            }
+        }
+        event.commit();
+        return new ComponentLabels<>(minX, minY, width, height, cells, parents, cellCategories,
+                                     categoryList);
+    }
+
+    /**
+     * Labels the connected components of all tiles in the given chunks. Each chunk is labelled on
+     * its own in parallel, then components are joined across chunk borders, also in parallel,
+     * using a lock-free union-find that only visits the tiles on the borders. The result is
+     * identical to calling {@link #label} with the same tiles.
+     *
+     * The category function will be called from multiple threads, so it must be thread-safe.
+     *
+     * @param chunks       the chunks to label
+     * @param categoryFunc the function that determines each tile's category (must be stable)
+     * @param <T>          the type of the categories
+     * @return the labelled components
+     */
+    @NotNull
+    public static <T> ComponentLabels<T> labelChunks(@NotNull Collection<Chunk> chunks,
+                                                     @NotNull Function<Tile, T> categoryFunc) {
+        final List<Chunk> chunkList = new ArrayList<>(chunks);
+        final int numTiles = chunkList.size() * Chunk.TOTAL_TILES;
+
+        // Find the bounds of the grid
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (Chunk chunk : chunkList) {
+            minX = Math.min(minX, chunk.getPos().x() * Chunk.SIDE_LENGTH);
+            minY = Math.min(minY, chunk.getPos().y() * Chunk.SIDE_LENGTH);
+            maxX = Math.max(maxX, (chunk.getPos().x() + 1) * Chunk.SIDE_LENGTH - 1);
+            maxY = Math.max(maxY, (chunk.getPos().y() + 1) * Chunk.SIDE_LENGTH - 1);
+        }
+        final int gridMinX = minX;
+        final int gridMinY = minY;
+        final int width = chunkList.isEmpty() ? 0 : maxX - minX + 1;
+        final int height = chunkList.isEmpty() ? 0 : maxY - minY + 1;
+
+        final Tile[] cells = new Tile[width * height];
+        final int[] cellCategories = new int[cells.length];
+        final AtomicIntegerArray parents = new AtomicIntegerArray(cells.length);
+
+        // Category IDs are handed out in whatever order threads find them, which is fine because
+        // they're only compared to each other. Labels are still assigned in a fixed order.
+        final ConcurrentMap<T, Integer> categoryIds = new ConcurrentHashMap<>();
+        final AtomicInteger nextCategoryId = new AtomicInteger();
+
+        // Label each chunk on its own. Chunks cover disjoint cells, so they don't interfere.
+        final ClusterPassEvent labelEvent = ClusterPassEvent.start("labelChunks", numTiles);
+        chunkList.parallelStream().forEach(chunk -> {
+            final int startCell = (chunk.getPos().x() * Chunk.SIDE_LENGTH - gridMinX) * height
+                                  + (chunk.getPos().y() * Chunk.SIDE_LENGTH - gridMinY);
+            final Map<T, Integer> localIds = new HashMap<>(); // Avoids contention on the shared map
+            for (int index = 0; index < Chunk.TOTAL_TILES; index++) {
+                final int localX = index / Chunk.SIDE_LENGTH;
+                final int localY = index % Chunk.SIDE_LENGTH;
+                final int cell = startCell + localX * height + localY;
+                final Tile tile = chunk.getTile(index);
+                final T category = categoryFunc.apply(tile);
+                Integer categoryId = localIds.get(category);
+                if (categoryId == null) {
+                    categoryId = categoryIds.computeIfAbsent(
+                        category, c -> nextCategoryId.getAndIncrement());
+                    localIds.put(category, categoryId);
+                }
+                cells[cell] = tile;
+                cellCategories[cell] = categoryId;
+                parents.set(cell, cell);
+
+                // Join with the previously visited neighbors that are in this chunk
+                if (localX > 0) {
+                    localUnion(parents, cellCategories, cell, cell - height);
+                    if (localY < Chunk.SIDE_LENGTH - 1) {
+                        localUnion(parents, cellCategories, cell, cell - height + 1);
+                    }
+                }
+                if (localY > 0) {
+                    localUnion(parents, cellCategories, cell, cell - 1);
+                }
+            }
+        });
+
+        labelEvent.commit();
+
+        // Join components across chunk borders. Each border tile is joined with its previously
+        // visited neighbors in other chunks, so each pair of neighbors is only checked once.
+        final ClusterPassEvent joinEvent = ClusterPassEvent.start("joinBorders", numTiles);
+        chunkList.parallelStream().forEach(chunk -> {
+            final int startX = chunk.getPos().x() * Chunk.SIDE_LENGTH;
+            final int startY = chunk.getPos().y() * Chunk.SIDE_LENGTH;
+            for (int i = 0; i < Chunk.SIDE_LENGTH; i++) {
+                // The left edge has neighbors at (x - 1, y) and (x - 1, y + 1)
+                final int leftCell = (startX - gridMinX) * height + (startY + i - gridMinY);
+                if (startX > gridMinX) {
+                    concurrentUnion(parents, cells, cellCategories, leftCell, leftCell - height);
+                    if (startY + i < gridMinY + height - 1) {
+                        concurrentUnion(parents, cells, cellCategories, leftCell,
+                                        leftCell - height + 1);
+                    }
+                }
+
+                // The bottom edge has neighbors at (x, y - 1)
+                final int bottomCell = (startX + i - gridMinX) * height + (startY - gridMinY);
+                if (startY > gridMinY) {
+                    concurrentUnion(parents, cells, cellCategories, bottomCell, bottomCell - 1);
+                }
+
+                // The top edge has neighbors at (x - 1, y + 1), which are in the chunk above
+                final int topCell = bottomCell + Chunk.SIDE_LENGTH - 1;
+                if (i > 0 && startY + Chunk.SIDE_LENGTH < gridMinY + height) {
+                    concurrentUnion(parents, cells, cellCategories, topCell, topCell - height + 1);
+                }
+            }
+        });
+
+        joinEvent.commit();
+
+        // The roots are now final, so point every cell directly at its root
+        final ClusterPassEvent compressEvent = ClusterPassEvent.start("compress", numTiles);
+        final int[] roots = new int[cells.length];
+        chunkList.parallelStream().forEach(chunk -> {
+            final int startCell = (chunk.getPos().x() * Chunk.SIDE_LENGTH - gridMinX) * height
+                                  + (chunk.getPos().y() * Chunk.SIDE_LENGTH - gridMinY);
+            for (int localX = 0; localX < Chunk.SIDE_LENGTH; localX++) {
+                for (int localY = 0; localY < Chunk.SIDE_LENGTH; localY++) {
+                    final int cell = startCell + localX * height + localY;
+                    roots[cell] = concurrentFind(parents, cell);
+                }
+            }
+        });
+        compressEvent.commit();
+
+        final List<T> categoryList = new ArrayList<>(Collections.nCopies(categoryIds.size(), null));
+        categoryIds.forEach((category, id) -> categoryList.set(id, category));
+        return new ComponentLabels<>(gridMinX, gridMinY, width, height, cells, roots,
+                                     cellCategories, categoryList);
+    }
+
+    /**
+     * Gets the number of components, which is one more than the highest label.
+     *
+     * @return the number of components
+     */
+    public int getComponentCount() {
+        return sizes.length;
+    }
+
+    /**
+     * Gets the label of the component that contains the tile at the given coordinates.
+     *
+     * @param x the x coord of the tile
+     * @param y the y coord of the tile
+     * @return the tile's label, or {@link #NO_LABEL} if the tile isn't in the labelled set
+     */
+    public int getLabel(int x, int y) {
+        if (Integer.toUnsignedLong(x - minX) >= width
+            || Integer.toUnsignedLong(y - minY) >= height) {
+            return NO_LABEL;
+        }
+        return labels[(x - minX) * height + (y - minY)];
+    }
+
+    /**
+     * Gets the number of tiles in the component with the given label.
+     *
+     * @param label the label of the component
+     * @return the size of the component
+     * @throws IndexOutOfBoundsException if there is no component with the given label
+     */
+    public int getSize(int label) {
+        return sizes[label];
+    }
+
+    /**
+     * Gets the category of the component with the given label.
+     *
+     * @param label the label of the component
+     * @return the category of the component
+     * @throws IndexOutOfBoundsException if there is no component with the given label
+     */
+    public T getCategory(int label) {
+        return categories.get(label);
+    }
+
+    /**
+     * Builds a {@link Cluster} for each component, and groups them by category. Within each
+     * category, clusters are in order of their labels.
+     *
+     * @return a list of clusters for each category
+     * @see Cluster#categoryCluster
+     */
+    @NotNull
+    public Map<T, List<Cluster>> toClusters() {
+        final Cluster[] clusters = new Cluster[sizes.length];
+        final Map<T, List<Cluster>> result = new HashMap<>();
+        for (int label = 0; label < sizes.length; label++) {
+            clusters[label] = new Cluster();
+            result.computeIfAbsent(categories.get(label), c -> new ArrayList<>())
+                .add(clusters[label]);
+        }
+
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] != null) {
+                clusters[labels[cell]].add(cells[cell]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Joins the components of the two given cells, if the second cell has a tile in the same
+     * category as the first. The root with the lower index becomes the root of the joined
+     * component, so every root is always the first cell in its component.
+     */
+    private static void union(int[] parents, Tile[] cells, int[] cellCategories, int cell,
+                              int other) {
+        if (cells[other] == null || cellCategories[other] != cellCategories[cell]) {
+            return;
+        }
+        final int root = find(parents, cell);
+        final int otherRoot = find(parents, other);
+        if (root < otherRoot) {
+            parents[otherRoot] = root;
+        } else if (otherRoot < root) {
+            parents[root] = otherRoot;
+        }
+    }
+
+    private static int find(int[] parents, int cell) {
+        int current = cell;
+        while (parents[current] != current) {
+            parents[current] = parents[parents[current]]; // Path halving
+            current = parents[current];
+        }
+        return current;
+    }
+
+    /**
+     * Same as {@link #union(int[], Tile[], int[], int, int)}, but for two cells in the same chunk,
+     * while that chunk is only being touched by one thread. Both cells are known to have tiles.
+     */
+    private static void localUnion(AtomicIntegerArray parents, int[] cellCategories, int cell,
+                                   int other) {
+        if (cellCategories[other] != cellCategories[cell]) {
+            return;
+        }
+        final int root = concurrentFind(parents, cell);
+        final int otherRoot = concurrentFind(parents, other);
+        if (root < otherRoot) {
+            parents.set(otherRoot, root);
+        } else if (otherRoot < root) {
+            parents.set(root, otherRoot);
+        }
+    }
+
+    /**
+     * Same as {@link #union(int[], Tile[], int[], int, int)}, but safe to call from multiple
+     * threads at once. Roots are only ever linked to lower roots, and each link is made with a
+     * compare-and-set that fails if the root has been linked elsewhere in the meantime, in which
+     * case the roots are found again and the join is retried.
+     */
+    private static void concurrentUnion(AtomicIntegerArray parents, Tile[] cells,
+                                        int[] cellCategories, int cell, int other) {
+        if (cells[other] == null || cellCategories[other] != cellCategories[cell]) {
+            return;
+        }
+        while (true) {
+            final int root = concurrentFind(parents, cell);
+            final int otherRoot = concurrentFind(parents, other);
+            if (root == otherRoot) {
+                return;
+            }
+            final int high = Math.max(root, otherRoot);
+            final int low = Math.min(root, otherRoot);
+            if (parents.compareAndSet(high, high, low)) {
+                return;
+            }
+        }
+    }
+
+    private static int concurrentFind(AtomicIntegerArray parents, int cell) {
+        int current = cell;
+        int parent;
+        while ((parent = parents.get(current)) != current) {
+            // Path halving. If another thread changed the parent first, just leave it be.
+            final int grandparent = parents.get(parent);
+            parents.compareAndSet(current, parent, grandparent);
+            current = grandparent;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,311 @@
+package me.lucaspickering.terra.world.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * A map keyed by {@link HexPoint}s that all fall within a known rectangle of (x, y) coordinates.
+ * Each point in the rectangle gets its own slot in an array, so lookups, insertions and removals
+ * are just an index calculation, with no searching or hashing. This is meant for regions where
+ * most of the points in the bounds are actually in the map, such as chunks. For sparse or
+ * irregular regions, a {@link TreeMap} is a better fit.
+ *
+ * Slots are laid out by x, then y. That means iteration order is the same as it would be for a
+ * {@link TreeMap} with the same keys, as {@link HexPoint#compareTo} also orders by x, then y.
+ *
+ * Null values are not supported.
+ *
+ * @param <V> the type of the values in the map
+ */
+class DenseHexPointMap<V> extends AbstractMap<HexPoint, V> {
+
+    private final class EntrySet extends AbstractSet<Entry<HexPoint, V>> {
+
+        @NotNull
+        @Override
+        public Iterator<Entry<HexPoint, V>> iterator() {
+            return new SlotIterator<Entry<HexPoint, V>>() {
+                @Override
+                Entry<HexPoint, V> get(int slot) {
+                    return new SimpleImmutableEntry<>(slotToPoint(slot), valueAt(slot));
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return DenseHexPointMap.this.size();
+        }
+    }
+
+    private final class Values extends AbstractCollection<V> {
+
+        @NotNull
+        @Override
+        public Iterator<V> iterator() {
+            return new SlotIterator<V>() {
+                @Override
+                V get(int slot) {
+                    return valueAt(slot);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return DenseHexPointMap.this.size();
+        }
+    }
+
+    /**
+     * Iterates over each occupied slot in the map, in ascending order.
+     */
+    private abstract class SlotIterator<T> implements Iterator<T> {
+
+        private int nextSlot = findOccupiedSlot(0);
+        private int lastSlot = -1;
+
+        @Override
+        public boolean hasNext() {
+            return nextSlot < values.length;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastSlot = nextSlot;
+            nextSlot = findOccupiedSlot(nextSlot + 1);
+            return get(lastSlot);
+        }
+
+        @Override
+        public void remove() {
+            if (lastSlot < 0) {
+                throw new IllegalStateException();
+            }
+            removeSlot(lastSlot);
+            lastSlot = -1;
+        }
+
+        abstract T get(int slot);
+    }
+
+    private final int minX;
+    private final int minY;
+    private final int width; // Number of x values in the bounds
+    private final int height; // Number of y values in the bounds
+    private final Object[] values;
+
+    // For an immutable view, this is the map that backs it. For a regular map, this is null.
+    private final DenseHexPointMap<V> backing;
+    private int size;
+
+    private Set<Entry<HexPoint, V>> entrySet;
+    private Collection<V> valueCollection;
+
+    /**
+     * Constructs a new empty map covering all points with x in [minX, maxX] and y in [minY, maxY].
+     *
+     * @param minX the lowest x value of any point in the map
+     * @param minY the lowest y value of any point in the map
+     * @param maxX the highest x value of any point in the map
+     * @param maxY the highest y value of any point in the map
+     * @throws IllegalArgumentException if either max is less than its corresponding min
+     */
+    DenseHexPointMap(int minX, int minY, int maxX, int maxY) {
+        if (maxX < minX || maxY < minY) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid bounds: x in [%d, %d], y in [%d, %d]", minX, maxX, minY, maxY));
+        }
+        this.minX = minX;
+        this.minY = minY;
+        width = maxX - minX + 1;
+        height = maxY - minY + 1;
+        values = new Object[width * height];
+        backing = null;
+    }
+
+    /**
+     * Constructs an immutable view of the given map. The view shares the given map's storage, so
+     * it will reflect any changes made to that map.
+     *
+     * @param backing the map to back this view
+     */
+    private DenseHexPointMap(DenseHexPointMap<V> backing) {
+        minX = backing.minX;
+        minY = backing.minY;
+        width = backing.width;
+        height = backing.height;
+        values = backing.values;
+        this.backing = backing;
+    }
+
+    int minX() {
+        return minX;
+    }
+
+    int minY() {
+        return minY;
+    }
+
+    int maxX() {
+        return minX + width - 1;
+    }
+
+    int maxY() {
+        return minY + height - 1;
+    }
+
+    /**
+     * Is the given point within the bounds of this map? This says nothing about whether or not
+     * the point is actually in the map.
+     *
+     * @param x the x coord of the point
+     * @param y the y coord of the point
+     * @return {@code true} if the point has a slot in this map, {@code false} otherwise
+     */
+    boolean inBounds(int x, int y) {
+        // Casting to long makes negative offsets wrap to huge values, so one compare per axis
+        return Integer.toUnsignedLong(x - minX) < width && Integer.toUnsignedLong(y - minY) < height;
+    }
+
+    /**
+     * Gets the value for the point with the given coordinates. No {@link HexPoint} is needed, so
+     * this can be used in hot loops without allocating anything.
+     *
+     * @param x the x coord of the point
+     * @param y the y coord of the point
+     * @return the value at that point, or {@code null} if there is none
+     */
+    V getByCoords(int x, int y) {
+        if (!inBounds(x, y)) {
+            return null;
+        }
+        return valueAt(toSlot(x, y));
+    }
+
+    @Override
+    public V get(Object key) {
+        if (key instanceof HexPoint) {
+            final HexPoint point = (HexPoint) key;
+            return getByCoords(point.x(), point.y());
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V put(HexPoint key, V value) {
+        checkMutable();
+        Objects.requireNonNull(value);
+        if (!inBounds(key.x(), key.y())) {
+            throw new IllegalArgumentException(String.format(
+                "Point %s is outside the bounds of this map", key));
+        }
+
+        final int slot = toSlot(key.x(), key.y());
+        final V evicted = valueAt(slot);
+        values[slot] = value;
+        if (evicted == null) {
+            size++;
+        }
+        return evicted;
+    }
+
+    @Override
+    public V remove(Object key) {
+        checkMutable();
+        if (key instanceof HexPoint) {
+            final HexPoint point = (HexPoint) key;
+            if (inBounds(point.x(), point.y())) {
+                return removeSlot(toSlot(point.x(), point.y()));
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        checkMutable();
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return backing != null ? backing.size() : size;
+    }
+
+    @NotNull
+    @Override
+    public Set<Entry<HexPoint, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    @NotNull
+    @Override
+    public Collection<V> values() {
+        // Overridden so that iterating over values doesn't create a HexPoint for every entry
+        if (valueCollection == null) {
+            valueCollection = new Values();
+        }
+        return valueCollection;
+    }
+
+    /**
+     * Creates an immutable view of this map. The view shares this map's storage, so no copying is
+     * done, and any later changes to this map will be visible through the view.
+     *
+     * @return an immutable view of this map
+     */
+    DenseHexPointMap<V> immutableView() {
+        return new DenseHexPointMap<>(backing != null ? backing : this);
+    }
+
+    private int toSlot(int x, int y) {
+        return (x - minX) * height + (y - minY);
+    }
+
+    private HexPoint slotToPoint(int slot) {
+        return new HexPoint(minX + slot / height, minY + slot % height);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    private int findOccupiedSlot(int start) {
+        int slot = start;
+        while (slot < values.length && values[slot] == null) {
+            slot++;
+        }
+        return slot;
+    }
+
+    private V removeSlot(int slot) {
+        checkMutable();
+        final V removed = valueAt(slot);
+        if (removed != null) {
+            values[slot] = null;
+            size--;
+        }
+        return removed;
+    }
+
+    private void checkMutable() {
+        if (backing != null) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
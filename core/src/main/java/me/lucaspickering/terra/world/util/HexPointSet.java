@@ -6,24 +6,59 @@ import java.util.*;
 
 import me.lucaspickering.terra.world.Tile;
 
+/**
+ * A set of {@link HexPointable}s, keyed by their {@link HexPoint}s. There are two possible layouts
+ * for the internal storage: <ul> <li>Dense, where the bounds of the points are known up front and
+ * each point in the bounds gets its own array slot (see {@link #HexPointSet(int, int, int,
+ * int)})</li> <li>Sparse, where the points are kept in a sorted tree, for irregular shapes with
+ * no known bounds</li> </ul>
+ *
+ * Dense lookups take constant time, and sparse ones take logarithmic time. Both layouts iterate
+ * in order of x, then y (see {@link HexPoint#compareTo}), so anything that walks a set, such as
+ * summing values over it, gets the same result for the same points. A copy of a set uses the same
+ * layout as the original.
+ *
+ * @param <E> the type of the elements in the set
+ */
 public class HexPointSet<E extends HexPointable> extends AbstractSet<E> {
 
     // Internal map
     private final Map<HexPoint, E> map;
+    private final DenseHexPointMap<E> dense; // The internal map, if it is dense, otherwise null
 
+    /**
+     * Constructs a new empty, sparse set.
+     */
     public HexPointSet() {
-        map = new TreeMap<>(); // Uses HexPoint's compareTo method for ordering
+        this(new TreeMap<>()); // Uses HexPoint's compareTo method for ordering
+    }
+
+    /**
+     * Constructs a new empty, dense set for points with x in [minX, maxX] and y in [minY, maxY].
+     * Points outside those bounds can't be added to the set. Use this whenever the bounds are known
+     * ahead of time, and most of the points within the bounds will be in the set.
+     *
+     * @param minX the lowest x value of any point in the set
+     * @param minY the lowest y value of any point in the set
+     * @param maxX the highest x value of any point in the set
+     * @param maxY the highest y value of any point in the set
+     */
+    public HexPointSet(int minX, int minY, int maxX, int maxY) {
+        this(createDenseMap(minX, minY, maxX, maxY));
     }
 
     /**
      * Constructs a new {@link TileSet} by copying the values in the given object. This is a shallow
      * copy, meaning the objects are put in this collection without being copied. You can modify the
-     * returned object freely, but be careful about modifying the tiles inside it.
+     * returned object freely, but be careful about modifying the tiles inside it. If the given
+     * object is also a {@link HexPointSet}, the copy will use the same storage layout.
      *
      * @param tiles the object to copy
      */
     public HexPointSet(Collection<? extends E> tiles) {
-        this();
+        this(tiles instanceof HexPointSet
+             ? ((HexPointSet<? extends E>) tiles).createSimilarMap()
+             : new TreeMap<>());
         addAll(tiles);
     }
 
@@ -34,16 +69,58 @@ public class HexPointSet<E extends HexPointable> extends AbstractSet<E> {
      */
     protected HexPointSet(Map<HexPoint, E> map) {
         this.map = map;
+        dense = map instanceof DenseHexPointMap ? (DenseHexPointMap<E>) map : null;
     }
 
     protected Map<HexPoint, E> immutableInternalMap() {
+        if (dense != null) {
+            return dense.immutableView(); // Keeps the fast lookups
+        }
         return Collections.unmodifiableMap(map);
     }
 
+    /**
+     * Creates a new empty map with the same layout as this set's internal map. If this set is
+     * dense, the new map will have the same bounds. This is used to make copies of this set.
+     *
+     * @param <T> the type of the values in the new map
+     * @return a new empty map, suitable for holding the points in this set
+     */
+    protected <T> Map<HexPoint, T> createSimilarMap() {
+        if (dense != null) {
+            return createDenseMap(dense.minX(), dense.minY(), dense.maxX(), dense.maxY());
+        }
+        return new TreeMap<>();
+    }
+
+    /**
+     * Creates a new empty map with a dense layout, to be used as the internal map of a set.
+     *
+     * @see #HexPointSet(int, int, int, int)
+     */
+    protected static <T> Map<HexPoint, T> createDenseMap(int minX, int minY, int maxX, int maxY) {
+        return new DenseHexPointMap<>(minX, minY, maxX, maxY);
+    }
+
     public E getByPoint(HexPoint point) {
         return map.get(point);
     }
 
+    /**
+     * Gets the element at the point with the given coordinates. For dense sets, this doesn't need
+     * to create a {@link HexPoint}, so it is safe to use in hot loops.
+     *
+     * @param x the x coord of the point
+     * @param y the y coord of the point
+     * @return the element at that point, or {@code null} if there is none
+     */
+    public E getByCoords(int x, int y) {
+        if (dense != null) {
+            return dense.getByCoords(x, y);
+        }
+        return getByPoint(new HexPoint(x, y));
+    }
+
     @Override
     public int size() {
         return map.size();
@@ -0,0 +1,15 @@
+package me.lucaspickering.terra.world.util;
+
+import me.lucaspickering.terra.util.Direction;
+import me.lucaspickering.terra.world.Tile;
+
+/**
+ * A callback that receives each tile adjacent to some host tile, along with the direction from the
+ * host to that tile. Used with {@link TileSet#forEachNeighbor}, so that neighbors can be visited
+ * without building a collection for each host tile.
+ */
+@FunctionalInterface
+public interface NeighborConsumer {
+
+    void accept(Direction dir, Tile neighbor);
+}
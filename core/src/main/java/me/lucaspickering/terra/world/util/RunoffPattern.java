@@ -1,8 +1,8 @@
 package me.lucaspickering.terra.world.util;
 
-import java.util.Collections;
-import java.util.Map;
+import java.util.*;
 
+import me.lucaspickering.terra.util.Direction;
 import me.lucaspickering.terra.world.Tile;
 
 /**
@@ -17,9 +17,15 @@ import me.lucaspickering.terra.world.Tile;
  * A terminal is a tile with no exits. The terminal pattern shows where runoff from the source will
  * end up. It is a map of tile:double, where each key is a terminal tile and the double is a
  * fraction [0, 1] denoting how much of the source's runoff should end up on that terminal. The
- * values in the map should sum to 1, unless. The difference between their sum and 1 is the portion
- * of runoff that gets expelled to the ocean. If a tile has no terminals, then all of its runoff
- * ends up in the ocean and it is dubbed a "sink".
+ * values in the map sum to 1. Water tiles are always terminals, and any runoff that reaches them
+ * is expelled to the ocean. If a tile has no terminals, then it is a terminal itself, and is
+ * dubbed a "sink".
+ *
+ * Only the exits of each tile are stored, as a direction mask and a factor for each direction in
+ * the tile's {@link TileColumns}. A pattern is just a view onto those columns, so it can be created
+ * whenever it's needed and thrown away. The terminal pattern is derived from the exits when it is
+ * asked for, so storing it costs nothing, no matter how long the path from a tile to its terminals
+ * is.
  *
  * A runoff pattern does not hold any state, meaning it does not maintain any information about how
  * much water any tile holds, how much water has traversed the tile, etc. The pattern only maintains
@@ -27,34 +33,20 @@ import me.lucaspickering.terra.world.Tile;
  */
 public class RunoffPattern {
 
-    private final Tile source;
-    private final Map<Tile, Double> terminals = new HexPointMap<>();
-    private final Map<Tile, Double> exits = new HexPointMap<>();
+    private static final Direction[] DIRECTIONS = Direction.values();
 
-    public RunoffPattern(Tile source) {
-        this.source = source;
-    }
+    private final Tile source;
+    private final TileSet worldTiles;
 
     /**
-     * Add the given tile as an exit to this runoff pattern. The given exit tile must be adjacent to
-     * the source tile of this pattern.
+     * Creates a view of the runoff pattern of the given tile.
      *
-     * @param tile   the tile that runoff will exit through
-     * @param factor the portion of runoff from the source that will exit through this tile [0, 1]
+     * @param source     the source tile
+     * @param worldTiles all tiles in the world, used to find the exits of each tile
      */
-    public void addExit(Tile tile, double factor) {
-        exits.put(tile, factor); // Add the exit to the traversal pattern
-
-        final RunoffPattern otherRunoffPattern = tile.getRunoffPattern();
-
-        if (otherRunoffPattern.isTerminal()) {
-            // If this exit is a terminal, add it as a terminal to us
-            terminals.put(tile, factor);
-        } else {
-            // Otherwise, add all of the tile's terminals to our terminal pattern, but scale their
-            // factors by this exit's factor
-            otherRunoffPattern.terminals.forEach((t, f) -> terminals.put(t, factor * f));
-        }
+    public RunoffPattern(Tile source, TileSet worldTiles) {
+        this.source = source;
+        this.worldTiles = worldTiles;
     }
 
     /**
@@ -63,31 +55,77 @@ public class RunoffPattern {
      * @return {@code true} is this tile is a terminal, {@code false} otherwise
      */
     public boolean isTerminal() {
-        return exits.isEmpty();
+        return source.getRunoffExitMask() == 0;
     }
 
+    /**
+     * Calculates the terminal pattern for this tile. This walks every tile downhill of the source,
+     * so it should only be used for display and debugging.
+     *
+     * @return each terminal that runoff from the source reaches, and the portion that reaches it
+     */
     public Map<Tile, Double> getTerminals() {
-        return Collections.unmodifiableMap(terminals);
-    }
+        // The portion of the source's runoff that flows into each tile. Tiles are visited from
+        // highest to lowest, the same as during runoff, so that each tile's inflow is complete
+        // before it is passed on.
+        final Map<Tile, Double> inflows = new HexPointMap<>();
+        final Queue<Tile> toVisit =
+            new PriorityQueue<>(Comparator.comparingDouble(Tile::elevation).reversed());
+        final Map<Tile, Double> terminals = new HexPointMap<>();
 
-    public Map<Tile, Double> getExits() {
-        return Collections.unmodifiableMap(exits); // Immutability!
+        inflows.put(source, 1.0);
+        toVisit.add(source);
+        while (!toVisit.isEmpty()) {
+            final Tile tile = toVisit.remove();
+            final double inflow = inflows.get(tile);
+            final int exitMask = tile.getRunoffExitMask();
+            for (Direction dir : DIRECTIONS) {
+                if ((exitMask & (1 << dir.ordinal())) == 0) {
+                    continue;
+                }
+                final Tile exit = worldTiles.getByPoint(dir.shift(tile.pos()));
+                if (exit == null) {
+                    continue; // Exit is in a chunk that isn't loaded
+                }
+                final double exitFlow = inflow * tile.getRunoffExitFactor(dir);
+                if (exit.getRunoffExitMask() == 0) {
+                    terminals.merge(exit, exitFlow, Double::sum);
+                } else {
+                    final Double inflowSoFar = inflows.get(exit);
+                    if (inflowSoFar == null) {
+                        inflows.put(exit, exitFlow);
+                        toVisit.add(exit); // This is the first time we've reached this tile
+                    } else {
+                        inflows.put(exit, inflowSoFar + exitFlow);
+                    }
+                }
+            }
+        }
+        return Collections.unmodifiableMap(terminals);
     }
 
-    public void distributeRunoff() {
-        final double toDistribute = source.clearRunoff(); // Remove all water from this tile
-//        addTraversedRunoff(toDistribute, false);
-        terminals.forEach((tile, factor) -> tile.addRunoff(toDistribute * factor));
+    /**
+     * Gets the portion of runoff from the source that exits through its neighbor in the given
+     * direction.
+     *
+     * @param dir the direction of the neighbor from the source
+     * @return the portion of runoff that exits through that neighbor, or 0 if it isn't an exit
+     */
+    public double getExitFactor(Direction dir) {
+        return source.getRunoffExitFactor(dir);
     }
 
-    private void addTraversedRunoff(double traversed, boolean addToSelf) {
-        if (addToSelf) {
-//            source.addRunoffTraversed(traversed);
+    public Map<Tile, Double> getExits() {
+        final Map<Tile, Double> exitMap = new HexPointMap<>();
+        final int exitMask = source.getRunoffExitMask();
+        for (Direction dir : DIRECTIONS) {
+            if ((exitMask & (1 << dir.ordinal())) != 0) {
+                final Tile exit = worldTiles.getByPoint(dir.shift(source.pos()));
+                if (exit != null) {
+                    exitMap.put(exit, source.getRunoffExitFactor(dir));
+                }
+            }
         }
-
-        // Traverse the appropriate amount of water over each exit - that will cascade through the
-        // network
-        exits.forEach((tile, factor) -> tile.getRunoffPattern()
-            .addTraversedRunoff(traversed * factor, true));
+        return Collections.unmodifiableMap(exitMap); // Immutability!
     }
 }
@@ -0,0 +1,219 @@
+package me.lucaspickering.terra.world.util;
+
+import java.util.Arrays;
+
+import me.lucaspickering.terra.util.Direction;
+import me.lucaspickering.terra.world.Biome;
+import me.lucaspickering.terra.world.Tile;
+
+/**
+ * Column-wise storage for the attributes of every tile in one {@link Chunk}. Rather than each
+ * {@link Tile} holding its own fields, each attribute is stored in a primitive array, and a tile's
+ * value lives at that tile's offset within the chunk (see {@link Chunk#getTileIndex}). This keeps
+ * the number of objects per chunk constant, no matter how many attributes a tile has.
+ *
+ * This class does no validation of the values it stores. That is left to {@link Tile}, which is
+ * the public face of these columns.
+ */
+public class TileColumns {
+
+    private static final Biome[] BIOMES = Biome.values(); // Cached so we don't copy on each lookup
+
+    private final double[] elevations = new double[Chunk.TOTAL_TILES];
+    private final double[] humidities = new double[Chunk.TOTAL_TILES];
+    private final double[] runoffLevels = new double[Chunk.TOTAL_TILES];
+    private final byte[] biomes = new byte[Chunk.TOTAL_TILES];
+    private final short[] continentIds = new short[Chunk.TOTAL_TILES]; // 0 means no continent
+
+    // Bit d of a tile's mask is set if its neighbor in the direction with ordinal d is a runoff
+    // exit. Exit factors are indexed by tile index * NUM_SIDES + direction ordinal, and are 0 for
+    // directions that aren't exits. Both are written by runoff tasks for different continents that
+    // can share a chunk, so they're allocated up front rather than on the first write.
+    private final byte[] runoffExitMasks = new byte[Chunk.TOTAL_TILES];
+    private final double[] runoffExitFactors = new double[Chunk.TOTAL_TILES * Tile.NUM_SIDES];
+
+    // Indexed by tile index * NUM_SIDES + direction ordinal. This is rarely used, so it's only
+    // allocated on the first write. Tasks for different continents can make that first write at
+    // the same time, so the allocation is synchronized (see allocateRunoffTraversed).
+    private volatile double[] runoffTraversed;
+
+    public TileColumns() {
+        Arrays.fill(biomes, (byte) Biome.NONE.ordinal());
+    }
+
+    /**
+     * Resets every value to what it was when these columns were constructed, so that the storage
+     * can be reused for a new world.
+     */
+    public void clear() {
+        Arrays.fill(elevations, 0.0);
+        Arrays.fill(humidities, 0.0);
+        Arrays.fill(runoffLevels, 0.0);
+        Arrays.fill(biomes, (byte) Biome.NONE.ordinal());
+        Arrays.fill(continentIds, (short) 0);
+        Arrays.fill(runoffExitMasks, (byte) 0);
+        Arrays.fill(runoffExitFactors, 0.0);
+        runoffTraversed = null;
+    }
+
+    /**
+     * Gets the array that backs the elevation column. This is NOT a copy, so it should only be used
+     * by code that needs to do bulk operations on the whole column.
+     *
+     * @return the elevation of each tile, by index
+     */
+    public double[] getElevations() {
+        return elevations;
+    }
+
+    /**
+     * Gets the array that backs the humidity column. This is NOT a copy.
+     *
+     * @return the humidity of each tile, by index
+     * @see #getElevations()
+     */
+    public double[] getHumidities() {
+        return humidities;
+    }
+
+    /**
+     * Gets the array that backs the runoff level column. This is NOT a copy.
+     *
+     * @return the runoff level of each tile, by index
+     * @see #getElevations()
+     */
+    public double[] getRunoffLevels() {
+        return runoffLevels;
+    }
+
+    /**
+     * Gets the array that backs the biome column. This is NOT a copy. Each biome is stored as its
+     * ordinal in {@link Biome}.
+     *
+     * @return the biome ordinal of each tile, by index
+     * @see #getElevations()
+     */
+    public byte[] getBiomeOrdinals() {
+        return biomes;
+    }
+
+    /**
+     * Gets the array that backs the continent ID column. This is NOT a copy.
+     *
+     * @return the continent ID of each tile, by index (0 means no continent)
+     * @see #getElevations()
+     */
+    public short[] getContinentIds() {
+        return continentIds;
+    }
+
+    /**
+     * Gets the array that backs the runoff exit mask column. This is NOT a copy.
+     *
+     * @return the runoff exit mask of each tile, by index
+     * @see #getElevations()
+     * @see #getRunoffExitMask(int)
+     */
+    public byte[] getRunoffExitMasks() {
+        return runoffExitMasks;
+    }
+
+    /**
+     * Gets the array that backs the runoff exit factor column. This is NOT a copy. The factor for
+     * each tile and direction is at {@code index * Tile.NUM_SIDES + dir.ordinal()}.
+     *
+     * @return the runoff exit factors of each tile, by index and then direction ordinal
+     * @see #getElevations()
+     */
+    public double[] getRunoffExitFactors() {
+        return runoffExitFactors;
+    }
+
+    public double getElevation(int index) {
+        return elevations[index];
+    }
+
+    public void setElevation(int index, double elevation) {
+        elevations[index] = elevation;
+    }
+
+    public double getHumidity(int index) {
+        return humidities[index];
+    }
+
+    public void setHumidity(int index, double humidity) {
+        humidities[index] = humidity;
+    }
+
+    public double getRunoffLevel(int index) {
+        return runoffLevels[index];
+    }
+
+    public void setRunoffLevel(int index, double runoffLevel) {
+        runoffLevels[index] = runoffLevel;
+    }
+
+    public Biome getBiome(int index) {
+        return BIOMES[biomes[index]];
+    }
+
+    public void setBiome(int index, Biome biome) {
+        biomes[index] = (byte) biome.ordinal();
+    }
+
+    public short getContinentId(int index) {
+        return continentIds[index];
+    }
+
+    public void setContinentId(int index, short continentId) {
+        continentIds[index] = continentId;
+    }
+
+    public double getRunoffTraversed(int index, Direction dir) {
+        final double[] traversed = runoffTraversed;
+        if (traversed == null) {
+            return 0.0;
+        }
+        return traversed[index * Tile.NUM_SIDES + dir.ordinal()];
+    }
+
+    public void addRunoffTraversed(int index, Direction dir, double traversed) {
+        double[] column = runoffTraversed;
+        if (column == null) {
+            column = allocateRunoffTraversed();
+        }
+        column[index * Tile.NUM_SIDES + dir.ordinal()] += traversed;
+    }
+
+    /**
+     * Allocates the runoff traversed column, unless another thread got there first.
+     *
+     * @return the runoff traversed column
+     */
+    private synchronized double[] allocateRunoffTraversed() {
+        if (runoffTraversed == null) {
+            runoffTraversed = new double[Chunk.TOTAL_TILES * Tile.NUM_SIDES];
+        }
+        return runoffTraversed;
+    }
+
+    /**
+     * Gets the directions of the runoff exits of the tile at the given index. Bit {@code d} is set
+     * if the neighbor in the direction with ordinal {@code d} is an exit.
+     *
+     * @param index the index of the tile
+     * @return the tile's exit mask
+     */
+    public int getRunoffExitMask(int index) {
+        return runoffExitMasks[index];
+    }
+
+    public double getRunoffExitFactor(int index, Direction dir) {
+        return runoffExitFactors[index * Tile.NUM_SIDES + dir.ordinal()];
+    }
+
+    public void setRunoffExit(int index, Direction dir, double factor) {
+        runoffExitMasks[index] |= 1 << dir.ordinal();
+        runoffExitFactors[index * Tile.NUM_SIDES + dir.ordinal()] = factor;
+    }
+}
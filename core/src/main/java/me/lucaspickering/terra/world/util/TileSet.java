@@ -6,6 +6,7 @@ import java.util.Collection;
 import java.util.EnumMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Predicate;
 
 import me.lucaspickering.terra.util.Direction;
 import me.lucaspickering.terra.world.Tile;
@@ -18,10 +19,22 @@ import me.lucaspickering.terra.world.Tile;
  */
 public class TileSet extends HexPointSet<Tile> {
 
+    // Cached so that iterating over directions doesn't copy the array each time
+    protected static final Direction[] DIRECTIONS = Direction.values();
+
     public TileSet() {
         super();
     }
 
+    /**
+     * Constructs a new empty, dense {@link TileSet}.
+     *
+     * @see HexPointSet#HexPointSet(int, int, int, int)
+     */
+    public TileSet(int minX, int minY, int maxX, int maxY) {
+        super(minX, minY, maxX, maxY);
+    }
+
     /**
      * Constructs a new {@link TileSet} by copying the values in the given object. This is a shallow
      * copy, meaning the objects are put in this collection without being copied. You can modify the
@@ -43,7 +56,8 @@ public class TileSet extends HexPointSet<Tile> {
     }
 
     /**
-     * Gets the set of all tiles adjacent to the given tile.
+     * Gets the set of all tiles adjacent to the given tile. This creates a new map on each call,
+     * so in hot loops {@link #forEachNeighbor} should be preferred.
      *
      * @param tilePos the center of the search
      * @return tiles adjacent to {@code tile}, in a direction:point map
@@ -53,17 +67,49 @@ public class TileSet extends HexPointSet<Tile> {
         Objects.requireNonNull(tilePos);
 
         final Map<Direction, Tile> result = new EnumMap<>(Direction.class);
-        for (Direction dir : Direction.values()) {
-            final HexPoint otherPoint = dir.shift(tilePos); // Get the shifted point
+        forEachNeighbor(tilePos.x(), tilePos.y(), result::put);
+        return result;
+    }
 
-            // If the shifted point is in the world, add it to the map
-            final Tile otherTile = getByPoint(otherPoint);
-            if (otherTile != null) {
-                result.put(dir, otherTile);
+    /**
+     * Passes each tile in this set that is adjacent to the given point to the given consumer,
+     * along with the direction from the given point to that tile. Tiles are visited in the order
+     * of {@link Direction}. Nothing is allocated, so this is safe to use in hot loops, as long as
+     * the consumer itself doesn't allocate (e.g. a lambda that is created once, outside the loop).
+     *
+     * @param x        the x coord of the center of the search
+     * @param y        the y coord of the center of the search
+     * @param consumer the consumer to be given each adjacent tile
+     */
+    public void forEachNeighbor(int x, int y, @NotNull NeighborConsumer consumer) {
+        for (Direction dir : DIRECTIONS) {
+            final HexPoint delta = dir.delta();
+            final Tile neighbor = getByCoords(x + delta.x(), y + delta.y());
+            if (neighbor != null) {
+                consumer.accept(dir, neighbor);
             }
         }
+    }
 
-        return result;
+    /**
+     * Checks if any tile in this set that is adjacent to the given point matches the given
+     * predicate. Tiles are checked in the order of {@link Direction}, stopping at the first match.
+     * Like {@link #forEachNeighbor}, nothing is allocated.
+     *
+     * @param x         the x coord of the center of the search
+     * @param y         the y coord of the center of the search
+     * @param predicate the predicate to test each adjacent tile with
+     * @return {@code true} if at least one adjacent tile matches, {@code false} otherwise
+     */
+    public boolean anyNeighborMatches(int x, int y, @NotNull Predicate<Tile> predicate) {
+        for (Direction dir : DIRECTIONS) {
+            final HexPoint delta = dir.delta();
+            final Tile neighbor = getByCoords(x + delta.x(), y + delta.y());
+            if (neighbor != null && predicate.test(neighbor)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -0,0 +1,77 @@
+package me.lucaspickering.terra.batch;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import me.lucaspickering.terra.world.generate.NoiseNormalization;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestBatchGenerator {
+
+    @Test
+    public void testFromArgsSeeds() {
+        final BatchGenerator batch = BatchGenerator.fromArgs(new String[]{
+            "--seeds=3, 1,4", "--radius=2", "--normalization=sampled"});
+        assertEquals(Arrays.asList(3L, 1L, 4L), batch.getSeeds());
+        assertEquals(2, batch.getRadius());
+        assertEquals(NoiseNormalization.SAMPLED, batch.getNormalization());
+    }
+
+    @Test
+    public void testFromArgsCount() {
+        final BatchGenerator batch = BatchGenerator.fromArgs(new String[]{
+            "--count=3", "--first-seed=10"});
+        assertEquals(Arrays.asList(10L, 11L, 12L), batch.getSeeds());
+        assertEquals(1, batch.getRadius()); // Default
+        assertEquals(NoiseNormalization.GLOBAL, batch.getNormalization()); // Default
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromArgsNoSeeds() {
+        BatchGenerator.fromArgs(new String[]{"--radius=1"}); // Fail because no seeds are given
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromArgsSeedsAndCount() {
+        // Fail because only one way of giving seeds is allowed
+        BatchGenerator.fromArgs(new String[]{"--seeds=1,2", "--count=2"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromArgsUnknownOption() {
+        BatchGenerator.fromArgs(new String[]{"--count=1", "--fake=1"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromArgsMissingDashes() {
+        BatchGenerator.fromArgs(new String[]{"count=1"}); // Fail because there's no --
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromArgsMissingValue() {
+        BatchGenerator.fromArgs(new String[]{"--count"}); // Fail because there's no =
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromArgsBadSeed() {
+        BatchGenerator.fromArgs(new String[]{"--seeds=1,two"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromArgsBadNumber() {
+        BatchGenerator.fromArgs(new String[]{"--count=1", "--threads=many"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromArgsBadNormalization() {
+        BatchGenerator.fromArgs(new String[]{"--count=1", "--normalization=fake"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromArgsBadThreads() {
+        // Fail because the constructor rejects a non-positive thread count
+        BatchGenerator.fromArgs(new String[]{"--count=1", "--threads=0"});
+    }
+}
@@ -0,0 +1,57 @@
+package me.lucaspickering.terra.render;
+
+import org.junit.Test;
+
+import me.lucaspickering.terra.world.Tile;
+import me.lucaspickering.utils.Point2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestChunkMesh {
+
+    private static final double EPSILON = 0.001;
+
+    @Test
+    public void testBorderCellSize() {
+        assertEquals(1f, ChunkMesh.getBorderCellSize(1), EPSILON);
+        for (int scale = 1; scale <= ChunkMesh.MAX_SCALE; scale++) {
+            final float size = ChunkMesh.getBorderCellSize(scale);
+            assertTrue(size >= scale);
+            assertTrue(blockFits(scale, size));
+            if (scale > 1) {
+                // Every tile in the block only fits in a cell wider than the regular one, and it
+                // shouldn't be any wider than it needs to be
+                assertFalse(blockFits(scale, scale));
+                assertFalse(blockFits(scale, size * 0.99f));
+            }
+        }
+    }
+
+    /**
+     * Checks if every corner of every tile in a block of the given width is inside a cell of the
+     * given width, centered on the block.
+     */
+    private boolean blockFits(int scale, float size) {
+        final double tileRadius = ChunkModel.TILE_WIDTH / 2.0;
+        final double cellRadius = tileRadius * size + EPSILON;
+        final double centerOffset = (scale - 1) / 2.0;
+        for (int dx = 0; dx < scale; dx++) {
+            for (int dy = 0; dy < scale; dy++) {
+                final Point2 tilePos = ChunkModel.tileToPixel(dx - centerOffset, dy - centerOffset);
+                for (int corner = 0; corner < Tile.NUM_SIDES; corner++) {
+                    final double angle = corner * Math.PI / 3.0;
+                    final double x = Math.abs(tilePos.x() + Math.cos(angle) * tileRadius);
+                    final double z = Math.abs(tilePos.y() + Math.sin(angle) * tileRadius);
+                    // Inside the top and bottom sides, then inside the slanted sides
+                    if (z > cellRadius * Math.sqrt(3.0) / 2.0
+                        || Math.sqrt(3.0) * x + z > cellRadius * Math.sqrt(3.0)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+}
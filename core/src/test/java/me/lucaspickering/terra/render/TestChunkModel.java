@@ -0,0 +1,96 @@
+package me.lucaspickering.terra.render;
+
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.Ray;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import me.lucaspickering.terra.world.Tile;
+import me.lucaspickering.terra.world.World;
+import me.lucaspickering.terra.world.WorldHandler;
+import me.lucaspickering.terra.world.util.HexPoint;
+import me.lucaspickering.terra.world.util.TileSet;
+import me.lucaspickering.utils.Point2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestChunkModel {
+
+    private static final float MAX_DISTANCE = 100000f;
+    private static final float STEP = 0.25f; // Step size when marching along a ray
+
+    @Test
+    public void testPixelToTile() {
+        final HexPoint pos = new HexPoint(-7, 12);
+        assertEquals(pos, ChunkModel.pixelToTile(ChunkModel.tileToPixel(pos)));
+    }
+
+    @Test
+    public void testPickTile() {
+        final WorldHandler worldHandler = new WorldHandler(1L, 0);
+        worldHandler.generate();
+        final TileSet tiles = worldHandler.getWorld().getTiles();
+
+        // Straight down onto a tile
+        final Tile tile = tiles.getByCoords(40, 60);
+        final Point2 tilePos = ChunkModel.tileToPixel(tile.pos());
+        assertSame(tile, pick(tiles, (float) tilePos.x(), 5000f, (float) tilePos.y(),
+                              0f, -1f, 0f));
+
+        // Away from the world, or pointing up
+        assertNull(pick(tiles, -1e6f, 5000f, 0f, 0f, -1f, 0f));
+        assertNull(pick(tiles, (float) tilePos.x(), 5000f, (float) tilePos.y(), 0f, 1f, 0f));
+
+        // Rays at random angles should hit the same tile as marching along them in tiny steps
+        final Random random = new Random(0L);
+        int hits = 0;
+        for (int i = 0; i < 100; i++) {
+            final Vector3 origin = new Vector3(random.nextFloat() * 7500f,
+                                               2500f + random.nextFloat() * 2000f,
+                                               random.nextFloat() * -8600f);
+            final Vector3 direction = new Vector3(random.nextFloat() - 0.5f,
+                                                  -random.nextFloat(),
+                                                  random.nextFloat() - 0.5f).nor();
+            final Ray ray = new Ray(origin, direction);
+            final Tile expected = march(tiles, ray);
+            assertSame(expected, ChunkModel.pickTile(ray, tiles, MAX_DISTANCE));
+            if (expected != null) {
+                hits++;
+            }
+        }
+        assertTrue(hits > 0);
+    }
+
+    private static Tile pick(TileSet tiles, float x, float y, float z,
+                             float dirX, float dirY, float dirZ) {
+        final Ray ray = new Ray(new Vector3(x, y, z), new Vector3(dirX, dirY, dirZ));
+        return ChunkModel.pickTile(ray, tiles, MAX_DISTANCE);
+    }
+
+    /**
+     * Finds the first tile that the ray hits by checking points along it in tiny steps.
+     */
+    private static Tile march(TileSet tiles, Ray ray) {
+        final Vector3 point = new Vector3();
+        final double maxHeight = ChunkModel.getTileHeight(World.ELEVATION_RANGE.upper());
+        for (float dist = 0f; dist < MAX_DISTANCE; dist += STEP) {
+            ray.getEndPoint(point, dist);
+            if (point.y < 0f) {
+                return null;
+            }
+            if (point.y <= maxHeight) {
+                final HexPoint pos = ChunkModel.pixelToTile(new Point2(point.x, point.z));
+                final Tile tile = tiles.getByPoint(pos);
+                if (tile != null && point.y <= ChunkModel.getTileHeight(tile)) {
+                    return tile;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,171 @@
+package me.lucaspickering.terra.render;
+
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+import me.lucaspickering.terra.world.Tile;
+import me.lucaspickering.terra.world.util.HexPoint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestHexPrismBuilder {
+
+    private static final float X = 300f;
+    private static final float Z = -120f;
+    private static final float HEIGHT = 40f;
+    private static final float COLOR = 0.5f;
+
+    @Test
+    public void testFullPrism() {
+        final float[] wallBottoms = new float[Tile.NUM_SIDES]; // Every wall goes to the ground
+        final FloatBuffer vertices = FloatBuffer.allocate(
+            2 * HexPrismBuilder.MAX_VERTICES * HexPrismBuilder.VERTEX_SIZE);
+        final ShortBuffer indices = ShortBuffer.allocate(2 * HexPrismBuilder.MAX_INDICES);
+
+        // Write two prisms, so that the second one's indices have to be offset
+        HexPrismBuilder.writePrism(vertices, indices, 0f, 0f, 1f, 1f, wallBottoms, 0, COLOR);
+        final int count = HexPrismBuilder.writePrism(vertices, indices, X, Z, 1f, HEIGHT,
+                                                     wallBottoms, 0, COLOR);
+        assertEquals(HexPrismBuilder.MAX_VERTICES, count);
+        assertEquals(count, HexPrismBuilder.getVertexCount(HEIGHT, wallBottoms, 0));
+        assertEquals(vertices.capacity(), vertices.position());
+        assertEquals(indices.capacity(), indices.position());
+
+        checkTriangles(vertices, indices, HexPrismBuilder.MAX_INDICES, indices.capacity());
+    }
+
+    @Test
+    public void testHiddenWalls() {
+        // One wall is partly buried, and two are completely buried
+        final float[] wallBottoms = new float[Tile.NUM_SIDES + 1];
+        wallBottoms[2] = HEIGHT / 2f;
+        wallBottoms[3] = HEIGHT;
+        wallBottoms[4] = HEIGHT * 2f;
+        final FloatBuffer vertices = FloatBuffer.allocate(
+            HexPrismBuilder.MAX_VERTICES * HexPrismBuilder.VERTEX_SIZE);
+        final ShortBuffer indices = ShortBuffer.allocate(HexPrismBuilder.MAX_INDICES);
+
+        final int count = HexPrismBuilder.writePrism(vertices, indices, X, Z, 1f, HEIGHT,
+                                                     wallBottoms, 1, COLOR);
+        assertEquals(HexPrismBuilder.getVertexCount(HEIGHT, wallBottoms, 1), count);
+        assertEquals(HexPrismBuilder.MAX_VERTICES - 8, count);
+        assertEquals(count * HexPrismBuilder.VERTEX_SIZE, vertices.position());
+        assertEquals(HexPrismBuilder.getIndexCount(count), indices.position());
+
+        // The walls that aren't buried at all should still reach the ground
+        float minY = Float.MAX_VALUE;
+        for (int vertex = 0; vertex < count; vertex++) {
+            minY = Math.min(minY, getPosition(vertices, vertex).y);
+        }
+        assertEquals(0f, minY, 0f);
+        checkTriangles(vertices, indices, 0, indices.position());
+    }
+
+    @Test
+    public void testScaledPrism() {
+        final float size = 4f;
+        final FloatBuffer vertices = FloatBuffer.allocate(
+            HexPrismBuilder.MAX_VERTICES * HexPrismBuilder.VERTEX_SIZE);
+        final ShortBuffer indices = ShortBuffer.allocate(HexPrismBuilder.MAX_INDICES);
+        final int count = HexPrismBuilder.writePrism(vertices, indices, X, Z, size, HEIGHT,
+                                                     new float[Tile.NUM_SIDES], 0, COLOR);
+
+        // Every corner should be the given number of tiles' radii away from the center
+        final float radius = (float) ChunkModel.TILE_WIDTH / 2f;
+        for (int vertex = 0; vertex < count; vertex++) {
+            final Vector3 pos = getPosition(vertices, vertex);
+            final float dist = Vector3.len(pos.x - X, 0f, pos.z - Z);
+            assertEquals(size * radius, dist, 0.001f);
+        }
+    }
+
+    @Test
+    public void testSideDirections() {
+        // Each side should face the neighbor in its direction, as positioned by tileToPixel
+        final float[] wallBottoms = new float[Tile.NUM_SIDES];
+        for (int side = 0; side < Tile.NUM_SIDES; side++) {
+            Arrays.fill(wallBottoms, HEIGHT);
+            wallBottoms[side] = 0f;
+            final FloatBuffer vertices = FloatBuffer.allocate(
+                HexPrismBuilder.MAX_VERTICES * HexPrismBuilder.VERTEX_SIZE);
+            final ShortBuffer indices = ShortBuffer.allocate(HexPrismBuilder.MAX_INDICES);
+            final int count = HexPrismBuilder.writePrism(vertices, indices, 0f, 0f, 1f, HEIGHT,
+                                                         wallBottoms, 0, COLOR);
+
+            // Find the middle of the only wall
+            final Vector3 wallCenter = new Vector3();
+            for (int vertex = Tile.NUM_SIDES; vertex < count; vertex++) {
+                wallCenter.add(getPosition(vertices, vertex));
+            }
+            wallCenter.y = 0f;
+            wallCenter.nor();
+
+            final HexPoint delta = HexPrismBuilder.SIDE_DIRECTIONS[side].delta();
+            final Vector3 expected = new Vector3(0.75f * delta.x(), 0f,
+                                                 -(float) Math.sqrt(3) / 2f
+                                                 * (delta.x() / 2f + delta.y())).nor();
+            assertEquals(1f, wallCenter.dot(expected), 0.0001f);
+        }
+        assertEquals(Tile.NUM_SIDES,
+                     Arrays.stream(HexPrismBuilder.SIDE_DIRECTIONS).distinct().count());
+    }
+
+    @Test
+    public void testSetColor() {
+        final FloatBuffer vertices = FloatBuffer.allocate(
+            HexPrismBuilder.MAX_VERTICES * HexPrismBuilder.VERTEX_SIZE);
+        final ShortBuffer indices = ShortBuffer.allocate(HexPrismBuilder.MAX_INDICES);
+        HexPrismBuilder.writePrism(vertices, indices, X, Z, 1f, HEIGHT, new float[Tile.NUM_SIDES],
+                                   0, COLOR);
+        final float[] before = vertices.array().clone();
+
+        HexPrismBuilder.setColor(vertices, 0, HexPrismBuilder.MAX_VERTICES, -COLOR);
+        for (int i = 0; i < before.length; i++) {
+            final boolean isColor = i % HexPrismBuilder.VERTEX_SIZE == 6;
+            assertEquals(isColor ? -COLOR : before[i], vertices.get(i), 0f);
+        }
+    }
+
+    /**
+     * Checks that each triangle in the given range is inside the prism's bounds, and faces out
+     * from the prism.
+     */
+    private static void checkTriangles(FloatBuffer vertices, ShortBuffer indices, int start,
+                                       int end) {
+        final BoundingBox bounds = HexPrismBuilder.getBounds(X, Z, HEIGHT, new BoundingBox());
+        final Vector3 center = new Vector3(X, HEIGHT / 2f, Z);
+        for (int i = start; i < end; i += 3) {
+            final Vector3 a = getPosition(vertices, indices.get(i));
+            final Vector3 b = getPosition(vertices, indices.get(i + 1));
+            final Vector3 c = getPosition(vertices, indices.get(i + 2));
+            assertTrue(bounds.contains(a) && bounds.contains(b) && bounds.contains(c));
+
+            // Each triangle should be counter-clockwise when viewed from outside the prism
+            final Vector3 faceNormal = new Vector3(b).sub(a).crs(new Vector3(c).sub(a));
+            final Vector3 outward = new Vector3(a).add(b).add(c).scl(1f / 3f).sub(center);
+            assertTrue(faceNormal.dot(outward) > 0f);
+
+            // Each vertex's normal should point the same way as its face
+            assertTrue(getNormal(vertices, indices.get(i)).dot(faceNormal) > 0f);
+        }
+    }
+
+    private static Vector3 getPosition(FloatBuffer vertices, int vertex) {
+        final int offset = vertex * HexPrismBuilder.VERTEX_SIZE;
+        return new Vector3(vertices.get(offset), vertices.get(offset + 1),
+                           vertices.get(offset + 2));
+    }
+
+    private static Vector3 getNormal(FloatBuffer vertices, int vertex) {
+        final int offset = vertex * HexPrismBuilder.VERTEX_SIZE + 3;
+        return new Vector3(vertices.get(offset), vertices.get(offset + 1),
+                           vertices.get(offset + 2));
+    }
+}
@@ -0,0 +1,169 @@
+package me.lucaspickering.terra.world;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import me.lucaspickering.terra.world.util.Chunk;
+import me.lucaspickering.terra.world.util.HexPoint;
+import me.lucaspickering.terra.world.util.TileColumns;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TestLazyWorld {
+
+    private static final long SEED = 12345L;
+
+    @Test
+    public void testGetByCoords() {
+        final LazyWorld world = new LazyWorld(SEED);
+        assertEquals(0, world.getCachedChunkCount());
+
+        final Tile tile = world.getByCoords(-1, 10 * Chunk.SIDE_LENGTH);
+        assertEquals(new HexPoint(-1, 10 * Chunk.SIDE_LENGTH), tile.pos());
+        assertSame(tile, world.getByPoint(tile.pos()));
+        assertEquals(1, world.getCachedChunkCount());
+    }
+
+    @Test
+    public void testEvictAndRegenerate() {
+        final LazyWorld world = new LazyWorld(SEED, 2);
+        final HexPoint first = new HexPoint(0, 0);
+        final Chunk original = world.getChunk(first);
+
+        // Touch the first chunk again so that the second chunk is least recently used
+        world.getChunk(new HexPoint(1, 0));
+        world.getChunk(first);
+        world.getChunk(new HexPoint(-1, 0));
+        assertEquals(2, world.getCachedChunkCount());
+        assertSame(original, world.getChunk(first));
+
+        // Now push the first chunk out, and make sure it comes back the same
+        world.getChunk(new HexPoint(5, 5));
+        world.getChunk(new HexPoint(6, 6));
+        final Chunk regenerated = world.getChunk(first);
+        assertNotSame(original, regenerated);
+        assertColumnsEqual(original, regenerated);
+    }
+
+    @Test
+    public void testMatchesOtherInstance() {
+        // Chunks must not depend on the order they were generated in
+        final LazyWorld world1 = new LazyWorld(SEED);
+        final LazyWorld world2 = new LazyWorld(SEED);
+        final List<Chunk> chunks1 = world1.getChunksInRange(new HexPoint(3, -2), 1);
+        world2.getChunk(new HexPoint(20, 20));
+        final List<Chunk> chunks2 = world2.getChunksInRange(new HexPoint(3, -2), 1);
+
+        assertEquals(7, chunks1.size());
+        assertEquals(chunks1.size(), chunks2.size());
+        for (int i = 0; i < chunks1.size(); i++) {
+            assertEquals(chunks1.get(i).getPos(), chunks2.get(i).getPos());
+            assertColumnsEqual(chunks1.get(i), chunks2.get(i));
+        }
+    }
+
+    @Test
+    public void testChunkListener() {
+        final LazyWorld world = new LazyWorld(SEED, 2);
+        final List<HexPoint> loaded = new ArrayList<>();
+        final List<HexPoint> evicted = new ArrayList<>();
+        world.setChunkListener(new ChunkListener() {
+            @Override
+            public void chunkLoaded(Chunk chunk) {
+                loaded.add(chunk.getPos());
+            }
+
+            @Override
+            public void chunkEvicted(Chunk chunk) {
+                // The chunk should already be gone by the time the listener hears about it
+                assertEquals(2, world.getCachedChunkCount());
+                evicted.add(chunk.getPos());
+            }
+        });
+
+        final HexPoint first = new HexPoint(0, 0);
+        final HexPoint second = new HexPoint(1, 0);
+        final HexPoint third = new HexPoint(0, 1);
+        world.getChunk(first);
+        world.getChunk(second);
+        world.getChunk(first); // Already loaded, so the listener isn't called
+        assertEquals(Arrays.asList(first, second), loaded);
+        assertEquals(Collections.emptyList(), evicted);
+
+        // The second chunk is least recently used, so it goes first
+        world.getChunk(third);
+        assertEquals(Arrays.asList(first, second, third), loaded);
+        assertEquals(Collections.singletonList(second), evicted);
+
+        // Without a listener, chunks are still evicted as usual
+        world.setChunkListener(null);
+        world.getChunk(second);
+        assertEquals(3, loaded.size());
+        assertEquals(2, world.getCachedChunkCount());
+    }
+
+    @Test
+    public void testMoveRange() {
+        // Only one spare slot, so any chunk in range that is evicted would have to be regenerated
+        final int radius = 1;
+        final LazyWorld world = new LazyWorld(SEED, LazyWorld.getChunkCountInRange(radius) + 1);
+        final List<HexPoint> loaded = new ArrayList<>();
+        world.setChunkListener(new ChunkListener() {
+            @Override
+            public void chunkLoaded(Chunk chunk) {
+                loaded.add(chunk.getPos());
+            }
+
+            @Override
+            public void chunkEvicted(Chunk chunk) {
+            }
+        });
+
+        world.getChunksInRange(new HexPoint(0, 0), radius);
+        assertEquals(LazyWorld.getChunkCountInRange(radius), loaded.size());
+
+        // Moving toward -x or -y reaches the new chunks before the old ones, in x-then-y order
+        loaded.clear();
+        world.getChunksInRange(new HexPoint(-1, 0), radius);
+        assertEquals(Arrays.asList(new HexPoint(-2, 0), new HexPoint(-2, 1),
+                                   new HexPoint(-1, -1)), loaded);
+
+        loaded.clear();
+        world.getChunksInRange(new HexPoint(-1, -1), radius);
+        assertEquals(Arrays.asList(new HexPoint(-2, -1), new HexPoint(-1, -2),
+                                   new HexPoint(0, -2)), loaded);
+    }
+
+    @Test
+    public void testLazyHandler() {
+        final WorldHandler worldHandler = new WorldHandler(SEED);
+        worldHandler.setLazy(true);
+        worldHandler.generate();
+        assertNull(worldHandler.getWorld());
+        assertEquals(SEED, worldHandler.getLazyWorld().getSeed());
+        assertEquals(0, worldHandler.getLazyWorld().getCachedChunkCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxChunks() {
+        new LazyWorld(SEED, 0);
+    }
+
+    private static void assertColumnsEqual(Chunk expected, Chunk actual) {
+        final TileColumns expectedColumns = expected.getColumns();
+        final TileColumns actualColumns = actual.getColumns();
+        assertArrayEquals(expectedColumns.getElevations(), actualColumns.getElevations(), 0.0);
+        assertArrayEquals(expectedColumns.getHumidities(), actualColumns.getHumidities(), 0.0);
+        for (int i = 0; i < Chunk.TOTAL_TILES; i++) {
+            assertEquals(expected.getTile(i).biome(), actual.getTile(i).biome());
+        }
+    }
+}
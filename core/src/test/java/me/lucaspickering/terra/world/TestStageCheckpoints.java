@@ -0,0 +1,177 @@
+package me.lucaspickering.terra.world;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import me.lucaspickering.terra.util.Direction;
+import me.lucaspickering.terra.world.generate.Generator;
+import me.lucaspickering.terra.world.generate.TileAttribute;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestStageCheckpoints {
+
+    private static final long SEED = 1234L;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testKeys() {
+        final World world = new World(SEED);
+        final String[] keys = StageCheckpoints.calcKeys(SEED, 1, new Generator[]{
+            new TestGenerator(world, "a"), new TestGenerator(world, "b"),
+            new TestGenerator(world, "c")});
+
+        // Same everything, same keys
+        assertEquals(keys[2], StageCheckpoints.calcKeys(SEED, 1, new Generator[]{
+            new TestGenerator(world, "a"), new TestGenerator(world, "b"),
+            new TestGenerator(world, "c")})[2]);
+
+        // Changing a stage's parameters changes its key and the ones after it, but not before it
+        final String[] changedKeys = StageCheckpoints.calcKeys(SEED, 1, new Generator[]{
+            new TestGenerator(world, "a"), new TestGenerator(world, "changed"),
+            new TestGenerator(world, "c")});
+        assertEquals(keys[0], changedKeys[0]);
+        assertNotEquals(keys[1], changedKeys[1]);
+        assertNotEquals(keys[2], changedKeys[2]);
+
+        // Changing the seed or size changes every key
+        assertNotEquals(keys[0], StageCheckpoints.calcKeys(SEED + 1, 1, new Generator[]{
+            new TestGenerator(world, "a")})[0]);
+        assertNotEquals(keys[0], StageCheckpoints.calcKeys(SEED, 2, new Generator[]{
+            new TestGenerator(world, "a")})[0]);
+    }
+
+    @Test
+    public void testResume() throws IOException {
+        final Path dir = folder.getRoot().toPath();
+        final WorldHandler full = new WorldHandler(SEED, 1);
+        full.setCheckpointDir(dir);
+        full.generate();
+
+        // Pretend that the later stages changed, by deleting their checkpoints
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(path -> path.getFileName().toString().startsWith("ContinentClusterer")
+                                 || path.getFileName().toString().startsWith("CoastGenerator")
+                                 || path.getFileName().toString().startsWith("RunoffGenerator"))
+                .forEach(path -> path.toFile().delete());
+        }
+
+        final WorldHandler resumed = new WorldHandler(SEED, 1);
+        resumed.setCheckpointDir(dir);
+        resumed.generate();
+
+        final World expected = full.getWorld();
+        final World actual = resumed.getWorld();
+        assertEquals(expected.getContinents().size(), actual.getContinents().size());
+        for (Tile tile : expected.getTiles()) {
+            final Tile resumedTile = actual.getTiles().getByPoint(tile.pos());
+            assertEquals(tile.elevation(), resumedTile.elevation(), 0.0);
+            assertEquals(tile.humidity(), resumedTile.humidity(), 0.0);
+            assertEquals(tile.biome(), resumedTile.biome());
+            assertEquals(tile.getRunoffLevel(), resumedTile.getRunoffLevel(), 0.0);
+        }
+    }
+
+    @Test
+    public void testResumeFromLastStage() {
+        final Path dir = folder.getRoot().toPath();
+        final WorldHandler full = new WorldHandler(SEED, 1);
+        full.setCheckpointDir(dir);
+        full.generate();
+
+        // Nothing changed, so this loads the last stage's checkpoint and runs nothing
+        final WorldHandler resumed = new WorldHandler(SEED, 1);
+        resumed.setCheckpointDir(dir);
+        resumed.generate();
+
+        final World expected = full.getWorld();
+        final World actual = resumed.getWorld();
+        int numExits = 0;
+        for (Tile tile : expected.getTiles()) {
+            final Tile resumedTile = actual.getTiles().getByPoint(tile.pos());
+            assertEquals(tile.getRunoffLevel(), resumedTile.getRunoffLevel(), 0.0);
+            for (Direction direction : Direction.values()) {
+                assertEquals(tile.getRunoffExitFactor(direction),
+                             resumedTile.getRunoffExitFactor(direction), 0.0);
+            }
+            numExits += Integer.bitCount(tile.getRunoffExitMask());
+        }
+        assertTrue(numExits > 0); // Make sure the exits were actually compared
+    }
+
+    @Test
+    public void testResumeFromEarlierStage() throws IOException {
+        final Path dir = folder.getRoot().toPath();
+        final WorldHandler full = new WorldHandler(SEED, 1);
+        full.setCheckpointDir(dir);
+        full.generate();
+
+        // Break the first and last checkpoints. The last one can't be loaded, so generation should
+        // resume from the one before it, and never touch the first one again.
+        final byte[] garbage = new byte[64];
+        final Path first = findCheckpoint(dir, "NoiseTerrainGenerator");
+        final Path last = findCheckpoint(dir, "RunoffGenerator");
+        Files.write(first, garbage);
+        Files.write(last, garbage);
+
+        final WorldHandler resumed = new WorldHandler(SEED, 1);
+        resumed.setCheckpointDir(dir);
+        resumed.generate();
+
+        assertArrayEquals(garbage, Files.readAllBytes(first));
+        assertEquals(full.getWorld().getSeed(), WorldSnapshot.read(last).getSeed());
+        for (Tile tile : full.getWorld().getTiles()) {
+            final Tile resumedTile = resumed.getWorld().getTiles().getByPoint(tile.pos());
+            assertEquals(tile.getRunoffLevel(), resumedTile.getRunoffLevel(), 0.0);
+        }
+    }
+
+    private static Path findCheckpoint(Path dir, String stage) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(stage))
+                .findFirst().orElseThrow(IllegalStateException::new);
+        }
+    }
+
+    private static class TestGenerator extends Generator {
+
+        private final String parameters;
+
+        private TestGenerator(World world, String parameters) {
+            super(world, 0);
+            this.parameters = parameters;
+        }
+
+        @Override
+        public void generate() {
+        }
+
+        @Override
+        public Set<TileAttribute> getReads() {
+            return EnumSet.noneOf(TileAttribute.class);
+        }
+
+        @Override
+        public Set<TileAttribute> getWrites() {
+            return EnumSet.noneOf(TileAttribute.class);
+        }
+
+        @Override
+        public String describeParameters() {
+            return parameters;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package me.lucaspickering.terra.world;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+
+import me.lucaspickering.terra.util.Direction;
+import me.lucaspickering.terra.world.util.Chunk;
+import me.lucaspickering.terra.world.util.HexPoint;
+import me.lucaspickering.terra.world.util.TileSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestWorld {
+
+    private final World world = new World(0L, 1);
+
+    @Test
+    public void testSize() {
+        assertEquals(7, world.getChunks().size());
+        assertEquals(7 * Chunk.TOTAL_TILES, world.getTiles().size());
+    }
+
+    @Test
+    public void testGetByCoords() {
+        final TileSet tiles = world.getTiles();
+        final Tile tile = tiles.getByCoords(-1, Chunk.SIDE_LENGTH);
+        assertNotNull(tile);
+        assertEquals(new HexPoint(-1, Chunk.SIDE_LENGTH), tile.pos());
+        assertSame(tile, tiles.getByPoint(tile.pos()));
+        assertNull(tiles.getByCoords(5 * Chunk.SIDE_LENGTH, 0)); // Outside the world
+    }
+
+    @Test
+    public void testForEachNeighbor() {
+        // Interior, chunk edge, chunk corner, and edge of the world
+        final int side = Chunk.SIDE_LENGTH;
+        checkNeighbors(new HexPoint(50, 50), 6);
+        checkNeighbors(new HexPoint(0, 50), 6);
+        checkNeighbors(new HexPoint(side - 1, side - 1), 6);
+        checkNeighbors(new HexPoint(-side, 0), 2);
+        checkNeighbors(new HexPoint(2 * side - 1, -side), 3);
+    }
+
+    @Test
+    public void testSpliterator() {
+        final TileSet tiles = world.getTiles();
+        final Spliterator<Tile> spliterator = tiles.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED
+                                                  | Spliterator.NONNULL | Spliterator.DISTINCT));
+        assertEquals(tiles.size(), spliterator.getExactSizeIfKnown());
+
+        // Bulk traversal should visit the same tiles in the same order as the iterator
+        final List<Tile> expected = new ArrayList<>(tiles);
+        final List<Tile> actual = new ArrayList<>();
+        spliterator.forEachRemaining(actual::add);
+        assertEquals(expected, actual);
+
+        // Splitting repeatedly should still cover every tile exactly once
+        final List<Spliterator<Tile>> pieces = new ArrayList<>();
+        pieces.add(tiles.spliterator());
+        for (int i = 0; i < 6; i++) {
+            final List<Spliterator<Tile>> splits = new ArrayList<>();
+            for (Spliterator<Tile> piece : pieces) {
+                final Spliterator<Tile> prefix = piece.trySplit();
+                if (prefix != null) {
+                    splits.add(prefix);
+                }
+                splits.add(piece);
+            }
+            pieces.clear();
+            pieces.addAll(splits);
+        }
+        final List<Tile> joined = new ArrayList<>();
+        for (Spliterator<Tile> piece : pieces) {
+            final long size = piece.estimateSize();
+            final int before = joined.size();
+            while (piece.tryAdvance(joined::add)) {
+                // Just keep advancing
+            }
+            assertEquals(size, joined.size() - before);
+        }
+        assertEquals(expected, joined);
+        assertEquals(tiles.size(), tiles.parallelStream().distinct().count());
+    }
+
+    @Test
+    public void testRecycle() {
+        final WorldHandler first = new WorldHandler(1L, 1);
+        first.generate();
+        final Chunk reusedChunk = first.getWorld().getChunks().iterator().next();
+
+        // A recycled world should be identical to a fresh one, but made of the same chunks
+        final WorldHandler recycled = first.recycle(2L);
+        recycled.generate();
+        final WorldHandler fresh = new WorldHandler(2L, 1);
+        fresh.generate();
+
+        final World expected = fresh.getWorld();
+        final World actual = recycled.getWorld();
+        assertSame(reusedChunk, actual.getChunks().getByPoint(reusedChunk.getPos()));
+        assertEquals(expected.getContinents().size(), actual.getContinents().size());
+        for (Tile tile : expected.getTiles()) {
+            final Tile recycledTile = actual.getTiles().getByPoint(tile.pos());
+            assertEquals(tile.elevation(), recycledTile.elevation(), 0.0);
+            assertEquals(tile.humidity(), recycledTile.humidity(), 0.0);
+            assertEquals(tile.biome(), recycledTile.biome());
+            assertEquals(tile.getRunoffLevel(), recycledTile.getRunoffLevel(), 0.0);
+            assertEquals(tile.getRunoffExitMask(), recycledTile.getRunoffExitMask());
+        }
+    }
+
+    private void checkNeighbors(HexPoint center, int expectedCount) {
+        final TileSet tiles = world.getTiles();
+        final Map<Direction, Tile> neighbors = new EnumMap<>(Direction.class);
+        tiles.forEachNeighbor(center.x(), center.y(), neighbors::put);
+
+        assertEquals(expectedCount, neighbors.size());
+        for (Map.Entry<Direction, Tile> entry : neighbors.entrySet()) {
+            assertEquals(entry.getKey().shift(center), entry.getValue().pos());
+        }
+        assertEquals(neighbors, tiles.getAdjacentTiles(center));
+    }
+}
@@ -0,0 +1,102 @@
+package me.lucaspickering.terra.world;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import me.lucaspickering.terra.util.Direction;
+import me.lucaspickering.terra.world.generate.Generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestWorldSnapshot {
+
+    private static final long SEED = 1234L;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final World world = new World(SEED, 1);
+        for (Generator generator : WorldHandler.makeGenerators(world)) {
+            generator.generate();
+        }
+
+        final Path path = folder.getRoot().toPath().resolve("world.bin");
+        WorldSnapshot.write(world, path);
+        final World loaded = WorldSnapshot.read(path);
+
+        assertEquals(world.getSeed(), loaded.getSeed());
+        assertEquals(world.getChunks().size(), loaded.getChunks().size());
+        assertEquals(world.getContinents().size(), loaded.getContinents().size());
+        for (int i = 0; i < world.getContinents().size(); i++) {
+            final Continent continent = world.getContinents().get(i);
+            final Continent loadedContinent = loaded.getContinents().get(i);
+            assertEquals(continent.getId(), loadedContinent.getId());
+            assertEquals(continent.getTiles().size(), loadedContinent.getTiles().size());
+        }
+
+        int numExits = 0;
+        for (Tile tile : world.getTiles()) {
+            final Tile loadedTile = loaded.getTiles().getByPoint(tile.pos());
+            assertNotNull(loadedTile);
+            assertEquals(tile.elevation(), loadedTile.elevation(), 0.0);
+            assertEquals(tile.humidity(), loadedTile.humidity(), 0.0);
+            assertEquals(tile.getRunoffLevel(), loadedTile.getRunoffLevel(), 0.0);
+            assertEquals(tile.biome(), loadedTile.biome());
+            if (tile.getContinent() == null) {
+                assertNull(loadedTile.getContinent());
+            } else {
+                assertEquals(tile.getContinent().getId(), loadedTile.getContinent().getId());
+                assertSame(loadedTile.getContinent(),
+                           loaded.getContinents().get(tile.getContinent().getId() - 1));
+            }
+            for (Direction dir : Direction.values()) {
+                assertEquals(tile.getRunoffExitFactor(dir),
+                             loadedTile.getRunoffExitFactor(dir), 0.0);
+            }
+            assertEquals(tile.getRunoffExitMask(), loadedTile.getRunoffExitMask());
+            numExits += Integer.bitCount(tile.getRunoffExitMask());
+        }
+        assertTrue(numExits > 0); // Make sure the exits were actually tested
+    }
+
+    @Test
+    public void testReplace() throws IOException {
+        final Path path = folder.getRoot().toPath().resolve("world.bin");
+        WorldSnapshot.write(new World(SEED, 0), path);
+        WorldSnapshot.write(new World(SEED + 1, 0), path);
+
+        // The old snapshot is replaced, and no temporary files are left behind
+        assertEquals(SEED + 1, WorldSnapshot.read(path).getSeed());
+        assertEquals(1, folder.getRoot().list().length);
+    }
+
+    @Test(expected = IOException.class)
+    public void testBadMagic() throws IOException {
+        final Path path = folder.getRoot().toPath().resolve("bad.bin");
+        Files.write(path, new byte[64]);
+        WorldSnapshot.read(path);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncated() throws IOException {
+        final Path path = folder.getRoot().toPath().resolve("truncated.bin");
+        WorldSnapshot.write(new World(SEED, 0), path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+        WorldSnapshot.read(path);
+    }
+}
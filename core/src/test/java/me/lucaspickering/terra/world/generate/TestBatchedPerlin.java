@@ -0,0 +1,53 @@
+package me.lucaspickering.terra.world.generate;
+
+import com.flowpowered.noise.NoiseQuality;
+import com.flowpowered.noise.module.source.Perlin;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestBatchedPerlin {
+
+    private static final int ROW_LENGTH = 100;
+
+    @Test
+    public void testMatchesPerlin() {
+        for (NoiseQuality quality : NoiseQuality.values()) {
+            final Perlin perlin = new Perlin();
+            perlin.setSeed(42);
+            perlin.setFrequency(1.5);
+            perlin.setOctaveCount(12);
+            perlin.setNoiseQuality(quality);
+            checkRows(perlin);
+        }
+    }
+
+    @Test
+    public void testMatchesDefaultPerlin() {
+        checkRows(new Perlin());
+    }
+
+    private void checkRows(Perlin perlin) {
+        final BatchedPerlin batched = new BatchedPerlin(perlin);
+        final double[] ys = new double[ROW_LENGTH];
+        final double[] zs = new double[ROW_LENGTH];
+        final double[] octaveYs = new double[ROW_LENGTH];
+        final double[] octaveZs = new double[ROW_LENGTH];
+        final double[] values = new double[ROW_LENGTH + 1];
+
+        // Rows on both sides of the origin, including points right on the lattice
+        for (int row = -300; row <= 300; row += 37) {
+            final double x = row / 16.0;
+            for (int i = 0; i < ROW_LENGTH; i++) {
+                ys[i] = (i - ROW_LENGTH / 2) / 16.0;
+                zs[i] = -x - ys[i];
+            }
+            batched.getRow(x, ys, zs, ROW_LENGTH, octaveYs, octaveZs, values, 1);
+            for (int i = 0; i < ROW_LENGTH; i++) {
+                // The values must be bit-for-bit identical, not just close
+                assertEquals(perlin.getValue(x, ys[i], zs[i]), values[i + 1], 0.0);
+            }
+        }
+    }
+}
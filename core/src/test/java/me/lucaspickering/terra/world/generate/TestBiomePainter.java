@@ -0,0 +1,53 @@
+package me.lucaspickering.terra.world.generate;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import me.lucaspickering.terra.world.Biome;
+import me.lucaspickering.terra.world.World;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestBiomePainter {
+
+    private static final long SEED = 1234L;
+
+    @Test
+    public void testLookupMatchesExact() {
+        final SplittableRandom random = new SplittableRandom(SEED);
+        final double minElevation = World.ELEVATION_RANGE.lower();
+        final double maxElevation = World.ELEVATION_RANGE.upper();
+        for (int i = 0; i < 1_000_000; i++) {
+            checkBiome(random.nextDouble(minElevation, maxElevation), random.nextDouble());
+        }
+    }
+
+    @Test
+    public void testLookupOnBoundaries() {
+        // Values exactly on (and just off of) each region boundary, and the edges of the ranges
+        for (int i = 0; i <= 1000; i++) {
+            final double h = i / 1000.0;
+            for (double e : new double[]{-100 * h + 700, -100 * h + 400, -880 * h + 540}) {
+                checkBiome(e, h);
+                checkBiome(Math.nextUp(e), h);
+                checkBiome(Math.nextDown(e), h);
+            }
+            checkBiome(World.ELEVATION_RANGE.lower(), h);
+            checkBiome(World.ELEVATION_RANGE.upper(), h);
+        }
+        for (double h : new double[]{0.15, 0.75}) {
+            for (int e = -1000; e <= 1000; e++) {
+                checkBiome(e, h);
+                checkBiome(e, Math.nextUp(h));
+                checkBiome(e, Math.nextDown(h));
+            }
+        }
+    }
+
+    private static void checkBiome(double elevation, double humidity) {
+        final Biome expected = BiomePainter.computeBiome(elevation, humidity);
+        assertEquals(String.format("[elevation=%f], [humidity=%f]", elevation, humidity),
+                     expected.ordinal(), BiomePainter.lookupBiome(elevation, humidity));
+    }
+}
@@ -0,0 +1,121 @@
+package me.lucaspickering.terra.world.generate;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import me.lucaspickering.terra.world.Tile;
+import me.lucaspickering.terra.world.World;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TestGeneratorScheduler {
+
+    private static final long SEED = 1234L;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testDependencies() {
+        final World world = new World(SEED, 0);
+        final int[][] dependencies =
+            GeneratorScheduler.calcDependencies(makeGenerators(world, NoiseNormalization.GLOBAL));
+
+        assertArrayEquals(new int[0], dependencies[0]); // Elevation
+        assertArrayEquals(new int[0], dependencies[1]); // Humidity
+        assertArrayEquals(new int[]{0}, dependencies[2]); // Ocean
+        assertArrayEquals(new int[]{0, 1, 2}, dependencies[3]); // Biomes
+        assertArrayEquals(new int[]{2, 3}, dependencies[4]); // Continents
+        assertArrayEquals(new int[]{0, 2, 3, 4}, dependencies[5]); // Coast
+        assertArrayEquals(new int[]{0, 2, 3, 4, 5}, dependencies[6]); // Runoff
+    }
+
+    @Test
+    public void testMatchesSequential() {
+        for (NoiseNormalization normalization : NoiseNormalization.values()) {
+            final World sequential = new World(SEED, 1);
+            for (Generator generator : makeGenerators(sequential, normalization)) {
+                generator.generate();
+            }
+
+            final World scheduled = new World(SEED, 1);
+            new GeneratorScheduler(scheduled, makeGenerators(scheduled, normalization), executor)
+                .run();
+
+            assertWorldsEqual(sequential, scheduled);
+        }
+    }
+
+    @Test
+    public void testPipelined() {
+        // Noise and biomes are both chunk-local here, so biomes are pipelined chunk by chunk
+        final World sequential = new World(SEED, 1);
+        new NoiseTerrainGenerator(sequential, NoiseNormalization.SAMPLED).generate();
+        new BiomePainter(sequential).generate();
+
+        final World scheduled = new World(SEED, 1);
+        final List<Generator> generators = Arrays.asList(
+            new NoiseTerrainGenerator(scheduled, NoiseNormalization.SAMPLED),
+            new BiomePainter(scheduled));
+        new GeneratorScheduler(scheduled, generators, executor).run();
+
+        assertWorldsEqual(sequential, scheduled);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStageException() {
+        final World world = new World(SEED, 0);
+        final Generator failing = new Generator(world, 0) {
+            @Override
+            public void generate() {
+                throw new IllegalStateException("Stage failed");
+            }
+
+            @Override
+            public Set<TileAttribute> getReads() {
+                return EnumSet.noneOf(TileAttribute.class);
+            }
+
+            @Override
+            public Set<TileAttribute> getWrites() {
+                return EnumSet.of(TileAttribute.ELEVATION);
+            }
+        };
+        final List<Generator> generators = Arrays.asList(failing, new OceanGenerator(world));
+        new GeneratorScheduler(world, generators, executor).run();
+    }
+
+    private static List<Generator> makeGenerators(World world, NoiseNormalization normalization) {
+        return Arrays.asList(
+            new NoiseElevationGenerator(world, normalization),
+            new NoiseHumidityGenerator(world, normalization),
+            new OceanGenerator(world),
+            new BiomePainter(world),
+            new ContinentClusterer(world),
+            new CoastGenerator(world),
+            new RunoffGenerator(world));
+    }
+
+    private static void assertWorldsEqual(World expected, World actual) {
+        assertEquals(expected.getContinents().size(), actual.getContinents().size());
+        for (Tile expectedTile : expected.getTiles()) {
+            final Tile actualTile = actual.getTiles().getByPoint(expectedTile.pos());
+            assertEquals(expectedTile.elevation(), actualTile.elevation(), 0.0);
+            assertEquals(expectedTile.humidity(), actualTile.humidity(), 0.0);
+            assertEquals(expectedTile.biome(), actualTile.biome());
+            assertEquals(expectedTile.getRunoffLevel(), actualTile.getRunoffLevel(), 0.0);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package me.lucaspickering.terra.world.generate;
+
+import org.junit.Test;
+
+import me.lucaspickering.terra.world.World;
+import me.lucaspickering.terra.world.util.Chunk;
+import me.lucaspickering.terra.world.util.HexPoint;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestNoiseGenerator {
+
+    private static final long SEED = 1234L;
+
+    @Test
+    public void testStreamingChunkIndependence() {
+        for (NoiseNormalization normalization : NoiseNormalization.values()) {
+            if (normalization.isStreaming()) {
+                checkChunkIndependence(normalization);
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testGlobalGenerateChunk() {
+        final World world = new World(SEED, 0);
+        final Chunk chunk = world.getChunks().iterator().next();
+        new NoiseTerrainGenerator(world).generateChunk(chunk);
+    }
+
+    @Test
+    public void testFusedMatchesSeparate() {
+        final World fused = new World(SEED, 0);
+        new NoiseTerrainGenerator(fused).generate();
+
+        final World separate = new World(SEED, 0);
+        new NoiseElevationGenerator(separate).generate();
+        new NoiseHumidityGenerator(separate).generate();
+
+        assertColumnsEqual(getOrigin(fused), getOrigin(separate));
+    }
+
+    private void checkChunkIndependence(NoiseNormalization normalization) {
+        // Generate the whole world at once
+        final World whole = new World(SEED, 1);
+        new NoiseTerrainGenerator(whole, normalization).generate();
+
+        // Generate only the origin chunk, in a world of a different size
+        final World single = new World(SEED, 0);
+        final Chunk chunk = getOrigin(single);
+        new NoiseTerrainGenerator(single, normalization).generateChunk(chunk);
+
+        assertColumnsEqual(getOrigin(whole), chunk);
+        for (double elevation : chunk.getColumns().getElevations()) {
+            assertTrue(elevation >= World.ELEVATION_RANGE.lower());
+            assertTrue(elevation <= World.ELEVATION_RANGE.upper());
+        }
+    }
+
+    private Chunk getOrigin(World world) {
+        return world.getChunks().getByPoint(new HexPoint(0, 0));
+    }
+
+    private void assertColumnsEqual(Chunk expected, Chunk actual) {
+        assertArrayEquals(expected.getColumns().getElevations(),
+                          actual.getColumns().getElevations(), 0.0);
+        assertArrayEquals(expected.getColumns().getHumidities(),
+                          actual.getColumns().getHumidities(), 0.0);
+    }
+}
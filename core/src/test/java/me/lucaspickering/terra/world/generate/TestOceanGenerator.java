@@ -0,0 +1,63 @@
+package me.lucaspickering.terra.world.generate;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import me.lucaspickering.terra.world.Biome;
+import me.lucaspickering.terra.world.Tile;
+import me.lucaspickering.terra.world.World;
+import me.lucaspickering.terra.world.util.HexPoint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class TestOceanGenerator {
+
+    private static final long SEED = 1234L;
+
+    @Test
+    public void testRandomStreams() {
+        final World world = new World(SEED, 0);
+        final HexPoint point = new HexPoint(3, -2);
+
+        // The same seed, stage and key always give the same stream
+        assertEquals(new OceanGenerator(world).random(point).nextLong(),
+                     new OceanGenerator(new World(SEED, 0)).random(point).nextLong());
+
+        // Changing any of them gives a different stream
+        final long expected = new OceanGenerator(world).random(point).nextLong();
+        assertNotEquals(expected, new OceanGenerator(new World(SEED + 1, 0)).random(point)
+            .nextLong());
+        assertNotEquals(expected, new BiomePainter(world).random(point).nextLong());
+        assertNotEquals(expected, new OceanGenerator(world).random(new HexPoint(3, -1))
+            .nextLong());
+    }
+
+    @Test
+    public void testParallelismIndependent() throws Exception {
+        // Deciding the clusters one at a time should give the same oceans as in parallel
+        final World parallel = new World(SEED, 1);
+        new NoiseTerrainGenerator(parallel).generate();
+        new OceanGenerator(parallel).generate();
+
+        final World serial = new World(SEED, 1);
+        new NoiseTerrainGenerator(serial).generate();
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            pool.submit(() -> new OceanGenerator(serial).generate()).get();
+        } finally {
+            pool.shutdown();
+        }
+
+        int oceanTiles = 0;
+        for (Tile tile : parallel.getTiles()) {
+            final Biome biome = tile.biome();
+            assertEquals(biome, serial.getTiles().getByPoint(tile.pos()).biome());
+            if (biome == Biome.OCEAN || biome == Biome.COAST) {
+                oceanTiles++;
+            }
+        }
+        assertNotEquals(0, oceanTiles);
+    }
+}
@@ -0,0 +1,82 @@
+package me.lucaspickering.terra.world.generate;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Map;
+
+import me.lucaspickering.terra.util.Direction;
+import me.lucaspickering.terra.world.Continent;
+import me.lucaspickering.terra.world.Tile;
+import me.lucaspickering.terra.world.World;
+import me.lucaspickering.terra.world.util.RunoffPattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestRunoffGenerator {
+
+    private static final long SEED = 8675309L;
+    private static final double DELTA = 1e-9;
+
+    private static World world;
+
+    @BeforeClass
+    public static void generateWorld() {
+        world = new World(SEED, 0);
+        new NoiseTerrainGenerator(world).generate();
+        new OceanGenerator(world).generate();
+        new BiomePainter(world).generate();
+        new ContinentClusterer(world).generate();
+        new CoastGenerator(world).generate();
+        new RunoffGenerator(world).generate();
+    }
+
+    @Test
+    public void testTerminalsSumToOne() {
+        for (Continent continent : world.getContinents()) {
+            for (Tile tile : continent.getTiles()) {
+                final RunoffPattern pattern = new RunoffPattern(tile, world.getTiles());
+                if (!pattern.isTerminal()) {
+                    final Map<Tile, Double> terminals = pattern.getTerminals();
+                    final double total =
+                        terminals.values().stream().mapToDouble(Double::doubleValue).sum();
+                    assertEquals(1.0, total, DELTA);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testExitFactorsMatchMask() {
+        for (Tile tile : world.getTiles()) {
+            final int exitMask = tile.getRunoffExitMask();
+            double total = 0.0;
+            for (Direction dir : Direction.values()) {
+                final double factor = tile.getRunoffExitFactor(dir);
+                if ((exitMask & (1 << dir.ordinal())) != 0) {
+                    assertTrue(factor > 0.0);
+                    assertTrue(world.getTiles().getByPoint(dir.shift(tile.pos())) != null);
+                    total += factor;
+                } else {
+                    assertEquals(0.0, factor, 0.0);
+                }
+            }
+            if (exitMask != 0) {
+                assertEquals(1.0, total, DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void testRunoffEndsOnTerminals() {
+        // All water should have moved on from any tile with exits, and only land can hold water
+        for (Tile tile : world.getTiles()) {
+            if (tile.biome().isWater() || tile.getRunoffExitMask() != 0) {
+                assertEquals(0.0, tile.getRunoffLevel(), 0.0);
+            } else {
+                assertTrue(tile.getRunoffLevel() >= 0.0);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package me.lucaspickering.terra.world.util;
+
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import me.lucaspickering.terra.world.Tile;
+import me.lucaspickering.terra.world.World;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestCluster {
+
+    private final TileSet tiles = new World(0L, 1).getTiles();
+
+    // Splits the world into irregular bands, so that there are many clusters of each category
+    private final Function<Tile, Integer> categoryFunc =
+        tile -> Math.floorMod(tile.pos().x() * 7 + tile.pos().y() * tile.pos().y() / 50, 5);
+
+    @Test
+    public void testCategoryCluster() {
+        final Map<Integer, List<Cluster>> clusters = Cluster.categoryCluster(tiles, categoryFunc);
+        final Map<Tile, Cluster> tileClusters = new HashMap<>();
+
+        for (Map.Entry<Integer, List<Cluster>> entry : clusters.entrySet()) {
+            HexPoint lastFirst = null;
+            for (Cluster cluster : entry.getValue()) {
+                // Clusters should be in order of their first tile
+                final HexPoint first = cluster.stream().map(Tile::pos)
+                    .min(Comparator.naturalOrder()).get();
+                if (lastFirst != null) {
+                    assertTrue(lastFirst.compareTo(first) < 0);
+                }
+                lastFirst = first;
+
+                for (Tile tile : cluster) {
+                    assertEquals(entry.getKey(), categoryFunc.apply(tile));
+                    assertNull(tileClusters.put(tile, cluster));
+                }
+            }
+        }
+        assertEquals(tiles.size(), tileClusters.size()); // Each tile is in exactly one cluster
+
+        // Adjacent tiles are in the same cluster iff they're in the same category
+        for (Tile tile : tiles) {
+            tiles.forEachNeighbor(tile.pos().x(), tile.pos().y(), (dir, adj) -> {
+                if (categoryFunc.apply(tile).equals(categoryFunc.apply(adj))) {
+                    assertSame(tileClusters.get(tile), tileClusters.get(adj));
+                } else {
+                    assertNotSame(tileClusters.get(tile), tileClusters.get(adj));
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testComponentLabels() {
+        final ComponentLabels<Integer> labels = ComponentLabels.label(tiles, categoryFunc);
+        final int[] sizes = new int[labels.getComponentCount()];
+        for (Tile tile : tiles) {
+            final int label = labels.getLabel(tile.pos().x(), tile.pos().y());
+            assertEquals(categoryFunc.apply(tile), labels.getCategory(label));
+            sizes[label]++;
+        }
+        for (int label = 0; label < sizes.length; label++) {
+            assertEquals(sizes[label], labels.getSize(label));
+        }
+        assertEquals(ComponentLabels.NO_LABEL, labels.getLabel(1000, 1000));
+    }
+
+    @Test
+    public void testChunkedMatchesSerial() {
+        final World world = new World(0L, 2);
+        final ComponentLabels<Integer> serial =
+            ComponentLabels.label(world.getTiles(), categoryFunc);
+        final ComponentLabels<Integer> chunked =
+            ComponentLabels.labelChunks(world.getChunks(), categoryFunc);
+
+        assertEquals(serial.getComponentCount(), chunked.getComponentCount());
+        for (Tile tile : world.getTiles()) {
+            final int label = serial.getLabel(tile.pos().x(), tile.pos().y());
+            assertEquals(label, chunked.getLabel(tile.pos().x(), tile.pos().y()));
+            assertEquals(serial.getSize(label), chunked.getSize(label));
+            assertEquals(serial.getCategory(label), chunked.getCategory(label));
+        }
+
+        // Cluster lists should be in the same order
+        final Map<Integer, List<Cluster>> serialClusters = serial.toClusters();
+        final Map<Integer, List<Cluster>> chunkedClusters = chunked.toClusters();
+        assertEquals(serialClusters.keySet(), chunkedClusters.keySet());
+        for (Integer category : serialClusters.keySet()) {
+            final List<Cluster> expected = serialClusters.get(category);
+            final List<Cluster> actual = chunkedClusters.get(category);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).size(), actual.get(i).size());
+                assertTrue(actual.get(i).containsAll(expected.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void testPredicateClusterEmpty() {
+        assertTrue(Cluster.predicateCluster(tiles, tile -> false).isEmpty());
+        assertTrue(Cluster.predicateCluster(new TileSet(), tile -> true).isEmpty());
+    }
+}
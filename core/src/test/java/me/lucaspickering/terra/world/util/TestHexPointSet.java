@@ -0,0 +1,111 @@
+package me.lucaspickering.terra.world.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestHexPointSet {
+
+    @Test
+    public void testDenseLookup() {
+        final HexPointSet<HexPoint> set = new HexPointSet<>(-2, -2, 2, 2);
+        final HexPoint point = new HexPoint(-1, 2);
+        set.add(point);
+
+        assertEquals(1, set.size());
+        assertSame(point, set.getByPoint(new HexPoint(-1, 2)));
+        assertTrue(set.containsPoint(new HexPoint(-1, 2)));
+        assertFalse(set.containsPoint(new HexPoint(2, -1)));
+        assertNull(set.getByPoint(new HexPoint(10, 10))); // Out of bounds
+    }
+
+    @Test
+    public void testDenseIterationOrder() {
+        // Dense sets should iterate by x, then y, the same as HexPoint's natural ordering
+        final HexPointSet<HexPoint> set = new HexPointSet<>(0, 0, 3, 3);
+        final List<HexPoint> points = Arrays.asList(new HexPoint(2, 1), new HexPoint(0, 3),
+                                                    new HexPoint(2, 0), new HexPoint(1, 1));
+        set.addAll(points);
+
+        final List<HexPoint> sorted = new ArrayList<>(points);
+        sorted.sort(null);
+        assertEquals(sorted, new ArrayList<>(set));
+    }
+
+    @Test
+    public void testDenseRemove() {
+        final HexPointSet<HexPoint> set = new HexPointSet<>(0, 0, 3, 3);
+        set.add(new HexPoint(1, 2));
+        set.add(new HexPoint(3, 0));
+
+        assertTrue(set.removeByPoint(new HexPoint(1, 2)));
+        assertFalse(set.removeByPoint(new HexPoint(1, 2)));
+        assertEquals(1, set.size());
+
+        final Iterator<HexPoint> iter = set.iterator();
+        iter.next();
+        iter.remove();
+        assertTrue(set.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDenseAddOutOfBounds() {
+        new HexPointSet<HexPoint>(0, 0, 3, 3).add(new HexPoint(4, 0));
+    }
+
+    @Test
+    public void testCopyKeepsLayout() {
+        final HexPointSet<HexPoint> set = new HexPointSet<>(0, 0, 3, 3);
+        set.add(new HexPoint(3, 3));
+        final HexPointSet<HexPoint> copy = new HexPointSet<>(set);
+
+        copy.add(new HexPoint(0, 0));
+        assertEquals(new HexPoint(0, 0), copy.iterator().next()); // Still ordered, so dense
+        assertEquals(1, set.size()); // Original is untouched
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testDenseImmutableCopy() {
+        final HexPointSet<HexPoint> set = new HexPointSet<>(0, 0, 3, 3);
+        set.add(new HexPoint(1, 1));
+        final HexPointSet<HexPoint> copy = set.immutableCopy();
+
+        assertEquals(1, copy.size());
+        assertTrue(copy.containsPoint(new HexPoint(1, 1)));
+        copy.add(new HexPoint(2, 2));
+    }
+
+    @Test
+    public void testSparse() {
+        final HexPointSet<HexPoint> set = new HexPointSet<>();
+        set.add(new HexPoint(1000, -5000));
+        set.add(new HexPoint(-3, 7));
+
+        assertEquals(2, set.size());
+        assertTrue(set.containsPoint(new HexPoint(1000, -5000)));
+        assertTrue(set.removeByPoint(new HexPoint(-3, 7)));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testSparseIterationOrder() {
+        // Sparse sets should iterate in the same order as dense ones
+        final HexPointSet<HexPoint> set = new HexPointSet<>();
+        final List<HexPoint> points = Arrays.asList(new HexPoint(200, -1), new HexPoint(-50, 3),
+                                                    new HexPoint(200, -7), new HexPoint(0, 0));
+        set.addAll(points);
+
+        final List<HexPoint> sorted = new ArrayList<>(points);
+        sorted.sort(null);
+        assertEquals(sorted, new ArrayList<>(set));
+    }
+}